@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.common;
+
+import java.util.List;
+
+/**
+ * Holds a page of BasicRemoteFetchConfiguration for the list view, with the token to continue to the next page.
+ */
+public class BasicRemoteFetchConfigurationPage {
+
+    private final List<BasicRemoteFetchConfiguration> basicRemoteFetchConfigurations;
+    private final String nextPageToken;
+
+    /**
+     * Create a page of BasicRemoteFetchConfiguration.
+     *
+     * @param basicRemoteFetchConfigurations Configurations of the page
+     * @param nextPageToken                  Opaque token of the next page, null if this is the last page
+     */
+    public BasicRemoteFetchConfigurationPage(List<BasicRemoteFetchConfiguration> basicRemoteFetchConfigurations,
+                                             String nextPageToken) {
+
+        this.basicRemoteFetchConfigurations = basicRemoteFetchConfigurations;
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Get configurations of the page.
+     *
+     * @return List of BasicRemoteFetchConfiguration
+     */
+    public List<BasicRemoteFetchConfiguration> getBasicRemoteFetchConfigurations() {
+
+        return basicRemoteFetchConfigurations;
+    }
+
+    /**
+     * Get the opaque token to request the next page.
+     *
+     * @return Next page token, null if this is the last page
+     */
+    public String getNextPageToken() {
+
+        return nextPageToken;
+    }
+}
@@ -46,6 +46,7 @@ public class RemoteFetchConfiguration {
     private Map<String, String> repositoryManagerAttributes = new HashMap<>();
     private Map<String, String> actionListenerAttributes = new HashMap<>();
     private Map<String, String> configurationDeployerAttributes = new HashMap<>();
+    private long version;
 
     /**
      * Default Constructor used by DAOs and clients.
@@ -338,6 +339,27 @@ public class RemoteFetchConfiguration {
         this.remoteResourceURI = remoteResourceURI;
     }
 
+    /**
+     * Version of the stored configuration, the time it was last written in epoch milliseconds.
+     * Used to load only changed configurations, so it is not part of equals and hashCode.
+     *
+     * @return version
+     */
+    public long getVersion() {
+
+        return version;
+    }
+
+    /**
+     * Set version of the stored configuration.
+     *
+     * @param version version
+     */
+    public void setVersion(long version) {
+
+        this.version = version;
+    }
+
     /**
      * Compare calling remotefetchConfiguration with given parameter.
      *
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.remotefetch.common;
 
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchClientException;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 
 import java.util.List;
@@ -73,6 +74,41 @@ public interface RemoteFetchConfigurationService {
     List<BasicRemoteFetchConfiguration> getBasicRemoteFetchConfigurationList(OptionalInt limit, OptionalInt offset)
             throws RemoteFetchCoreException;
 
+    /**
+     * This method is used to call by clients to get a page of BasicRemoteFetchConfiguration by tenantID.
+     * Configurations without a name come first ordered by id, followed by the others ordered by name and id. Each
+     * page is continued from the token returned with the previous page.
+     * Implementations without paging by position page the list view by offset, and do not guarantee this order.
+     *
+     * @param limit     limit
+     * @param pageToken Token returned with the previous page, null for the first page
+     * @return Page of BasicRemoteFetchConfiguration
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default BasicRemoteFetchConfigurationPage getBasicRemoteFetchConfigurationPage(OptionalInt limit, String pageToken)
+            throws RemoteFetchCoreException {
+
+        int offset = 0;
+        if (pageToken != null && !pageToken.isEmpty()) {
+            try {
+                offset = Integer.parseInt(pageToken);
+            } catch (NumberFormatException e) {
+                offset = -1;
+            }
+            if (offset < 0) {
+                throw new RemoteFetchClientException(RemoteFetchConstants.ErrorMessage
+                        .ERROR_CODE_RF_CONFIG_GET_REQUEST_INVALID.getCode(), "Invalid page token: " + pageToken);
+            }
+        }
+        List<BasicRemoteFetchConfiguration> basicRemoteFetchConfigurations =
+                getBasicRemoteFetchConfigurationList(limit, OptionalInt.of(offset));
+        // Without a limit the page size is not known, so a next page is assumed until a page is empty.
+        boolean isLastPage = basicRemoteFetchConfigurations.isEmpty() ||
+                (limit.isPresent() && basicRemoteFetchConfigurations.size() < limit.getAsInt());
+        return new BasicRemoteFetchConfigurationPage(basicRemoteFetchConfigurations,
+                isLastPage ? null : String.valueOf(offset + basicRemoteFetchConfigurations.size()));
+    }
+
     /**
      * This method is used to call by internal auto pull method to get list of enabled BasicRemoteFetchConfiguration.
      *
@@ -119,4 +155,55 @@ public interface RemoteFetchConfigurationService {
      */
     void handleWebHook(String url, String branch, List<String> modifiedFileNames) throws RemoteFetchCoreException;
 
+    /**
+     * This method is used to handle web hook by calling web hook handler. Only the modified files are deployed when
+     * the push was made on the revision last synchronized, otherwise the directory is reconciled.
+     *
+     * @param url               url of remote repository.
+     * @param branch            branch of remote repository.
+     * @param modifiedFileNames Files been modified by given push.
+     * @param beforeRevision    Revision of the branch before the push.
+     * @param afterRevision     Revision of the branch after the push.
+     * @param isTruncated       Whether the modified files listed by the payload are truncated.
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default void handleWebHook(String url, String branch, List<String> modifiedFileNames, String beforeRevision,
+                               String afterRevision, boolean isTruncated) throws RemoteFetchCoreException {
+
+        handleWebHook(url, branch, modifiedFileNames);
+    }
+
+    /**
+     * This method is used to queue a web hook to be handled asynchronously, so the caller is not held by matching
+     * and scheduling. Web hooks queued for the same repository and branch are merged.
+     * Implementations without a web hook queue handle the web hook synchronously and return null.
+     *
+     * @param url               url of remote repository.
+     * @param branch            branch of remote repository.
+     * @param modifiedFileNames Files been modified by given push.
+     * @param beforeRevision    Revision of the branch before the push.
+     * @param afterRevision     Revision of the branch after the push.
+     * @param isTruncated       Whether the modified files listed by the payload are truncated.
+     * @return Id of the web hook event, to look up its status, or null if the web hook was handled synchronously.
+     * @throws RemoteFetchCoreException RemoteFetchCoreException if the web hook queue is full.
+     */
+    default String submitWebHook(String url, String branch, List<String> modifiedFileNames, String beforeRevision,
+                                 String afterRevision, boolean isTruncated) throws RemoteFetchCoreException {
+
+        handleWebHook(url, branch, modifiedFileNames, beforeRevision, afterRevision, isTruncated);
+        return null;
+    }
+
+    /**
+     * This method is used to get the status of a web hook event queued by the tenant.
+     *
+     * @param eventId Id of the web hook event.
+     * @return Status of the web hook event, or null if the event is unknown or no longer tracked.
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default WebHookEventStatus getWebHookEventStatus(String eventId) throws RemoteFetchCoreException {
+
+        return null;
+    }
+
 }
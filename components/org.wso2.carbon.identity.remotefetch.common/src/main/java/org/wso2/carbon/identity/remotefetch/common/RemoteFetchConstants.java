@@ -39,6 +39,19 @@ public class RemoteFetchConstants {
     public static final String MAXIMUM_ITEMS_PRE_PAGE_PROPERTY = "MaximumItemsPerPage";
     public static final String DEFAULT_ITEMS_PRE_PAGE_PROPERTY = "DefaultItemsPerPage";
 
+    // Execution constants.
+    public static final int DEFAULT_WORKER_POOL_SIZE = 4;
+    public static final int DEFAULT_MAX_CONCURRENT_FETCHES_PER_HOST = 2;
+    public static final String EXECUTION_MODE_VIRTUAL = "virtual";
+    public static final int DEFAULT_IMMEDIATE_WORKER_POOL_SIZE = 2;
+    public static final int DEFAULT_IMMEDIATE_QUEUE_LIMIT = 100;
+    public static final int DEFAULT_SYNC_TIME_FLUSH_INTERVAL = 30;
+    public static final int DEFAULT_WEB_HOOK_QUEUE_LIMIT = 1000;
+    public static final int DEFAULT_WEB_HOOK_WORKER_POOL_SIZE = 2;
+    public static final int DEFAULT_DEBOUNCE_WINDOW = 0;
+    public static final String DEFAULT_ENVIRONMENT_FILE = "/etc/environment";
+    public static final String TEMPLATE_VARIABLES_PROPERTY = "RemoteFetch.TemplateVariables";
+
     public static final String IDENTIFIER_GIT_REPOSITORY_MANAGER_COMPONENT = "GIT";
     public static final String IDENTIFIER_POLLING_ACTION_LISTENER_COMPONENT = "POLLING";
     public static final String IDENTIFIER_WEB_HOOK_ACTION_LISTENER_COMPONENT = "WEB_HOOK";
@@ -49,6 +62,8 @@ public class RemoteFetchConstants {
     public static final String ID_UI_FIELD_URI = "uri";
     public static final String ID_UI_FIELD_BRANCH = "branch";
     public static final String ID_UI_FIELD_DIRECTORY = "directory";
+    // Optional action listener attribute, seconds triggers of a configuration are collapsed into one run.
+    public static final String ATTRIBUTE_DEBOUNCE_WINDOW = "debounceWindow";
 
     /**
      * Grouping of constants related to database table names.
@@ -92,6 +107,7 @@ public class RemoteFetchConstants {
         ERROR_CODE_CONNECTING_DATABASE("RFE-65006", "Error while connecting database. %s"),
         ERROR_CODE_RETRIEVE_RF_CONFIGS("RFE-65007", "Error while retrieving " +
                 "Remote Fetch Configurations."),
+        ERROR_CODE_WEB_HOOK_QUEUE_FULL("RFE-65008", "Web hook queue is full, unable to accept web hook for: %s."),
 
         ERROR_CODE_RF_CONFIG_ALREADY_EXISTS("RFE-60001",
                 "Remote Fetch Configuration with the name: %s already exists."),
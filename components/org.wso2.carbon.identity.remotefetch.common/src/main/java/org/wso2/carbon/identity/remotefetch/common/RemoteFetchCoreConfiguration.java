@@ -27,6 +27,19 @@ public class RemoteFetchCoreConfiguration {
 
     private File workingDirectory;
     private boolean isEnableCore;
+    private boolean isBareRepository;
+    private boolean isSharedRepository;
+    private int workerPoolSize = RemoteFetchConstants.DEFAULT_WORKER_POOL_SIZE;
+    private int maxConcurrentFetchesPerHost = RemoteFetchConstants.DEFAULT_MAX_CONCURRENT_FETCHES_PER_HOST;
+    private boolean isVirtualThreadExecution;
+    private int immediateWorkerPoolSize = RemoteFetchConstants.DEFAULT_IMMEDIATE_WORKER_POOL_SIZE;
+    private int immediateQueueLimit = RemoteFetchConstants.DEFAULT_IMMEDIATE_QUEUE_LIMIT;
+    private int syncTimeFlushInterval = RemoteFetchConstants.DEFAULT_SYNC_TIME_FLUSH_INTERVAL;
+    private int webHookQueueLimit = RemoteFetchConstants.DEFAULT_WEB_HOOK_QUEUE_LIMIT;
+    private int webHookWorkerPoolSize = RemoteFetchConstants.DEFAULT_WEB_HOOK_WORKER_POOL_SIZE;
+    private int debounceWindow = RemoteFetchConstants.DEFAULT_DEBOUNCE_WINDOW;
+    private String environmentFile = RemoteFetchConstants.DEFAULT_ENVIRONMENT_FILE;
+    private boolean isSystemEnvironmentIncluded;
 
     /**
      * Default Constructor.
@@ -79,4 +92,265 @@ public class RemoteFetchCoreConfiguration {
 
         this.isEnableCore = isEnableCore;
     }
+
+    /**
+     * Is BareRepository.
+     *
+     * @return isBareRepository
+     */
+    public boolean isBareRepository() {
+
+        return isBareRepository;
+    }
+
+    /**
+     * Set BareRepository.
+     *
+     * @param isBareRepository clone repositories without a working tree.
+     */
+    public void setBareRepository(boolean isBareRepository) {
+
+        this.isBareRepository = isBareRepository;
+    }
+
+    /**
+     * Is SharedRepository.
+     *
+     * @return isSharedRepository
+     */
+    public boolean isSharedRepository() {
+
+        return isSharedRepository;
+    }
+
+    /**
+     * Set SharedRepository.
+     *
+     * @param isSharedRepository share a single local repository across configurations of the same remote.
+     */
+    public void setSharedRepository(boolean isSharedRepository) {
+
+        this.isSharedRepository = isSharedRepository;
+    }
+
+    /**
+     * Get WorkerPoolSize.
+     *
+     * @return workerPoolSize
+     */
+    public int getWorkerPoolSize() {
+
+        return workerPoolSize;
+    }
+
+    /**
+     * Set WorkerPoolSize.
+     *
+     * @param workerPoolSize number of configurations executed concurrently.
+     */
+    public void setWorkerPoolSize(int workerPoolSize) {
+
+        this.workerPoolSize = workerPoolSize;
+    }
+
+    /**
+     * Get MaxConcurrentFetchesPerHost.
+     *
+     * @return maxConcurrentFetchesPerHost
+     */
+    public int getMaxConcurrentFetchesPerHost() {
+
+        return maxConcurrentFetchesPerHost;
+    }
+
+    /**
+     * Set MaxConcurrentFetchesPerHost.
+     *
+     * @param maxConcurrentFetchesPerHost number of configurations executed concurrently against a single Git host.
+     */
+    public void setMaxConcurrentFetchesPerHost(int maxConcurrentFetchesPerHost) {
+
+        this.maxConcurrentFetchesPerHost = maxConcurrentFetchesPerHost;
+    }
+
+    /**
+     * Is VirtualThreadExecution.
+     *
+     * @return isVirtualThreadExecution
+     */
+    public boolean isVirtualThreadExecution() {
+
+        return isVirtualThreadExecution;
+    }
+
+    /**
+     * Set VirtualThreadExecution.
+     *
+     * @param isVirtualThreadExecution run each configuration on a virtual thread when the runtime supports it.
+     */
+    public void setVirtualThreadExecution(boolean isVirtualThreadExecution) {
+
+        this.isVirtualThreadExecution = isVirtualThreadExecution;
+    }
+
+    /**
+     * Get ImmediateWorkerPoolSize.
+     *
+     * @return immediateWorkerPoolSize
+     */
+    public int getImmediateWorkerPoolSize() {
+
+        return immediateWorkerPoolSize;
+    }
+
+    /**
+     * Set ImmediateWorkerPoolSize.
+     *
+     * @param immediateWorkerPoolSize number of immediate and web hook executions running concurrently.
+     */
+    public void setImmediateWorkerPoolSize(int immediateWorkerPoolSize) {
+
+        this.immediateWorkerPoolSize = immediateWorkerPoolSize;
+    }
+
+    /**
+     * Get ImmediateQueueLimit.
+     *
+     * @return immediateQueueLimit
+     */
+    public int getImmediateQueueLimit() {
+
+        return immediateQueueLimit;
+    }
+
+    /**
+     * Set ImmediateQueueLimit.
+     *
+     * @param immediateQueueLimit number of immediate and web hook executions waiting or running before rejecting.
+     */
+    public void setImmediateQueueLimit(int immediateQueueLimit) {
+
+        this.immediateQueueLimit = immediateQueueLimit;
+    }
+
+    /**
+     * Get SyncTimeFlushInterval.
+     *
+     * @return syncTimeFlushInterval
+     */
+    public int getSyncTimeFlushInterval() {
+
+        return syncTimeFlushInterval;
+    }
+
+    /**
+     * Set SyncTimeFlushInterval.
+     *
+     * @param syncTimeFlushInterval seconds between writes of buffered last synchronized dates.
+     */
+    public void setSyncTimeFlushInterval(int syncTimeFlushInterval) {
+
+        this.syncTimeFlushInterval = syncTimeFlushInterval;
+    }
+
+    /**
+     * Get WebHookQueueLimit.
+     *
+     * @return webHookQueueLimit
+     */
+    public int getWebHookQueueLimit() {
+
+        return webHookQueueLimit;
+    }
+
+    /**
+     * Set WebHookQueueLimit.
+     *
+     * @param webHookQueueLimit number of web hooks of distinct repositories and branches waiting before rejecting.
+     */
+    public void setWebHookQueueLimit(int webHookQueueLimit) {
+
+        this.webHookQueueLimit = webHookQueueLimit;
+    }
+
+    /**
+     * Get WebHookWorkerPoolSize.
+     *
+     * @return webHookWorkerPoolSize
+     */
+    public int getWebHookWorkerPoolSize() {
+
+        return webHookWorkerPoolSize;
+    }
+
+    /**
+     * Set WebHookWorkerPoolSize.
+     *
+     * @param webHookWorkerPoolSize number of threads processing queued web hooks.
+     */
+    public void setWebHookWorkerPoolSize(int webHookWorkerPoolSize) {
+
+        this.webHookWorkerPoolSize = webHookWorkerPoolSize;
+    }
+
+    /**
+     * Get DebounceWindow.
+     *
+     * @return debounceWindow
+     */
+    public int getDebounceWindow() {
+
+        return debounceWindow;
+    }
+
+    /**
+     * Set DebounceWindow.
+     *
+     * @param debounceWindow default seconds immediate and web hook triggers of a configuration are collapsed into
+     *                       one run, 0 to run each trigger.
+     */
+    public void setDebounceWindow(int debounceWindow) {
+
+        this.debounceWindow = debounceWindow;
+    }
+
+    /**
+     * Get EnvironmentFile.
+     *
+     * @return environmentFile
+     */
+    public String getEnvironmentFile() {
+
+        return environmentFile;
+    }
+
+    /**
+     * Set EnvironmentFile.
+     *
+     * @param environmentFile file of environment variables substituted into templates
+     */
+    public void setEnvironmentFile(String environmentFile) {
+
+        this.environmentFile = environmentFile;
+    }
+
+    /**
+     * Is SystemEnvironmentIncluded.
+     *
+     * @return isSystemEnvironmentIncluded
+     */
+    public boolean isSystemEnvironmentIncluded() {
+
+        return isSystemEnvironmentIncluded;
+    }
+
+    /**
+     * Set SystemEnvironmentIncluded.
+     *
+     * @param isSystemEnvironmentIncluded substitute environment variables of the process into templates.
+     */
+    public void setSystemEnvironmentIncluded(boolean isSystemEnvironmentIncluded) {
+
+        this.isSystemEnvironmentIncluded = isSystemEnvironmentIncluded;
+    }
 }
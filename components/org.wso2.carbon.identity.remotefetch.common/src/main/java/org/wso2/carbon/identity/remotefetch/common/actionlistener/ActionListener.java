@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.identity.remotefetch.common.actionlistener;
 
+import java.util.List;
+
 /**
  * Interface to define an ActionListener which triggers
  * the deployment of a configuration fetched from repository.
@@ -28,4 +30,34 @@ public interface ActionListener {
      * Contains logic to listen for updates.
      */
     void execute();
+
+    /**
+     * Contains logic to run an execution requested by a trigger. Unlike {@link #execute()}, it runs regardless of
+     * any schedule the listener keeps for its periodic executions.
+     */
+    default void executeNow() {
+
+        execute();
+    }
+
+    /**
+     * Contains logic to deploy only the files modified by a push, between the given base and head revisions.
+     * Listeners not supporting it, or unable to trust the given files, run a complete execution.
+     *
+     * @param baseRevision      Revision the push was made on
+     * @param headRevision      Revision after the push
+     * @param modifiedFileNames Paths of files added, modified or removed by the push, relative to the repository
+     */
+    default void executeForFiles(String baseRevision, String headRevision, List<String> modifiedFileNames) {
+
+        execute();
+    }
+
+    /**
+     * Release the resources held by the listener, such as its local repository, once it is replaced or removed.
+     * Executions in progress complete first, executions requested afterwards are skipped.
+     */
+    default void close() {
+
+    }
 }
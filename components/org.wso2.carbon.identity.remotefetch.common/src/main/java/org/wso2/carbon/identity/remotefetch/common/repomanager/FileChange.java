@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.common.repomanager;
+
+import java.io.File;
+
+/**
+ * Holds a file changed in the repository between two revisions.
+ * Renamed files are represented as a deletion of the old path and an addition of the new path.
+ */
+public class FileChange {
+
+    private File path;
+    private ChangeType changeType;
+
+    /**
+     * Default constructor.
+     *
+     * @param path       File path
+     * @param changeType Type of the change
+     */
+    public FileChange(File path, ChangeType changeType) {
+
+        this.path = path;
+        this.changeType = changeType;
+    }
+
+    public File getPath() {
+
+        return path;
+    }
+
+    public ChangeType getChangeType() {
+
+        return changeType;
+    }
+
+    /**
+     * Enum for type of the change.
+     */
+    public enum ChangeType {
+
+        ADD, MODIFY, DELETE
+    }
+}
@@ -64,6 +64,33 @@ public interface RepositoryManager {
      */
     String getRevisionHash(File location) throws RemoteFetchCoreException;
 
+    /**
+     * Gets an unique identifier for file content, which only changes when the content of the file changes.
+     * Repository managers that can not identify content falls back to the revision hash.
+     *
+     * @param location Configuration File location
+     * @return Content Hash
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default String getContentHash(File location) throws RemoteFetchCoreException {
+
+        return getRevisionHash(location);
+    }
+
+    /**
+     * Gets the content hash the file had at the given revision, as returned by getContentHash for that revision.
+     * Used to compare content against revision hashes stored before content hashes were.
+     *
+     * @param location Configuration File location
+     * @param revision Revision hash
+     * @return Content Hash, or null if the revision or the file at the revision is unknown
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default String getContentHash(File location, String revision) throws RemoteFetchCoreException {
+
+        return null;
+    }
+
     /**
      * List files from local repository.
      *
@@ -71,4 +98,59 @@ public interface RepositoryManager {
      * @throws RemoteFetchCoreException RemoteFetchCoreException
      */
     List<File> listFiles() throws RemoteFetchCoreException;
+
+    /**
+     * Gets an unique identifier for the current state of the local repository.
+     *
+     * @return Current revision, or null if the repository manager doesn't track revisions
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default String getRevision() throws RemoteFetchCoreException {
+
+        return null;
+    }
+
+    /**
+     * Gets a key identifying the source the revisions refer to, such as the repository, branch and directory.
+     * A revision synchronized under a different key is not used to list changed files.
+     *
+     * @return Source key, or null if the repository manager doesn't track revisions
+     */
+    default String getSourceKey() {
+
+        return null;
+    }
+
+    /**
+     * List files changed since the given revision up to the current revision.
+     *
+     * @param fromRevision Revision to compare the current revision against
+     * @return List of file changes, or null if changes can not be resolved and all files should be reconciled
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default List<FileChange> listChangedFiles(String fromRevision) throws RemoteFetchCoreException {
+
+        return null;
+    }
+
+    /**
+     * Resolve the changes of the given paths at the current revision. Paths outside the configured directory are
+     * ignored, paths not found at the current revision are deleted files.
+     *
+     * @param paths Paths relative to the repository
+     * @return List of file changes, or null if changes can not be resolved and all files should be reconciled
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    default List<FileChange> resolveFileChanges(List<String> paths) throws RemoteFetchCoreException {
+
+        return null;
+    }
+
+    /**
+     * Release the local repository opened by the repository manager. The repository manager is not used after it
+     * is closed.
+     */
+    default void close() {
+
+    }
 }
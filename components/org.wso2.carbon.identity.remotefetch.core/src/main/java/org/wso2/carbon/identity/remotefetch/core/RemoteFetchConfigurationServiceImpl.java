@@ -18,26 +18,36 @@
 
 package org.wso2.carbon.identity.remotefetch.core;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.remotefetch.common.BasicRemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.BasicRemoteFetchConfigurationPage;
 import org.wso2.carbon.identity.remotefetch.common.DeploymentRevision;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfigurationService;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
 import org.wso2.carbon.identity.remotefetch.common.ValidationReport;
+import org.wso2.carbon.identity.remotefetch.common.WebHookEventStatus;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 import org.wso2.carbon.identity.remotefetch.core.dao.RemoteFetchConfigurationDAO;
 import org.wso2.carbon.identity.remotefetch.core.dao.impl.DeploymentRevisionDAOImpl;
 import org.wso2.carbon.identity.remotefetch.core.dao.impl.RemoteFetchConfigurationDAOImpl;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchSyncTimeBuffer;
 import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchTaskExecutor;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchWebHookEvent;
 import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.WebHookHandler;
+import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.WebHookRoutingIndex;
 import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
 import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils;
 import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationValidator;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 import java.util.OptionalInt;
 
@@ -47,10 +57,14 @@ import java.util.OptionalInt;
 public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigurationService {
 
     private static final Log log = LogFactory.getLog(RemoteFetchConfigurationServiceImpl.class);
+    private static final char PAGE_TOKEN_SEPARATOR = ':';
+    private static final char PAGE_TOKEN_UNNAMED = '-';
+    private static final char PAGE_TOKEN_NAMED = '=';
 
     private RemoteFetchConfigurationDAO fetchConfigurationDAO = new RemoteFetchConfigurationDAOImpl();
     private DeploymentRevisionDAOImpl deploymentRevisionDAO = new DeploymentRevisionDAOImpl();
     private RemoteFetchTaskExecutor remoteFetchTaskExecutor;
+    private WebHookRoutingIndex webHookRoutingIndex = new WebHookRoutingIndex();
 
     private int defaultItemsPerPage;
     private int maximumItemsPerPage;
@@ -87,6 +101,7 @@ public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigura
             }
             fetchConfiguration.setRemoteFetchConfigurationId(remoteConfigurationId);
             this.fetchConfigurationDAO.createRemoteFetchConfiguration(fetchConfiguration);
+            this.webHookRoutingIndex.invalidate(fetchConfiguration.getTenantId());
             validationReport.setId(remoteConfigurationId);
         } else {
             throw RemoteFetchConfigurationUtils.handleClientException(RemoteFetchConstants.ErrorMessage.
@@ -116,6 +131,7 @@ public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigura
 
         if (validationReport.getValidationStatus() == ValidationReport.ValidationStatus.PASSED) {
             this.fetchConfigurationDAO.updateRemoteFetchConfiguration(fetchConfiguration);
+            this.webHookRoutingIndex.invalidate(fetchConfiguration.getTenantId());
             validationReport.setId(fetchConfiguration.getRemoteFetchConfigurationId());
         } else {
             throw RemoteFetchConfigurationUtils.handleClientException(RemoteFetchConstants.ErrorMessage.
@@ -161,6 +177,45 @@ public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigura
                         validateOffset(offset));
     }
 
+    /**
+     * This method is used to call by clients to get a page of BasicRemoteFetchConfiguration by tenantID.
+     * Configurations without a name come first ordered by id, followed by the others ordered by name and id. Each
+     * page is continued from the token returned with the previous page.
+     *
+     * @param limit     limit
+     * @param pageToken Token returned with the previous page, null for the first page
+     * @return Page of BasicRemoteFetchConfiguration
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public BasicRemoteFetchConfigurationPage getBasicRemoteFetchConfigurationPage(OptionalInt limit,
+                                                                                  String pageToken)
+            throws RemoteFetchCoreException {
+
+        int pageSize = validateLimit(limit);
+        String afterName = null;
+        String afterId = null;
+        if (StringUtils.isNotEmpty(pageToken)) {
+            String[] position = decodePageToken(pageToken);
+            afterId = position[0];
+            afterName = position[1];
+        }
+        if (pageSize == 0) {
+            return new BasicRemoteFetchConfigurationPage(new ArrayList<>(), null);
+        }
+
+        int tenantId = IdentityTenantUtil.getTenantId(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+        // Read one extra row to know whether a next page exists.
+        List<BasicRemoteFetchConfiguration> basicRemoteFetchConfigurations = this.fetchConfigurationDAO
+                .getBasicRemoteFetchConfigurationPageByTenant(tenantId, pageSize + 1, afterName, afterId);
+        String nextPageToken = null;
+        if (basicRemoteFetchConfigurations.size() > pageSize) {
+            basicRemoteFetchConfigurations = new ArrayList<>(basicRemoteFetchConfigurations.subList(0, pageSize));
+            nextPageToken = encodePageToken(basicRemoteFetchConfigurations.get(pageSize - 1));
+        }
+        return new BasicRemoteFetchConfigurationPage(basicRemoteFetchConfigurations, nextPageToken);
+    }
+
     /**
      * This method is used to call by internal auto pull method to get list of enabled BasicRemoteFetchConfiguration.
      *
@@ -188,6 +243,7 @@ public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigura
 
         int tenantId = IdentityTenantUtil.getTenantId(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
         this.fetchConfigurationDAO.deleteRemoteFetchConfiguration(fetchConfigurationId, tenantId);
+        this.webHookRoutingIndex.invalidate(tenantId);
     }
 
     /**
@@ -219,7 +275,20 @@ public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigura
     public List<DeploymentRevision> getDeploymentRevisions(String fetchConfigurationId)
             throws RemoteFetchCoreException {
 
-        return this.deploymentRevisionDAO.getDeploymentRevisionsByConfigurationId(fetchConfigurationId);
+        List<DeploymentRevision> deploymentRevisions =
+                this.deploymentRevisionDAO.getDeploymentRevisionsByConfigurationId(fetchConfigurationId);
+        // Overlay the last synchronized date not yet written by the write-behind buffer.
+        RemoteFetchSyncTimeBuffer syncTimeBuffer = RemoteFetchServiceComponentHolder.getInstance().getSyncTimeBuffer();
+        Date pendingSyncTime = syncTimeBuffer == null ? null : syncTimeBuffer.getPendingSyncTime(fetchConfigurationId);
+        if (pendingSyncTime != null) {
+            for (DeploymentRevision deploymentRevision : deploymentRevisions) {
+                if (deploymentRevision.getLastSynchronizedDate() == null ||
+                        deploymentRevision.getLastSynchronizedDate().before(pendingSyncTime)) {
+                    deploymentRevision.setLastSynchronizedDate(pendingSyncTime);
+                }
+            }
+        }
+        return deploymentRevisions;
     }
 
     /**
@@ -235,10 +304,85 @@ public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigura
             throws RemoteFetchCoreException {
 
         WebHookHandler webHookHandler =
-                new WebHookHandler(url, branch, modifiedFileNames, this.remoteFetchTaskExecutor);
+                new WebHookHandler(url, branch, modifiedFileNames, this.remoteFetchTaskExecutor,
+                        this.webHookRoutingIndex);
         webHookHandler.handleWebHook();
     }
 
+    /**
+     * This method is used to handle web hook by calling web hook handler, deploying only the modified files when
+     * the push was made on the revision last synchronized.
+     *
+     * @param url               url of remote repository.
+     * @param branch            branch of remote repository.
+     * @param modifiedFileNames Files been modified by given push.
+     * @param beforeRevision    Revision of the branch before the push.
+     * @param afterRevision     Revision of the branch after the push.
+     * @param isTruncated       Whether the modified files listed by the payload are truncated.
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public void handleWebHook(String url, String branch, List<String> modifiedFileNames, String beforeRevision,
+                              String afterRevision, boolean isTruncated) throws RemoteFetchCoreException {
+
+        WebHookHandler webHookHandler = new WebHookHandler(url, branch, modifiedFileNames, beforeRevision,
+                afterRevision, isTruncated, this.remoteFetchTaskExecutor, this.webHookRoutingIndex);
+        webHookHandler.handleWebHook();
+    }
+
+    /**
+     * This method is used to queue a web hook to be handled asynchronously by the web hook queue workers.
+     *
+     * @param url               url of remote repository.
+     * @param branch            branch of remote repository.
+     * @param modifiedFileNames Files been modified by given push.
+     * @param beforeRevision    Revision of the branch before the push.
+     * @param afterRevision     Revision of the branch after the push.
+     * @param isTruncated       Whether the modified files listed by the payload are truncated.
+     * @return Id of the web hook event.
+     * @throws RemoteFetchCoreException RemoteFetchCoreException if the web hook queue is full.
+     */
+    @Override
+    public String submitWebHook(String url, String branch, List<String> modifiedFileNames, String beforeRevision,
+                                String afterRevision, boolean isTruncated) throws RemoteFetchCoreException {
+
+        int tenantId = IdentityTenantUtil.getTenantId(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+        String eventId = this.remoteFetchTaskExecutor.submitWebHook(new RemoteFetchWebHookEvent(tenantId, url, branch,
+                modifiedFileNames, beforeRevision, afterRevision, isTruncated));
+        if (log.isDebugEnabled()) {
+            log.debug("Web hook event " + eventId + " is queued for tenant " + tenantId);
+        }
+        return eventId;
+    }
+
+    /**
+     * This method is used to get the status of a web hook event queued by the tenant.
+     *
+     * @param eventId Id of the web hook event.
+     * @return Status of the web hook event, or null if the event is unknown or no longer tracked.
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public WebHookEventStatus getWebHookEventStatus(String eventId) throws RemoteFetchCoreException {
+
+        int tenantId = IdentityTenantUtil.getTenantId(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+        return this.remoteFetchTaskExecutor.getWebHookEventStatus(eventId, tenantId);
+    }
+
+    /**
+     * This method is used by the web hook queue workers to handle a queued web hook.
+     *
+     * @param webHookEvent RemoteFetchWebHookEvent
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    public void processWebHookEvent(RemoteFetchWebHookEvent webHookEvent) throws RemoteFetchCoreException {
+
+        WebHookHandler webHookHandler = new WebHookHandler(webHookEvent.getUrl(), webHookEvent.getBranch(),
+                webHookEvent.getModifiedFileNames(), webHookEvent.getBeforeRevision(), webHookEvent.getAfterRevision(),
+                webHookEvent.isTruncated(), this.remoteFetchTaskExecutor, this.webHookRoutingIndex);
+        webHookHandler.handleWebHook(webHookEvent.getTenantId());
+    }
+
     /**
      * Validate limit.
      * Check optionalLimit has a value, or else set to default value.
@@ -271,6 +415,52 @@ public class RemoteFetchConfigurationServiceImpl implements RemoteFetchConfigura
         return limit;
     }
 
+    /**
+     * Encode the position after the given configuration as an opaque page token. The name is prefixed with a marker
+     * telling an unnamed configuration apart from a named one.
+     *
+     * @param lastConfiguration Last configuration of the page
+     * @return Page token
+     */
+    private String encodePageToken(BasicRemoteFetchConfiguration lastConfiguration) {
+
+        String name = lastConfiguration.getRemoteFetchName();
+        String position = lastConfiguration.getId() + PAGE_TOKEN_SEPARATOR +
+                (name == null ? String.valueOf(PAGE_TOKEN_UNNAMED) : PAGE_TOKEN_NAMED + name);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a page token into the id and name of the last configuration of the previous page.
+     *
+     * @param pageToken Page token
+     * @return Array of id and name, where the name is null if the configuration has no name
+     * @throws RemoteFetchCoreException If the token is malformed
+     */
+    private String[] decodePageToken(String pageToken) throws RemoteFetchCoreException {
+
+        String position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            position = null;
+        }
+        int separatorIndex = position != null ? position.indexOf(PAGE_TOKEN_SEPARATOR) : -1;
+        if (separatorIndex > 0) {
+            String id = position.substring(0, separatorIndex);
+            String name = position.substring(separatorIndex + 1);
+            if (name.equals(String.valueOf(PAGE_TOKEN_UNNAMED))) {
+                return new String[]{id, null};
+            }
+            if (!name.isEmpty() && name.charAt(0) == PAGE_TOKEN_NAMED) {
+                return new String[]{id, name.substring(1)};
+            }
+        }
+        String message = "Invalid page token: " + pageToken;
+        throw RemoteFetchConfigurationUtils.handleClientException(RemoteFetchConstants.ErrorMessage.
+                ERROR_CODE_RF_CONFIG_GET_REQUEST_INVALID, message);
+    }
+
     /**
      * Validate offset.
      *
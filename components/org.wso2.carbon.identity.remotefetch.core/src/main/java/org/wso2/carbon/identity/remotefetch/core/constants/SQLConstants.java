@@ -46,8 +46,38 @@ public class SQLConstants {
             " FILE_HASH = ?, DEPLOYED_DATE = ?, DEPLOYMENT_STATUS = ?, ITEM_NAME = ?, DEPLOY_ERR_LOG = ?," +
             " LAST_SYNC_TIME = ? WHERE ID = ?";
 
+    public static final String UPDATE_REVISIONS_LAST_SYNC_TIME = "UPDATE IDN_REMOTE_FETCH_REVISIONS SET" +
+            " LAST_SYNC_TIME = ? WHERE CONFIG_ID = ?";
+
     public static final String DELETE_REVISION = "DELETE FROM IDN_REMOTE_FETCH_REVISIONS WHERE ID = ?";
 
+    public static final String GET_REVISION_CONFIG_ID = "SELECT CONFIG_ID FROM IDN_REMOTE_FETCH_REVISIONS" +
+            " WHERE ID = ?";
+
+    // Applies the change of status of a single revision to the deployment counters of its configuration. The previous
+    // status of the revision is read by its primary key, so the statement runs before the revision is written.
+    public static final String APPLY_CONFIG_DEPLOYMENT_COUNT_DELTA = String.format("UPDATE IDN_REMOTE_FETCH_CONFIG" +
+                    " SET DEPLOYED_COUNT = DEPLOYED_COUNT + ? - (SELECT COUNT(ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
+                    " WHERE ID = ? AND DEPLOYMENT_STATUS = '%s')," +
+                    " FAILED_COUNT = FAILED_COUNT + ? - (SELECT COUNT(ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
+                    " WHERE ID = ? AND DEPLOYMENT_STATUS = '%s') WHERE ID = ?",
+            SQLConstants.REVISION_DEPLOYMENT_OK, SQLConstants.REVISION_DEPLOYMENT_FAIL);
+
+    public static final String UPDATE_CONFIG_LAST_DEPLOYED_DATE = "UPDATE IDN_REMOTE_FETCH_CONFIG SET" +
+            " LAST_DEPLOYED_DATE = ? WHERE ID = ? AND (LAST_DEPLOYED_DATE IS NULL OR LAST_DEPLOYED_DATE < ?)";
+
+    // Computes the deployment summary of configurations with revisions but no summary, such as rows created before
+    // the summary columns were added.
+    public static final String BACKFILL_CONFIG_DEPLOYMENT_SUMMARY = String.format("UPDATE IDN_REMOTE_FETCH_CONFIG SET" +
+                    " DEPLOYED_COUNT = (SELECT COUNT(ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
+                    " WHERE CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND DEPLOYMENT_STATUS = '%s')," +
+                    " FAILED_COUNT = (SELECT COUNT(ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
+                    " WHERE CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND DEPLOYMENT_STATUS = '%s')," +
+                    " LAST_DEPLOYED_DATE = (SELECT MAX(DEPLOYED_DATE) FROM IDN_REMOTE_FETCH_REVISIONS" +
+                    " WHERE CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID) WHERE LAST_DEPLOYED_DATE IS NULL AND EXISTS" +
+                    " (SELECT ID FROM IDN_REMOTE_FETCH_REVISIONS WHERE CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID)",
+            SQLConstants.REVISION_DEPLOYMENT_OK, SQLConstants.REVISION_DEPLOYMENT_FAIL);
+
     public static final String GET_REVISIONS_BY_CONFIG = "SELECT ID, CONFIG_ID, FILE_PATH, FILE_HASH, DEPLOYED_DATE," +
             " DEPLOYMENT_STATUS, ITEM_NAME,DEPLOY_ERR_LOG, LAST_SYNC_TIME" +
             " FROM IDN_REMOTE_FETCH_REVISIONS WHERE CONFIG_ID = ?";
@@ -56,10 +86,49 @@ public class SQLConstants {
             " DEPLOYMENT_STATUS, ITEM_NAME,DEPLOY_ERR_LOG, LAST_SYNC_TIME FROM IDN_REMOTE_FETCH_REVISIONS WHERE " +
             "CONFIG_ID = ? AND ITEM_NAME = ?";
 
+    public static final String GET_LAST_SYNCED_REVISION = "SELECT LAST_SYNCED_REVISION, SOURCE_KEY FROM" +
+            " IDN_REMOTE_FETCH_SYNC_STATE WHERE CONFIG_ID = ?";
+
+    public static final String UPSERT_LAST_SYNCED_REVISION_H2 = "MERGE INTO IDN_REMOTE_FETCH_SYNC_STATE" +
+            " (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY) KEY (CONFIG_ID) VALUES (?,?,?)";
+
+    public static final String UPSERT_LAST_SYNCED_REVISION_MYSQL = "INSERT INTO IDN_REMOTE_FETCH_SYNC_STATE" +
+            " (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY) VALUES (?,?,?)" +
+            " ON DUPLICATE KEY UPDATE LAST_SYNCED_REVISION = VALUES(LAST_SYNCED_REVISION)," +
+            " SOURCE_KEY = VALUES(SOURCE_KEY)";
+
+    public static final String UPSERT_LAST_SYNCED_REVISION_MSSQL = "MERGE INTO IDN_REMOTE_FETCH_SYNC_STATE AS T" +
+            " USING (VALUES (?,?,?)) AS S (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY)" +
+            " ON T.CONFIG_ID = S.CONFIG_ID" +
+            " WHEN MATCHED THEN UPDATE SET LAST_SYNCED_REVISION = S.LAST_SYNCED_REVISION, SOURCE_KEY = S.SOURCE_KEY" +
+            " WHEN NOT MATCHED THEN INSERT (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY)" +
+            " VALUES (S.CONFIG_ID, S.LAST_SYNCED_REVISION, S.SOURCE_KEY);";
+
+    public static final String UPSERT_LAST_SYNCED_REVISION_POSTGRESQL = "INSERT INTO IDN_REMOTE_FETCH_SYNC_STATE" +
+            " (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY) VALUES (?,?,?)" +
+            " ON CONFLICT (CONFIG_ID) DO UPDATE SET LAST_SYNCED_REVISION = EXCLUDED.LAST_SYNCED_REVISION," +
+            " SOURCE_KEY = EXCLUDED.SOURCE_KEY";
+
+    public static final String UPSERT_LAST_SYNCED_REVISION_DB2 = "MERGE INTO IDN_REMOTE_FETCH_SYNC_STATE T" +
+            " USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255))))" +
+            " AS S (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY) ON T.CONFIG_ID = S.CONFIG_ID" +
+            " WHEN MATCHED THEN UPDATE SET T.LAST_SYNCED_REVISION = S.LAST_SYNCED_REVISION," +
+            " T.SOURCE_KEY = S.SOURCE_KEY" +
+            " WHEN NOT MATCHED THEN INSERT (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY)" +
+            " VALUES (S.CONFIG_ID, S.LAST_SYNCED_REVISION, S.SOURCE_KEY)";
+
+    public static final String UPSERT_LAST_SYNCED_REVISION_ORACLE = "MERGE INTO IDN_REMOTE_FETCH_SYNC_STATE T" +
+            " USING (SELECT ? AS CONFIG_ID, ? AS LAST_SYNCED_REVISION, ? AS SOURCE_KEY FROM DUAL) S" +
+            " ON (T.CONFIG_ID = S.CONFIG_ID)" +
+            " WHEN MATCHED THEN UPDATE SET T.LAST_SYNCED_REVISION = S.LAST_SYNCED_REVISION," +
+            " T.SOURCE_KEY = S.SOURCE_KEY" +
+            " WHEN NOT MATCHED THEN INSERT (CONFIG_ID, LAST_SYNCED_REVISION, SOURCE_KEY)" +
+            " VALUES (S.CONFIG_ID, S.LAST_SYNCED_REVISION, S.SOURCE_KEY)";
+
     // Configuration Management SQL
     public static final String CREATE_CONFIG = "INSERT INTO IDN_REMOTE_FETCH_CONFIG (ID, TENANT_ID, IS_ENABLED, " +
             " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, ATTRIBUTES_JSON," +
-            " REMOTE_FETCH_NAME, REMOTE_RESOURCE_URI) VALUES (?,?,?,?,?,?,?,?,?)";
+            " REMOTE_FETCH_NAME, REMOTE_RESOURCE_URI, CONFIG_VERSION) VALUES (?,?,?,?,?,?,?,?,?,?)";
 
     public static final String LIST_CONFIGS = "SELECT ID,TENANT_ID, IS_ENABLED," +
             " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME, ATTRIBUTES_JSON," +
@@ -67,34 +136,29 @@ public class SQLConstants {
 
     public static final String LIST_ENABLED_CONFIGS = String.format("SELECT ID, TENANT_ID, IS_ENABLED," +
             " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE,REMOTE_FETCH_NAME,REMOTE_RESOURCE_URI, " +
-            " ATTRIBUTES_JSON FROM IDN_REMOTE_FETCH_CONFIG WHERE IS_ENABLED = '1' AND ACTION_LISTENER_TYPE = '%s'",
+            " ATTRIBUTES_JSON, CONFIG_VERSION FROM IDN_REMOTE_FETCH_CONFIG WHERE IS_ENABLED = '1'" +
+            " AND ACTION_LISTENER_TYPE = '%s'",
             RemoteFetchConstants.IDENTIFIER_POLLING_ACTION_LISTENER_COMPONENT);
 
+    public static final String LIST_CONFIGS_CHANGED_SINCE = "SELECT ID, TENANT_ID, IS_ENABLED," +
+            " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE,REMOTE_FETCH_NAME,REMOTE_RESOURCE_URI, " +
+            " ATTRIBUTES_JSON, CONFIG_VERSION FROM IDN_REMOTE_FETCH_CONFIG WHERE CONFIG_VERSION > ?";
+
     public static final String LIST_CONFIGS_BY_TENANT = "SELECT ID, TENANT_ID, IS_ENABLED," +
             " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE,REMOTE_FETCH_NAME,REMOTE_RESOURCE_URI, " +
-            " ATTRIBUTES_JSON FROM IDN_REMOTE_FETCH_CONFIG WHERE TENANT_ID = ?";
+            " ATTRIBUTES_JSON, CONFIG_VERSION FROM IDN_REMOTE_FETCH_CONFIG WHERE TENANT_ID = ?";
 
     public static final String LIST_WEB_HOOK_FETCH_CONFIGS_BY_TENANT = String.format("SELECT ID, TENANT_ID," +
                     " IS_ENABLED, REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE,REMOTE_FETCH_NAME," +
-                    "REMOTE_RESOURCE_URI, ATTRIBUTES_JSON FROM IDN_REMOTE_FETCH_CONFIG WHERE TENANT_ID = ? " +
+                    "REMOTE_RESOURCE_URI, ATTRIBUTES_JSON, CONFIG_VERSION FROM IDN_REMOTE_FETCH_CONFIG" +
+                    " WHERE TENANT_ID = ? " +
                     "AND ACTION_LISTENER_TYPE = '%s'",
             RemoteFetchConstants.IDENTIFIER_WEB_HOOK_ACTION_LISTENER_COMPONENT);
 
-    public static final String LIST_BASIC_CONFIGS_BY_TENANT = String.format("SELECT IDN_REMOTE_FETCH_CONFIG.ID," +
-                    " IDN_REMOTE_FETCH_CONFIG.IS_ENABLED," +
-                    " IDN_REMOTE_FETCH_CONFIG.REPO_MANAGER_TYPE, IDN_REMOTE_FETCH_CONFIG.ACTION_LISTENER_TYPE," +
-                    " IDN_REMOTE_FETCH_CONFIG.CONFIG_DEPLOYER_TYPE ,IDN_REMOTE_FETCH_CONFIG" + ".REMOTE_FETCH_NAME," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT MAX(IDN_REMOTE_FETCH_REVISIONS.DEPLOYED_DATE) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID)" +
-                    " FROM IDN_REMOTE_FETCH_CONFIG" +
-                    " WHERE IDN_REMOTE_FETCH_CONFIG.TENANT_ID = ? ",
-            SQLConstants.REVISION_DEPLOYMENT_OK, SQLConstants.REVISION_DEPLOYMENT_FAIL);
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT = "SELECT ID, IS_ENABLED, REPO_MANAGER_TYPE," +
+            " ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? ";
 
     public static final String LIST_CONFIGS_BY_ENABLED = "SELECT ID, TENANT_ID, IS_ENABLED," +
             " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, ATTRIBUTES_JSON" +
@@ -102,7 +166,7 @@ public class SQLConstants {
 
     public static final String GET_CONFIG = "SELECT ID, TENANT_ID, IS_ENABLED," +
             " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE,REMOTE_FETCH_NAME, REMOTE_RESOURCE_URI," +
-            " ATTRIBUTES_JSON FROM IDN_REMOTE_FETCH_CONFIG WHERE ID = ? AND TENANT_ID = ?";
+            " ATTRIBUTES_JSON, CONFIG_VERSION FROM IDN_REMOTE_FETCH_CONFIG WHERE ID = ? AND TENANT_ID = ?";
 
     public static final String GET_CONFIG_BY_UNIQUE = "SELECT ID, TENANT_ID, IS_ENABLED," +
             " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, ATTRIBUTES_JSON" +
@@ -110,43 +174,28 @@ public class SQLConstants {
 
     public static final String UPDATE_CONFIG = "UPDATE IDN_REMOTE_FETCH_CONFIG SET TENANT_ID = ?, IS_ENABLED = ?," +
             " REPO_MANAGER_TYPE = ?, ACTION_LISTENER_TYPE = ?, CONFIG_DEPLOYER_TYPE = ?, " +
-            " ATTRIBUTES_JSON = ? ,REMOTE_FETCH_NAME = ? ,REMOTE_RESOURCE_URI = ? WHERE ID = ?";
+            " ATTRIBUTES_JSON = ? ,REMOTE_FETCH_NAME = ? ,REMOTE_RESOURCE_URI = ?, CONFIG_VERSION = ? WHERE ID = ?";
+
+    // Configuration versions are taken from a single counter row, locked by the increment until the write commits.
+    public static final String INCREMENT_CONFIG_VERSION = "UPDATE IDN_REMOTE_FETCH_VERSION" +
+            " SET LAST_VERSION = LAST_VERSION + 1 WHERE ID = 1";
+
+    public static final String GET_CONFIG_VERSION = "SELECT LAST_VERSION FROM IDN_REMOTE_FETCH_VERSION WHERE ID = 1";
+
+    public static final String INIT_CONFIG_VERSION = "INSERT INTO IDN_REMOTE_FETCH_VERSION (ID, LAST_VERSION)" +
+            " SELECT 1, COALESCE(MAX(CONFIG_VERSION), 0) + 1 FROM IDN_REMOTE_FETCH_CONFIG";
 
     public static final String DELETE_CONFIG = "DELETE FROM IDN_REMOTE_FETCH_CONFIG WHERE ID = ? AND TENANT_ID = ?";
 
-    public static final String LIST_BASIC_CONFIGS_BY_TENANT_MYSQL = String.format("SELECT IDN_REMOTE_FETCH_CONFIG.ID," +
-                    " IDN_REMOTE_FETCH_CONFIG.IS_ENABLED," +
-                    " IDN_REMOTE_FETCH_CONFIG.REPO_MANAGER_TYPE, IDN_REMOTE_FETCH_CONFIG.ACTION_LISTENER_TYPE," +
-                    " IDN_REMOTE_FETCH_CONFIG.CONFIG_DEPLOYER_TYPE ,IDN_REMOTE_FETCH_CONFIG.REMOTE_FETCH_NAME," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT MAX(IDN_REMOTE_FETCH_REVISIONS.DEPLOYED_DATE) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID)" +
-                    " FROM IDN_REMOTE_FETCH_CONFIG" +
-                    " WHERE IDN_REMOTE_FETCH_CONFIG.TENANT_ID = ? LIMIT ?, ?",
-            SQLConstants.REVISION_DEPLOYMENT_OK, SQLConstants.REVISION_DEPLOYMENT_FAIL);
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_MYSQL = "SELECT ID, IS_ENABLED, REPO_MANAGER_TYPE," +
+            " ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? LIMIT ?, ?";
 
-    public static final String LIST_BASIC_CONFIGS_BY_TENANT_ORACLE = String.format(
-            "SELECT IDN_REMOTE_FETCH_CONFIG.ID," +
-                    " IDN_REMOTE_FETCH_CONFIG.IS_ENABLED," +
-                    " IDN_REMOTE_FETCH_CONFIG.REPO_MANAGER_TYPE, IDN_REMOTE_FETCH_CONFIG.ACTION_LISTENER_TYPE," +
-                    " IDN_REMOTE_FETCH_CONFIG.CONFIG_DEPLOYER_TYPE ,IDN_REMOTE_FETCH_CONFIG.REMOTE_FETCH_NAME," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s') AS DEPLOYED," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s') AS ERROR_DEPLOYING ," +
-                    " (SELECT MAX(IDN_REMOTE_FETCH_REVISIONS.DEPLOYED_DATE) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID) AS DEPLOYED_DATE" +
-                    ", ROWNUM AS rnum" +
-                    " FROM IDN_REMOTE_FETCH_CONFIG" +
-                    " WHERE IDN_REMOTE_FETCH_CONFIG.TENANT_ID = ? AND ROWNUM <= ?",
-            SQLConstants.REVISION_DEPLOYMENT_OK, SQLConstants.REVISION_DEPLOYMENT_FAIL);
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_ORACLE = "SELECT ID, IS_ENABLED, REPO_MANAGER_TYPE," +
+            " ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME, DEPLOYED_COUNT AS DEPLOYED," +
+            " FAILED_COUNT AS ERROR_DEPLOYING, LAST_DEPLOYED_DATE AS DEPLOYED_DATE, ROWNUM AS rnum" +
+            " FROM IDN_REMOTE_FETCH_CONFIG WHERE TENANT_ID = ? AND ROWNUM <= ?";
 
     public static final String LIST_BASIC_CONFIGS_BY_TENANT_ORACLE_LIMIT_HEAD = "SELECT ID," +
             " IS_ENABLED," +
@@ -159,38 +208,37 @@ public class SQLConstants {
 
     public static final String LIST_BASIC_CONFIGS_BY_TENANT_ORACLE_LIMIT_TAIL = ") WHERE rnum > ?";
 
-    public static final String LIST_BASIC_CONFIGS_BY_TENANT_MSSQL = String.format(
-            "SELECT IDN_REMOTE_FETCH_CONFIG.ID," +
-                    " IDN_REMOTE_FETCH_CONFIG.IS_ENABLED," +
-                    " IDN_REMOTE_FETCH_CONFIG.REPO_MANAGER_TYPE, IDN_REMOTE_FETCH_CONFIG.ACTION_LISTENER_TYPE," +
-                    " IDN_REMOTE_FETCH_CONFIG.CONFIG_DEPLOYER_TYPE ,IDN_REMOTE_FETCH_CONFIG.REMOTE_FETCH_NAME," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT MAX(IDN_REMOTE_FETCH_REVISIONS.DEPLOYED_DATE) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID)" +
-                    " FROM IDN_REMOTE_FETCH_CONFIG" +
-                    " WHERE IDN_REMOTE_FETCH_CONFIG.TENANT_ID = ? order by IDN_REMOTE_FETCH_CONFIG.TENANT_ID " +
-                    "OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
-            SQLConstants.REVISION_DEPLOYMENT_OK, SQLConstants.REVISION_DEPLOYMENT_FAIL);
-
-    public static final String LIST_BASIC_CONFIGS_BY_TENANT_POSTGRES_DB2 = String.format(
-            "SELECT IDN_REMOTE_FETCH_CONFIG.ID," +
-                    " IDN_REMOTE_FETCH_CONFIG.IS_ENABLED," +
-                    " IDN_REMOTE_FETCH_CONFIG.REPO_MANAGER_TYPE, IDN_REMOTE_FETCH_CONFIG.ACTION_LISTENER_TYPE," +
-                    " IDN_REMOTE_FETCH_CONFIG.CONFIG_DEPLOYER_TYPE ,IDN_REMOTE_FETCH_CONFIG.REMOTE_FETCH_NAME," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT COUNT(IDN_REMOTE_FETCH_REVISIONS.ID) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID AND" +
-                    " IDN_REMOTE_FETCH_REVISIONS.DEPLOYMENT_STATUS = '%s')," +
-                    " (SELECT MAX(IDN_REMOTE_FETCH_REVISIONS.DEPLOYED_DATE) FROM IDN_REMOTE_FETCH_REVISIONS" +
-                    " WHERE IDN_REMOTE_FETCH_REVISIONS.CONFIG_ID = IDN_REMOTE_FETCH_CONFIG.ID)" +
-                    " FROM IDN_REMOTE_FETCH_CONFIG" +
-                    " WHERE IDN_REMOTE_FETCH_CONFIG.TENANT_ID = ? LIMIT ? OFFSET ?",
-            SQLConstants.REVISION_DEPLOYMENT_OK, SQLConstants.REVISION_DEPLOYMENT_FAIL);
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_MSSQL = "SELECT ID, IS_ENABLED, REPO_MANAGER_TYPE," +
+            " ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? ORDER BY REMOTE_FETCH_NAME, ID" +
+            " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_POSTGRES_DB2 = "SELECT ID, IS_ENABLED, REPO_MANAGER_TYPE," +
+            " ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? LIMIT ? OFFSET ?";
+
+    // Keyset pagination of basic configurations. Configurations without a name come first in ID order, followed by
+    // the named configurations in (name, ID) order, so every predicate compares REMOTE_FETCH_NAME directly.
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_UNNAMED_FIRST_PAGE = "SELECT ID, IS_ENABLED," +
+            " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? AND REMOTE_FETCH_NAME IS NULL ORDER BY ID";
+
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_UNNAMED_NEXT_PAGE = "SELECT ID, IS_ENABLED," +
+            " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? AND REMOTE_FETCH_NAME IS NULL AND ID > ? ORDER BY ID";
+
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_NAMED_FIRST_PAGE = "SELECT ID, IS_ENABLED," +
+            " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? AND REMOTE_FETCH_NAME IS NOT NULL ORDER BY REMOTE_FETCH_NAME, ID";
+
+    public static final String LIST_BASIC_CONFIGS_BY_TENANT_NAMED_NEXT_PAGE = "SELECT ID, IS_ENABLED," +
+            " REPO_MANAGER_TYPE, ACTION_LISTENER_TYPE, CONFIG_DEPLOYER_TYPE, REMOTE_FETCH_NAME," +
+            " DEPLOYED_COUNT, FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG" +
+            " WHERE TENANT_ID = ? AND (REMOTE_FETCH_NAME > ? OR (REMOTE_FETCH_NAME = ? AND ID > ?))" +
+            " ORDER BY REMOTE_FETCH_NAME, ID";
 }
@@ -21,7 +21,9 @@ package org.wso2.carbon.identity.remotefetch.core.dao;
 import org.wso2.carbon.identity.remotefetch.common.DeploymentRevision;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface used to access the data layer to store/update DeploymentRevisions.
@@ -55,6 +57,39 @@ public interface DeploymentRevisionDAO {
      */
     void updateDeploymentRevision(DeploymentRevision deploymentRevision) throws RemoteFetchCoreException;
 
+    /**
+     * Create and update the deployment revisions of a poll cycle with JDBC batches, and set the last synchronized
+     * date of all deployment revisions of the remoteFetchConfigurationId, in a single transaction.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param createdRevisions           DeploymentRevisions to create
+     * @param updatedRevisions           DeploymentRevisions to update
+     * @param lastSynchronizedDate       Last synchronized date, null to leave unchanged
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    void saveDeploymentRevisions(String remoteFetchConfigurationId, List<DeploymentRevision> createdRevisions,
+                                 List<DeploymentRevision> updatedRevisions, Date lastSynchronizedDate)
+            throws RemoteFetchCoreException;
+
+    /**
+     * Update last synchronized date of all deployment revisions of the remoteFetchConfigurationId.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param lastSynchronizedDate       Last synchronized date
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    void updateLastSynchronizedDate(String remoteFetchConfigurationId, Date lastSynchronizedDate)
+            throws RemoteFetchCoreException;
+
+    /**
+     * Update last synchronized date of all deployment revisions of each remoteFetchConfigurationId with a JDBC batch
+     * in a single transaction.
+     *
+     * @param lastSynchronizedDates Last synchronized dates keyed by remoteFetchConfigurationId
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    void updateLastSynchronizedDates(Map<String, Date> lastSynchronizedDates) throws RemoteFetchCoreException;
+
     /**
      * Delete deployment revision data corresponding to deploymentRevisionId.
      *
@@ -73,4 +108,34 @@ public interface DeploymentRevisionDAO {
     List<DeploymentRevision> getDeploymentRevisionsByConfigurationId(String remoteFetchConfigurationId)
             throws RemoteFetchCoreException;
 
+    /**
+     * Get the repository revision last synchronized for the remoteFetchConfigurationId. A revision synchronized
+     * from a different source, before the repository or directory of the configuration changed, is not returned.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param sourceKey                  Key of the source currently synchronized, or null
+     * @return Last synchronized revision, or null if the configuration was never synchronized from the source
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    String getLastSyncedRevision(String remoteFetchConfigurationId, String sourceKey)
+            throws RemoteFetchCoreException;
+
+    /**
+     * Store the repository revision last synchronized for the remoteFetchConfigurationId.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param revision                   Last synchronized revision
+     * @param sourceKey                  Key of the source the revision was synchronized from, or null
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    void updateLastSyncedRevision(String remoteFetchConfigurationId, String revision, String sourceKey)
+            throws RemoteFetchCoreException;
+
+    /**
+     * Compute the deployment counters and last deployed date of configurations from their revisions, where they were
+     * never stored.
+     *
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    void backfillDeploymentSummaries() throws RemoteFetchCoreException;
 }
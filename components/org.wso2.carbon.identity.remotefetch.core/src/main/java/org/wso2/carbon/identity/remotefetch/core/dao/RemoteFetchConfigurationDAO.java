@@ -74,6 +74,25 @@ public interface RemoteFetchConfigurationDAO {
      */
     List<RemoteFetchConfiguration> getAllEnabledPollingRemoteFetchConfigurations() throws RemoteFetchCoreException;
 
+    /**
+     * Get remote fetch configurations of all tenants written after the given version, enabled or not.
+     *
+     * @param version Version the caller has already loaded
+     * @return List of remote fetch configurations with a greater version
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    List<RemoteFetchConfiguration> getRemoteFetchConfigurationsChangedSince(long version)
+            throws RemoteFetchCoreException;
+
+    /**
+     * Get the last configuration version taken by any node, which changes whenever a remote fetch configuration is
+     * added, updated or deleted.
+     *
+     * @return Last configuration version, or 0 if no configuration has been written yet
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    long getLastConfigVersion() throws RemoteFetchCoreException;
+
     /**
      * Get all remote fetch configuration for particular tenant.
      *
@@ -106,4 +125,20 @@ public interface RemoteFetchConfigurationDAO {
     List<BasicRemoteFetchConfiguration> getBasicRemoteFetchConfigurationsByTenant(String tenantDomain, int limit,
                                                                                   int offset)
             throws RemoteFetchCoreException;
+
+    /**
+     * Get a page of basic remote fetch configurations of a tenant, starting after the given position. Configurations
+     * without a name come first ordered by id, followed by the named configurations ordered by name and id.
+     *
+     * @param tenantId  tenantId
+     * @param limit     Maximum number of configurations to return
+     * @param afterName Name of the last configuration of the previous page, null for the first page or if the last
+     *                  configuration has no name
+     * @param afterId   Id of the last configuration of the previous page, null for the first page
+     * @return List of basic remote fetch configuration
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    List<BasicRemoteFetchConfiguration> getBasicRemoteFetchConfigurationPageByTenant(int tenantId, int limit,
+                                                                                     String afterName, String afterId)
+            throws RemoteFetchCoreException;
 }
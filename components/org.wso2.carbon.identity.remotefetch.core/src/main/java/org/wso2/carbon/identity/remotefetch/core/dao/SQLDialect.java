@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.dao;
+
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.core.constants.SQLConstants;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
+import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * SQL dialects supported by the remote fetch DAOs, supplying the statements whose syntax differs between databases.
+ */
+public enum SQLDialect {
+
+    H2(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_MYSQL, SQLConstants.UPSERT_LAST_SYNCED_REVISION_H2),
+    MYSQL(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_MYSQL, SQLConstants.UPSERT_LAST_SYNCED_REVISION_MYSQL),
+    MSSQL(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_MSSQL, SQLConstants.UPSERT_LAST_SYNCED_REVISION_MSSQL),
+    POSTGRESQL(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_POSTGRES_DB2,
+            SQLConstants.UPSERT_LAST_SYNCED_REVISION_POSTGRESQL),
+    DB2(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_POSTGRES_DB2, SQLConstants.UPSERT_LAST_SYNCED_REVISION_DB2),
+    ORACLE(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_ORACLE_LIMIT_HEAD +
+            SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_ORACLE +
+            SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_ORACLE_LIMIT_TAIL,
+            SQLConstants.UPSERT_LAST_SYNCED_REVISION_ORACLE);
+
+    private final String listBasicConfigsByTenantSql;
+    private final String upsertLastSyncedRevisionSql;
+
+    SQLDialect(String listBasicConfigsByTenantSql, String upsertLastSyncedRevisionSql) {
+
+        this.listBasicConfigsByTenantSql = listBasicConfigsByTenantSql;
+        this.upsertLastSyncedRevisionSql = upsertLastSyncedRevisionSql;
+    }
+
+    /**
+     * Get the paginated query listing basic remote fetch configurations of a tenant.
+     *
+     * @return Paginated SQL, see {@link #setListBasicConfigsByTenantParameters}
+     */
+    public String getListBasicConfigsByTenantSql() {
+
+        return listBasicConfigsByTenantSql;
+    }
+
+    /**
+     * Get a keyset paginated query listing basic remote fetch configurations of a tenant. The unnamed query lists
+     * the configurations without a name in ID order, and the named query lists the others in (name, ID) order.
+     * The tenant id is bound first, followed by the position after which the page starts unless this is the first
+     * page, and the page size last. The position is the ID of the last row for the unnamed query, and the name,
+     * the name and the ID of the last row for the named query.
+     *
+     * @param isNamed     Whether the named configurations are listed
+     * @param isFirstPage Whether the page starts at the beginning of the listed configurations
+     * @return Keyset paginated SQL
+     */
+    public String getListBasicConfigsByTenantPageSql(boolean isNamed, boolean isFirstPage) {
+
+        String sql;
+        if (isNamed) {
+            sql = isFirstPage ? SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_NAMED_FIRST_PAGE :
+                    SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_NAMED_NEXT_PAGE;
+        } else {
+            sql = isFirstPage ? SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_UNNAMED_FIRST_PAGE :
+                    SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_UNNAMED_NEXT_PAGE;
+        }
+        switch (this) {
+            case MSSQL:
+                return sql + " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+            case ORACLE:
+                return "SELECT * FROM (" + sql + ") WHERE ROWNUM <= ?";
+            default:
+                return sql + " LIMIT ?";
+        }
+    }
+
+    /**
+     * Get the statement inserting or updating the last synced revision of a configuration. The configuration id
+     * is bound as the first parameter, the revision as the second and the repository source key as the third.
+     *
+     * @return Upsert SQL
+     */
+    public String getUpsertLastSyncedRevisionSql() {
+
+        return upsertLastSyncedRevisionSql;
+    }
+
+    /**
+     * Bind the parameters of the paginated list query in the order this dialect expects them.
+     *
+     * @param preparedStatement Statement of {@link #getListBasicConfigsByTenantSql()}
+     * @param tenantId          tenantId
+     * @param limit             limit
+     * @param offset            offset
+     * @throws SQLException SQLException
+     */
+    public void setListBasicConfigsByTenantParameters(PreparedStatement preparedStatement, int tenantId, int limit,
+                                                      int offset) throws SQLException {
+
+        preparedStatement.setInt(1, tenantId);
+        switch (this) {
+            case ORACLE:
+                preparedStatement.setInt(2, offset + limit);
+                preparedStatement.setInt(3, offset);
+                break;
+            case POSTGRESQL:
+            case DB2:
+                preparedStatement.setInt(2, limit);
+                preparedStatement.setInt(3, offset);
+                break;
+            default:
+                preparedStatement.setInt(2, offset);
+                preparedStatement.setInt(3, limit);
+        }
+    }
+
+    /**
+     * Resolve the dialect from the database product name.
+     *
+     * @param databaseProductName Database product name reported by the JDBC driver
+     * @return SQLDialect
+     * @throws RemoteFetchCoreException If the database is not supported
+     */
+    public static SQLDialect fromDatabaseProductName(String databaseProductName) throws RemoteFetchCoreException {
+
+        if (databaseProductName != null) {
+            if (databaseProductName.contains(SQLConstants.DB_H2)) {
+                return H2;
+            } else if (databaseProductName.contains(SQLConstants.DB_MYSQL) ||
+                    databaseProductName.contains(SQLConstants.DB_MARIADB)) {
+                return MYSQL;
+            } else if (databaseProductName.contains(SQLConstants.DB_MSSQL)) {
+                return MSSQL;
+            } else if (databaseProductName.contains(SQLConstants.DB_POSTGRESQL)) {
+                return POSTGRESQL;
+            } else if (databaseProductName.contains(SQLConstants.DB_DB2)) {
+                return DB2;
+            } else if (databaseProductName.contains(SQLConstants.DB_ORACLE)) {
+                return ORACLE;
+            }
+        }
+        throw RemoteFetchConfigurationUtils.handleServerException(RemoteFetchConstants.ErrorMessage
+                .ERROR_CODE_CONNECTING_DATABASE, "Database driver " + databaseProductName + " is not supported.");
+    }
+
+    /**
+     * Resolve the dialect of the database behind the dataSource.
+     *
+     * @param dataSource DataSource
+     * @return SQLDialect
+     * @throws RemoteFetchCoreException If the database can not be reached or is not supported
+     */
+    public static SQLDialect resolve(DataSource dataSource) throws RemoteFetchCoreException {
+
+        try (Connection connection = dataSource.getConnection()) {
+            return fromDatabaseProductName(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw RemoteFetchConfigurationUtils.handleServerException(RemoteFetchConstants.ErrorMessage
+                    .ERROR_CODE_CONNECTING_DATABASE, "Unable to resolve the database dialect.", e);
+        }
+    }
+
+    /**
+     * Get the dialect resolved at component activation, resolving it from the component DataSource if activation
+     * could not.
+     *
+     * @return SQLDialect
+     * @throws RemoteFetchCoreException If the database can not be reached or is not supported
+     */
+    public static SQLDialect getCurrent() throws RemoteFetchCoreException {
+
+        RemoteFetchServiceComponentHolder holder = RemoteFetchServiceComponentHolder.getInstance();
+        SQLDialect sqlDialect = holder.getSQLDialect();
+        if (sqlDialect == null) {
+            sqlDialect = resolve(holder.getDataSource());
+            holder.setSQLDialect(sqlDialect);
+        }
+        return sqlDialect;
+    }
+}
@@ -18,18 +18,27 @@
 
 package org.wso2.carbon.identity.remotefetch.core.dao.impl;
 
+import org.apache.commons.lang.StringUtils;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.Template;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
 import org.wso2.carbon.database.utils.jdbc.exceptions.TransactionException;
 import org.wso2.carbon.identity.remotefetch.common.DeploymentRevision;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 import org.wso2.carbon.identity.remotefetch.core.constants.SQLConstants;
 import org.wso2.carbon.identity.remotefetch.core.dao.DeploymentRevisionDAO;
+import org.wso2.carbon.identity.remotefetch.core.dao.SQLDialect;
 import org.wso2.carbon.identity.remotefetch.core.util.JdbcUtils;
 
 import java.io.File;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO of deployment revision.
@@ -47,33 +56,14 @@ public class DeploymentRevisionDAOImpl implements DeploymentRevisionDAO {
 
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
-            jdbcTemplate.withTransaction(template ->
-                            template.executeInsert(SQLConstants.CREATE_REVISION, preparedStatement -> {
-                                preparedStatement.setString(1, deploymentRevision.getDeploymentRevisionId());
-                                preparedStatement.setString(2, deploymentRevision.getConfigId());
-                                preparedStatement.setString(3, deploymentRevision.getFile().getPath());
-                                preparedStatement.setString(4, deploymentRevision.getFileHash());
-                                preparedStatement.setString(5, deploymentRevision.getItemName());
-                                preparedStatement.setString(6, deploymentRevision.getErrorMessage());
-                                if (deploymentRevision.getDeployedDate() != null) {
-                                    preparedStatement.setTimestamp(7,
-                                            new Timestamp(deploymentRevision.getDeployedDate().getTime()));
-                                } else {
-                                    preparedStatement.setTimestamp(7, null);
-                                }
-                                if (deploymentRevision.getDeploymentStatus() != null) {
-                                    preparedStatement.setString(8, deploymentRevision.getDeploymentStatus().name());
-                                } else {
-                                    preparedStatement.setString(8, null);
-                                }
-                                if (deploymentRevision.getLastSynchronizedDate() != null) {
-                                    preparedStatement.setTimestamp(9,
-                                            new Timestamp(deploymentRevision.getLastSynchronizedDate().getTime()));
-                                } else {
-                                    preparedStatement.setTimestamp(9, null);
-                                }
-                            }, deploymentRevision, false)
-                                        );
+            jdbcTemplate.withTransaction(template -> {
+                updateDeploymentSummary(template, deploymentRevision.getConfigId(),
+                        Collections.singletonList(deploymentRevision));
+                template.executeInsert(SQLConstants.CREATE_REVISION, preparedStatement ->
+                        setCreateRevisionParameters(preparedStatement, deploymentRevision), deploymentRevision,
+                        false);
+                return null;
+            });
         } catch (TransactionException e) {
             throw new RemoteFetchCoreException("Error creating new DeploymentRevision " +
                     deploymentRevision.getItemName(), e);
@@ -140,27 +130,10 @@ public class DeploymentRevisionDAOImpl implements DeploymentRevisionDAO {
 
         try {
             jdbcTemplate.withTransaction(template -> {
-                template.executeUpdate(SQLConstants.UPDATE_REVISION, preparedStatement -> {
-                    preparedStatement.setString(1, deploymentRevision.getConfigId());
-                    preparedStatement.setString(2, deploymentRevision.getFile().getPath());
-                    preparedStatement.setString(3, deploymentRevision.getFileHash());
-                    if (deploymentRevision.getDeployedDate() != null) {
-                        preparedStatement.setTimestamp(4,
-                                new Timestamp(deploymentRevision.getDeployedDate().getTime()));
-                    } else {
-                        preparedStatement.setTimestamp(4, null);
-                    }
-                    preparedStatement.setString(5, deploymentRevision.getDeploymentStatus().name());
-                    preparedStatement.setString(6, deploymentRevision.getItemName());
-                    preparedStatement.setString(7, deploymentRevision.getErrorMessage());
-                    if (deploymentRevision.getLastSynchronizedDate() != null) {
-                        preparedStatement.setTimestamp(8,
-                                new Timestamp(deploymentRevision.getLastSynchronizedDate().getTime()));
-                    } else {
-                        preparedStatement.setTimestamp(8, null);
-                    }
-                    preparedStatement.setString(9, deploymentRevision.getDeploymentRevisionId());
-                });
+                updateDeploymentSummary(template, deploymentRevision.getConfigId(),
+                        Collections.singletonList(deploymentRevision));
+                template.executeUpdate(SQLConstants.UPDATE_REVISION, preparedStatement ->
+                        setUpdateRevisionParameters(preparedStatement, deploymentRevision));
                 return null;
             });
         } catch (TransactionException e) {
@@ -169,6 +142,116 @@ public class DeploymentRevisionDAOImpl implements DeploymentRevisionDAO {
         }
     }
 
+    /**
+     * Create and update the deployment revisions of a poll cycle with JDBC batches, and set the last synchronized
+     * date of all deployment revisions of the remoteFetchConfigurationId, in a single transaction.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param createdRevisions           DeploymentRevisions to create
+     * @param updatedRevisions           DeploymentRevisions to update
+     * @param lastSynchronizedDate       Last synchronized date, null to leave unchanged
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public void saveDeploymentRevisions(String remoteFetchConfigurationId, List<DeploymentRevision> createdRevisions,
+                                        List<DeploymentRevision> updatedRevisions, Date lastSynchronizedDate)
+            throws RemoteFetchCoreException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.withTransaction(template -> {
+                List<DeploymentRevision> savedRevisions = new ArrayList<>(createdRevisions);
+                savedRevisions.addAll(updatedRevisions);
+                if (!savedRevisions.isEmpty()) {
+                    updateDeploymentSummary(template, remoteFetchConfigurationId, savedRevisions);
+                }
+                // executeBatchInsert executes the statements added to the batch, inserts as well as updates.
+                if (!createdRevisions.isEmpty()) {
+                    template.executeBatchInsert(SQLConstants.CREATE_REVISION, preparedStatement -> {
+                        for (DeploymentRevision deploymentRevision : createdRevisions) {
+                            setCreateRevisionParameters(preparedStatement, deploymentRevision);
+                            preparedStatement.addBatch();
+                        }
+                    }, null);
+                }
+                if (!updatedRevisions.isEmpty()) {
+                    template.executeBatchInsert(SQLConstants.UPDATE_REVISION, preparedStatement -> {
+                        for (DeploymentRevision deploymentRevision : updatedRevisions) {
+                            setUpdateRevisionParameters(preparedStatement, deploymentRevision);
+                            preparedStatement.addBatch();
+                        }
+                    }, null);
+                }
+                if (lastSynchronizedDate != null) {
+                    template.executeUpdate(SQLConstants.UPDATE_REVISIONS_LAST_SYNC_TIME, preparedStatement -> {
+                        preparedStatement.setTimestamp(1, new Timestamp(lastSynchronizedDate.getTime()));
+                        preparedStatement.setString(2, remoteFetchConfigurationId);
+                    });
+                }
+                return null;
+            });
+        } catch (TransactionException e) {
+            throw new RemoteFetchCoreException("Error saving DeploymentRevisions for configuration id " +
+                    remoteFetchConfigurationId, e);
+        }
+    }
+
+    /**
+     * Update last synchronized date of all deployment revisions of the remoteFetchConfigurationId.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param lastSynchronizedDate       Last synchronized date
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public void updateLastSynchronizedDate(String remoteFetchConfigurationId, Date lastSynchronizedDate)
+            throws RemoteFetchCoreException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.withTransaction(template -> {
+                template.executeUpdate(SQLConstants.UPDATE_REVISIONS_LAST_SYNC_TIME, preparedStatement -> {
+                    preparedStatement.setTimestamp(1, new Timestamp(lastSynchronizedDate.getTime()));
+                    preparedStatement.setString(2, remoteFetchConfigurationId);
+                });
+                return null;
+            });
+        } catch (TransactionException e) {
+            throw new RemoteFetchCoreException("Error updating last synchronized date of DeploymentRevisions for " +
+                    "configuration id " + remoteFetchConfigurationId, e);
+        }
+    }
+
+    /**
+     * Update last synchronized date of all deployment revisions of each remoteFetchConfigurationId with a JDBC batch
+     * in a single transaction.
+     *
+     * @param lastSynchronizedDates Last synchronized dates keyed by remoteFetchConfigurationId
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public void updateLastSynchronizedDates(Map<String, Date> lastSynchronizedDates) throws RemoteFetchCoreException {
+
+        if (lastSynchronizedDates.isEmpty()) {
+            return;
+        }
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.withTransaction(template -> {
+                template.executeBatchInsert(SQLConstants.UPDATE_REVISIONS_LAST_SYNC_TIME, preparedStatement -> {
+                    for (Map.Entry<String, Date> lastSynchronizedDate : lastSynchronizedDates.entrySet()) {
+                        preparedStatement.setTimestamp(1, new Timestamp(lastSynchronizedDate.getValue().getTime()));
+                        preparedStatement.setString(2, lastSynchronizedDate.getKey());
+                        preparedStatement.addBatch();
+                    }
+                }, null);
+                return null;
+            });
+        } catch (TransactionException e) {
+            throw new RemoteFetchCoreException("Error updating last synchronized date of DeploymentRevisions", e);
+        }
+    }
+
     /**
      * Delete deployment revision data corresponding to deploymentRevisionId.
      *
@@ -181,6 +264,14 @@ public class DeploymentRevisionDAOImpl implements DeploymentRevisionDAO {
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
             jdbcTemplate.withTransaction(template -> {
+                String remoteFetchConfigurationId = template.fetchSingleRecord(SQLConstants.GET_REVISION_CONFIG_ID,
+                        (resultSet, rowNumber) -> resultSet.getString(1),
+                        preparedStatement -> preparedStatement.setString(1, deploymentRevisionId));
+                if (remoteFetchConfigurationId != null) {
+                    template.executeUpdate(SQLConstants.APPLY_CONFIG_DEPLOYMENT_COUNT_DELTA, preparedStatement ->
+                            setDeploymentCountDeltaParameters(preparedStatement, remoteFetchConfigurationId,
+                                    deploymentRevisionId, null));
+                }
                 template.executeUpdate(SQLConstants.DELETE_REVISION, preparedStatement -> {
                     preparedStatement.setString(1, deploymentRevisionId);
                 });
@@ -231,4 +322,187 @@ public class DeploymentRevisionDAOImpl implements DeploymentRevisionDAO {
                     remoteFetchConfigurationId, e);
         }
     }
+
+    /**
+     * Get the repository revision last synchronized for the remoteFetchConfigurationId. A revision synchronized
+     * from a different source, before the repository or directory of the configuration changed, is not returned.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param sourceKey                  Key of the source currently synchronized, or null
+     * @return Last synchronized revision, or null if the configuration was never synchronized from the source
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public String getLastSyncedRevision(String remoteFetchConfigurationId, String sourceKey)
+            throws RemoteFetchCoreException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        String[] syncState;
+        try {
+            syncState = jdbcTemplate.withTransaction(template ->
+                    template.fetchSingleRecord(SQLConstants.GET_LAST_SYNCED_REVISION,
+                            (resultSet, rowNumber) -> new String[]{resultSet.getString(1), resultSet.getString(2)},
+                            preparedStatement -> preparedStatement.setString(1, remoteFetchConfigurationId)));
+        } catch (TransactionException e) {
+            throw new RemoteFetchCoreException("Error reading last synced revision from database for configuration" +
+                    " id " + remoteFetchConfigurationId, e);
+        }
+        // Oracle stores empty strings as null, so a missing key compares equal to an empty one.
+        if (syncState == null ||
+                !StringUtils.defaultString(sourceKey).equals(StringUtils.defaultString(syncState[1]))) {
+            return null;
+        }
+        return syncState[0];
+    }
+
+    /**
+     * Store the repository revision last synchronized for the remoteFetchConfigurationId.
+     *
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param revision                   Last synchronized revision
+     * @param sourceKey                  Key of the source the revision was synchronized from, or null
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public void updateLastSyncedRevision(String remoteFetchConfigurationId, String revision, String sourceKey)
+            throws RemoteFetchCoreException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        String upsertSql = SQLDialect.getCurrent().getUpsertLastSyncedRevisionSql();
+        try {
+            jdbcTemplate.withTransaction(template -> {
+                template.executeUpdate(upsertSql, preparedStatement -> {
+                    preparedStatement.setString(1, remoteFetchConfigurationId);
+                    preparedStatement.setString(2, revision);
+                    preparedStatement.setString(3, sourceKey);
+                });
+                return null;
+            });
+        } catch (TransactionException e) {
+            throw new RemoteFetchCoreException("Error updating last synced revision for configuration id " +
+                    remoteFetchConfigurationId, e);
+        }
+    }
+
+    /**
+     * Compute the deployment counters and last deployed date of configurations from their revisions, where they were
+     * never stored, such as for configurations created before the summary columns were added.
+     *
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public void backfillDeploymentSummaries() throws RemoteFetchCoreException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.withTransaction(template -> {
+                template.executeUpdate(SQLConstants.BACKFILL_CONFIG_DEPLOYMENT_SUMMARY, preparedStatement -> {
+                    // The statement has no parameters.
+                });
+                return null;
+            });
+        } catch (TransactionException e) {
+            throw new RemoteFetchCoreException("Error backfilling deployment summaries of configurations", e);
+        }
+    }
+
+    /**
+     * Apply the changes of the given revisions to the deployment counters and last deployed date stored on the
+     * configuration, so that listing configurations does not aggregate the revisions table. Runs before the
+     * revisions are written, as the counters are adjusted by the previous status of each revision.
+     *
+     * @param template                   Template of the current transaction
+     * @param remoteFetchConfigurationId remoteFetchConfigurationId
+     * @param deploymentRevisions        DeploymentRevisions about to be written
+     * @throws DataAccessException DataAccessException
+     */
+    private static void updateDeploymentSummary(Template<?> template, String remoteFetchConfigurationId,
+                                                List<DeploymentRevision> deploymentRevisions)
+            throws DataAccessException {
+
+        template.executeBatchInsert(SQLConstants.APPLY_CONFIG_DEPLOYMENT_COUNT_DELTA, preparedStatement -> {
+            for (DeploymentRevision deploymentRevision : deploymentRevisions) {
+                setDeploymentCountDeltaParameters(preparedStatement, remoteFetchConfigurationId,
+                        deploymentRevision.getDeploymentRevisionId(), deploymentRevision.getDeploymentStatus());
+                preparedStatement.addBatch();
+            }
+        }, null);
+
+        Date lastDeployedDate = null;
+        for (DeploymentRevision deploymentRevision : deploymentRevisions) {
+            Date deployedDate = deploymentRevision.getDeployedDate();
+            if (deployedDate != null && (lastDeployedDate == null || deployedDate.after(lastDeployedDate))) {
+                lastDeployedDate = deployedDate;
+            }
+        }
+        if (lastDeployedDate != null) {
+            Timestamp lastDeployedTimestamp = new Timestamp(lastDeployedDate.getTime());
+            template.executeUpdate(SQLConstants.UPDATE_CONFIG_LAST_DEPLOYED_DATE, preparedStatement -> {
+                preparedStatement.setTimestamp(1, lastDeployedTimestamp);
+                preparedStatement.setString(2, remoteFetchConfigurationId);
+                preparedStatement.setTimestamp(3, lastDeployedTimestamp);
+            });
+        }
+    }
+
+    private static void setDeploymentCountDeltaParameters(PreparedStatement preparedStatement,
+                                                          String remoteFetchConfigurationId,
+                                                          String deploymentRevisionId,
+                                                          DeploymentRevision.DeploymentStatus deploymentStatus)
+            throws SQLException {
+
+        preparedStatement.setInt(1, deploymentStatus == DeploymentRevision.DeploymentStatus.SUCCESS ? 1 : 0);
+        preparedStatement.setString(2, deploymentRevisionId);
+        preparedStatement.setInt(3, deploymentStatus == DeploymentRevision.DeploymentStatus.FAIL ? 1 : 0);
+        preparedStatement.setString(4, deploymentRevisionId);
+        preparedStatement.setString(5, remoteFetchConfigurationId);
+    }
+
+    private static void setCreateRevisionParameters(PreparedStatement preparedStatement,
+                                                    DeploymentRevision deploymentRevision) throws SQLException {
+
+        preparedStatement.setString(1, deploymentRevision.getDeploymentRevisionId());
+        preparedStatement.setString(2, deploymentRevision.getConfigId());
+        preparedStatement.setString(3, deploymentRevision.getFile().getPath());
+        preparedStatement.setString(4, deploymentRevision.getFileHash());
+        preparedStatement.setString(5, deploymentRevision.getItemName());
+        preparedStatement.setString(6, deploymentRevision.getErrorMessage());
+        if (deploymentRevision.getDeployedDate() != null) {
+            preparedStatement.setTimestamp(7, new Timestamp(deploymentRevision.getDeployedDate().getTime()));
+        } else {
+            preparedStatement.setTimestamp(7, null);
+        }
+        if (deploymentRevision.getDeploymentStatus() != null) {
+            preparedStatement.setString(8, deploymentRevision.getDeploymentStatus().name());
+        } else {
+            preparedStatement.setString(8, null);
+        }
+        if (deploymentRevision.getLastSynchronizedDate() != null) {
+            preparedStatement.setTimestamp(9, new Timestamp(deploymentRevision.getLastSynchronizedDate().getTime()));
+        } else {
+            preparedStatement.setTimestamp(9, null);
+        }
+    }
+
+    private static void setUpdateRevisionParameters(PreparedStatement preparedStatement,
+                                                    DeploymentRevision deploymentRevision) throws SQLException {
+
+        preparedStatement.setString(1, deploymentRevision.getConfigId());
+        preparedStatement.setString(2, deploymentRevision.getFile().getPath());
+        preparedStatement.setString(3, deploymentRevision.getFileHash());
+        if (deploymentRevision.getDeployedDate() != null) {
+            preparedStatement.setTimestamp(4, new Timestamp(deploymentRevision.getDeployedDate().getTime()));
+        } else {
+            preparedStatement.setTimestamp(4, null);
+        }
+        preparedStatement.setString(5, deploymentRevision.getDeploymentStatus().name());
+        preparedStatement.setString(6, deploymentRevision.getItemName());
+        preparedStatement.setString(7, deploymentRevision.getErrorMessage());
+        if (deploymentRevision.getLastSynchronizedDate() != null) {
+            preparedStatement.setTimestamp(8, new Timestamp(deploymentRevision.getLastSynchronizedDate().getTime()));
+        } else {
+            preparedStatement.setTimestamp(8, null);
+        }
+        preparedStatement.setString(9, deploymentRevision.getDeploymentRevisionId());
+    }
 }
@@ -18,13 +18,11 @@
 
 package org.wso2.carbon.identity.remotefetch.core.dao.impl;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.json.JSONObject;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.Template;
 import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
 import org.wso2.carbon.database.utils.jdbc.exceptions.TransactionException;
-import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.remotefetch.common.BasicRemoteFetchConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
@@ -32,14 +30,15 @@ import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 import org.wso2.carbon.identity.remotefetch.core.constants.SQLConstants;
 import org.wso2.carbon.identity.remotefetch.core.dao.RemoteFetchConfigurationDAO;
+import org.wso2.carbon.identity.remotefetch.core.dao.SQLDialect;
 import org.wso2.carbon.identity.remotefetch.core.util.JdbcUtils;
 import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -56,10 +55,9 @@ import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.F
  */
 public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfigurationDAO {
 
-    private static final Log log = LogFactory.getLog(RemoteFetchConfigurationDAOImpl.class);
-
     /**
      * Insert new remote fetch configuration data row into database.
+     * The configuration version is taken from the version counter in the same transaction.
      *
      * @param configuration remote fetch configuration.
      * @throws RemoteFetchCoreException RemoteFetchCoreException
@@ -68,24 +66,27 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
     public void createRemoteFetchConfiguration(RemoteFetchConfiguration configuration) throws RemoteFetchCoreException {
 
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
-
         try {
-
-            jdbcTemplate.executeInsert(SQLConstants.CREATE_CONFIG,
-                    preparedStatement -> {
-                        preparedStatement.setString(1, configuration.getRemoteFetchConfigurationId());
-                        preparedStatement.setInt(2, configuration.getTenantId());
-                        preparedStatement.setString(3, (configuration.isEnabled() ? "1" : "0"));
-                        preparedStatement.setString(4, configuration.getRepositoryManagerType());
-                        preparedStatement.setString(5, configuration.getActionListenerType());
-                        preparedStatement.setString(6, configuration.getConfigurationDeployerType());
-                        //Encode object attributes to JSON
-                        JSONObject attributesBundle = this.makeAttributeBundle(configuration);
-                        preparedStatement.setString(7, attributesBundle.toString(FACTOR_INDENT));
-                        preparedStatement.setString(8, configuration.getRemoteFetchName());
-                        preparedStatement.setString(9, configuration.getRemoteResourceURI());
-                    }, configuration, false);
-        } catch (DataAccessException e) {
+            jdbcTemplate.withTransaction(template -> {
+                configuration.setVersion(this.nextConfigVersion(template));
+                template.executeInsert(SQLConstants.CREATE_CONFIG,
+                        preparedStatement -> {
+                            preparedStatement.setString(1, configuration.getRemoteFetchConfigurationId());
+                            preparedStatement.setInt(2, configuration.getTenantId());
+                            preparedStatement.setString(3, (configuration.isEnabled() ? "1" : "0"));
+                            preparedStatement.setString(4, configuration.getRepositoryManagerType());
+                            preparedStatement.setString(5, configuration.getActionListenerType());
+                            preparedStatement.setString(6, configuration.getConfigurationDeployerType());
+                            //Encode object attributes to JSON
+                            JSONObject attributesBundle = this.makeAttributeBundle(configuration);
+                            preparedStatement.setString(7, attributesBundle.toString(FACTOR_INDENT));
+                            preparedStatement.setString(8, configuration.getRemoteFetchName());
+                            preparedStatement.setString(9, configuration.getRemoteResourceURI());
+                            preparedStatement.setLong(10, configuration.getVersion());
+                        }, configuration, false);
+                return null;
+            });
+        } catch (TransactionException e) {
             throw RemoteFetchConfigurationUtils.handleServerException(RemoteFetchConstants.ErrorMessage.
                     ERROR_CODE_ADD_RF_CONFIG, configuration.getRemoteFetchName(), e);
         }
@@ -120,6 +121,7 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
 
     /**
      * Update given remote fetch configuration.
+     * The configuration version is taken from the version counter in the same transaction.
      *
      * @param configuration RemoteFetchConfiguration
      * @throws RemoteFetchCoreException RemoteFetchCoreException
@@ -128,13 +130,14 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
     public void updateRemoteFetchConfiguration(RemoteFetchConfiguration configuration) throws RemoteFetchCoreException {
 
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
-
         try {
             jdbcTemplate.withTransaction(template -> {
+                configuration.setVersion(this.nextConfigVersion(template));
                 jdbcTemplate.executeUpdate(SQLConstants.UPDATE_CONFIG,
                         preparedStatement -> {
                             this.configurationToPreparedStatement(preparedStatement, configuration);
-                            preparedStatement.setString(9, configuration.getRemoteFetchConfigurationId());
+                            preparedStatement.setLong(9, configuration.getVersion());
+                            preparedStatement.setString(10, configuration.getRemoteFetchConfigurationId());
                         });
                 return null;
             });
@@ -164,6 +167,8 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
                             preparedStatement.setString(1, configurationId);
                             preparedStatement.setInt(2, tenantId);
                         });
+                // Deletes take a version as well, so caches checking the last version notice them.
+                this.nextConfigVersion(template);
                 return null;
             });
         } catch (TransactionException e) {
@@ -193,6 +198,50 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
         }
     }
 
+    /**
+     * Get remote fetch configurations of all tenants written after the given version, enabled or not.
+     * This implementation is used by the auto sync mechanism to load only changed configurations.
+     *
+     * @param version Version the caller has already loaded
+     * @return List of remote fetch configurations with a greater version
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public List<RemoteFetchConfiguration> getRemoteFetchConfigurationsChangedSince(long version)
+            throws RemoteFetchCoreException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            return jdbcTemplate.withTransaction(template ->
+                    template.executeQuery(SQLConstants.LIST_CONFIGS_CHANGED_SINCE,
+                            ((resultSet, i) -> this.resultSetToConfiguration(resultSet)),
+                            preparedStatement -> preparedStatement.setLong(1, version)));
+        } catch (TransactionException e) {
+            throw new RemoteFetchCoreException("Error listing changed RemoteFetchConfigurations from database", e);
+        }
+    }
+
+    /**
+     * Get the last configuration version from the version counter row.
+     *
+     * @return Last configuration version, or 0 if the counter row is not created yet
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public long getLastConfigVersion() throws RemoteFetchCoreException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            Long version = jdbcTemplate.fetchSingleRecord(SQLConstants.GET_CONFIG_VERSION,
+                    (resultSet, rowNumber) -> resultSet.getLong(1), preparedStatement -> {
+                        // The statement has no parameters.
+                    });
+            return version != null ? version : 0L;
+        } catch (DataAccessException e) {
+            throw new RemoteFetchCoreException("Error reading RemoteFetchConfiguration version from database", e);
+        }
+    }
+
     /**
      * Get all remote fetch configuration for particular tenant.
      *
@@ -255,60 +304,15 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
             throws RemoteFetchCoreException {
 
         int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        SQLDialect sqlDialect = SQLDialect.getCurrent();
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
-        try (Connection dbConnection = IdentityDatabaseUtil.getDBConnection(false)) {
-            String databaseProductName = dbConnection.getMetaData().getDatabaseProductName();
-            if (databaseProductName.contains(SQLConstants.DB_MYSQL) ||
-                    databaseProductName.contains(SQLConstants.DB_MARIADB) ||
-                    databaseProductName.contains(SQLConstants.DB_H2)) {
-                return jdbcTemplate.withTransaction(template ->
-                        template.executeQuery(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_MYSQL,
-                                (resultSet, i) -> this.resultSetToBasicConfiguration(resultSet),
-                                preparedStatement -> {
-                                    preparedStatement.setInt(1, tenantId);
-                                    preparedStatement.setInt(2, offset);
-                                    preparedStatement.setInt(3, limit);
-                                }));
-            } else if (databaseProductName.contains(SQLConstants.DB_ORACLE)) {
-                String sql = SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_ORACLE_LIMIT_HEAD +
-                        SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_ORACLE +
-                        SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_ORACLE_LIMIT_TAIL;
-                return jdbcTemplate.withTransaction(template ->
-                        template.executeQuery(sql,
-                                (resultSet, i) -> this.resultSetToBasicConfiguration(resultSet),
-                                preparedStatement -> {
-                                    preparedStatement.setInt(1, tenantId);
-                                    preparedStatement.setInt(2, offset + limit);
-                                    preparedStatement.setInt(3, offset);
-                                }));
-            } else if (databaseProductName.contains(SQLConstants.DB_MSSQL)) {
-                return jdbcTemplate.withTransaction(template ->
-                        template.executeQuery(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_MSSQL,
-                                (resultSet, i) -> this.resultSetToBasicConfiguration(resultSet),
-                                preparedStatement -> {
-                                    preparedStatement.setInt(1, tenantId);
-                                    preparedStatement.setInt(2, offset);
-                                    preparedStatement.setInt(3, limit);
-                                }));
-            } else if (databaseProductName.contains(SQLConstants.DB_POSTGRESQL)
-                    || databaseProductName.contains(SQLConstants.DB_DB2)) {
-                return jdbcTemplate.withTransaction(template ->
-                        template.executeQuery(SQLConstants.LIST_BASIC_CONFIGS_BY_TENANT_POSTGRES_DB2,
-                                (resultSet, i) -> this.resultSetToBasicConfiguration(resultSet),
-                                preparedStatement -> {
-                                    preparedStatement.setInt(1, tenantId);
-                                    preparedStatement.setInt(2, limit);
-                                    preparedStatement.setInt(3, offset);
-                                }));
-            } else {
-                log.error("Error while loading Remote fetch configuration from DB: Database driver could not " +
-                        "be identified or not supported.");
-                String message = "Error while loading Remote fetch configuration from DB: Database driver " +
-                        "could not be identified or not supported.";
-                throw RemoteFetchConfigurationUtils.handleServerException(RemoteFetchConstants.ErrorMessage
-                        .ERROR_CODE_CONNECTING_DATABASE, message);
-            }
-        } catch (TransactionException | SQLException e) {
+        try {
+            return jdbcTemplate.withTransaction(template ->
+                    template.executeQuery(sqlDialect.getListBasicConfigsByTenantSql(),
+                            (resultSet, i) -> this.resultSetToBasicConfiguration(resultSet),
+                            preparedStatement -> sqlDialect.setListBasicConfigsByTenantParameters(preparedStatement,
+                                    tenantId, limit, offset)));
+        } catch (TransactionException e) {
             String message = "Error occurred while retrieving Remote Fetch Configuration for tenant: " +
                     tenantDomain;
             throw RemoteFetchConfigurationUtils.handleServerException(RemoteFetchConstants.ErrorMessage.
@@ -316,6 +320,70 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
         }
     }
 
+    /**
+     * Get a page of basic remote fetch configurations of a tenant, starting after the given position. Configurations
+     * without a name come first ordered by id, followed by the named configurations ordered by name and id.
+     *
+     * @param tenantId  tenantId
+     * @param limit     Maximum number of configurations to return
+     * @param afterName Name of the last configuration of the previous page, null for the first page or if the last
+     *                  configuration has no name
+     * @param afterId   Id of the last configuration of the previous page, null for the first page
+     * @return List of basic remote fetch configuration
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public List<BasicRemoteFetchConfiguration> getBasicRemoteFetchConfigurationPageByTenant(int tenantId, int limit,
+                                                                                            String afterName,
+                                                                                            String afterId)
+            throws RemoteFetchCoreException {
+
+        boolean isFirstPage = afterId == null;
+        boolean isAfterNamed = !isFirstPage && afterName != null;
+        SQLDialect sqlDialect = SQLDialect.getCurrent();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            return jdbcTemplate.withTransaction(template -> {
+                List<BasicRemoteFetchConfiguration> configurations = new ArrayList<>();
+                if (!isAfterNamed) {
+                    configurations.addAll(template.executeQuery(
+                            sqlDialect.getListBasicConfigsByTenantPageSql(false, isFirstPage),
+                            (resultSet, i) -> this.resultSetToBasicConfiguration(resultSet),
+                            preparedStatement -> {
+                                int parameterIndex = 1;
+                                preparedStatement.setInt(parameterIndex++, tenantId);
+                                if (!isFirstPage) {
+                                    preparedStatement.setString(parameterIndex++, afterId);
+                                }
+                                preparedStatement.setInt(parameterIndex, limit);
+                            }));
+                }
+                int remaining = limit - configurations.size();
+                if (remaining > 0) {
+                    configurations.addAll(template.executeQuery(
+                            sqlDialect.getListBasicConfigsByTenantPageSql(true, !isAfterNamed),
+                            (resultSet, i) -> this.resultSetToBasicConfiguration(resultSet),
+                            preparedStatement -> {
+                                int parameterIndex = 1;
+                                preparedStatement.setInt(parameterIndex++, tenantId);
+                                if (isAfterNamed) {
+                                    preparedStatement.setString(parameterIndex++, afterName);
+                                    preparedStatement.setString(parameterIndex++, afterName);
+                                    preparedStatement.setString(parameterIndex++, afterId);
+                                }
+                                preparedStatement.setInt(parameterIndex, remaining);
+                            }));
+                }
+                return configurations;
+            });
+        } catch (TransactionException e) {
+            String message = "Error occurred while retrieving Remote Fetch Configuration for tenant id: " +
+                    tenantId;
+            throw RemoteFetchConfigurationUtils.handleServerException(RemoteFetchConstants.ErrorMessage.
+                    ERROR_CODE_RETRIEVE_RF_CONFIGS, message, e);
+        }
+    }
+
     private Map<String, String> attributeToMap(JSONObject attributes) {
 
         Map<String, String> attrMap = new HashMap<>();
@@ -340,6 +408,7 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
         remoteFetchConfiguration.setRemoteResourceURI(resultSet.getString(8));
         JSONObject attributesBundle = new JSONObject(resultSet.getString(9));
         this.mapAttributes(remoteFetchConfiguration, attributesBundle);
+        remoteFetchConfiguration.setVersion(resultSet.getLong(10));
         return remoteFetchConfiguration;
     }
 
@@ -395,4 +464,39 @@ public class RemoteFetchConfigurationDAOImpl implements RemoteFetchConfiguration
         remoteFetchConfiguration.setConfigurationDeployerAttributes(
                 this.attributeToMap(attributesBundle.getJSONObject(ATTRIBUTE_CONFIG_DEPLOYER)));
     }
+
+    /**
+     * Take the next configuration version from the version counter row, when a configuration is written or
+     * deleted. The increment locks the row until the calling transaction commits, so versions of concurrent writes
+     * become visible in increasing order and a reader that has seen a version has also seen every lower one. A
+     * missing counter row, as after an upgrade, is created above the highest stored version; concurrent first writes
+     * on such a database may fail on the duplicate row.
+     *
+     * @param template Template of the current transaction
+     * @return Version of the configuration written in this transaction
+     * @throws DataAccessException DataAccessException
+     */
+    private long nextConfigVersion(Template<?> template) throws DataAccessException {
+
+        template.executeUpdate(SQLConstants.INCREMENT_CONFIG_VERSION, preparedStatement -> {
+            // The statement has no parameters.
+        });
+        Long version = this.getConfigVersion(template);
+        if (version == null) {
+            template.executeUpdate(SQLConstants.INIT_CONFIG_VERSION, preparedStatement -> {
+                // The statement has no parameters.
+            });
+            version = this.getConfigVersion(template);
+        }
+        return version;
+    }
+
+    private Long getConfigVersion(Template<?> template) throws DataAccessException {
+
+        return template.fetchSingleRecord(SQLConstants.GET_CONFIG_VERSION,
+                (resultSet, rowNumber) -> resultSet.getLong(1), preparedStatement -> {
+                    // The statement has no parameters.
+                });
+    }
+
 }
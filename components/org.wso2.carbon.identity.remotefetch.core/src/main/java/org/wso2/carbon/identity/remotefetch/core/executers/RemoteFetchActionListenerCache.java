@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchComponentRegistry;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListener;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilder;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilderException;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerComponent;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerBuilder;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerBuilderException;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerComponent;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilder;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilderException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerComponent;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of ActionListeners shared by batch, immediate and web hook triggered runs, keyed by configuration id and
+ * configuration hash. Building an ActionListener seeds its deployment revisions from the database and opens the
+ * local repository, so runs reuse the warm listener of a configuration until the configuration changes.
+ * Listeners are built outside of the map, and a replaced or removed listener is closed to release its repository.
+ */
+public class RemoteFetchActionListenerCache {
+
+    private static final Log log = LogFactory.getLog(RemoteFetchActionListenerCache.class);
+
+    private Map<String, CachedListener> cachedListeners = new ConcurrentHashMap<>();
+
+    /**
+     * Get the cached ActionListener of a configuration, building it if the configuration is not cached or changed
+     * since it was cached. Concurrent callers for the same configuration share a single build.
+     *
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @return ActionListener
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    public ActionListener getActionListener(RemoteFetchConfiguration remoteFetchConfiguration)
+            throws RemoteFetchCoreException {
+
+        String id = remoteFetchConfiguration.getRemoteFetchConfigurationId();
+        int configHash = remoteFetchConfiguration.hashCode();
+        while (true) {
+            CachedListener current = this.cachedListeners.get(id);
+            if (current != null && current.isBuiltFrom(remoteFetchConfiguration, configHash)) {
+                return current.getActionListener();
+            }
+            // Claim the build, so concurrent callers wait for this build instead of building again.
+            CachedListener building = new CachedListener(remoteFetchConfiguration, configHash);
+            boolean isClaimed = current == null ? this.cachedListeners.putIfAbsent(id, building) == null :
+                    this.cachedListeners.replace(id, current, building);
+            if (isClaimed) {
+                return this.build(id, current, building);
+            }
+        }
+    }
+
+    /**
+     * Get the cached ActionListener of a configuration without building it.
+     *
+     * @param id RemoteFetchConfiguration id
+     * @return ActionListener or null if not cached
+     */
+    public ActionListener getCachedActionListener(String id) {
+
+        CachedListener cachedListener = this.cachedListeners.get(id);
+        return cachedListener != null ? cachedListener.getBuiltActionListener() : null;
+    }
+
+    /**
+     * Remove the ActionListener of a deleted or disabled configuration, and close it.
+     *
+     * @param id RemoteFetchConfiguration id
+     */
+    public void remove(String id) {
+
+        CachedListener removed = this.cachedListeners.remove(id);
+        if (removed != null) {
+            removed.close();
+        }
+    }
+
+    /**
+     * Build the ActionListener of a claimed cache entry. The listener it replaces is closed once the build
+     * succeeds, and is restored if the build fails.
+     *
+     * @param id       RemoteFetchConfiguration id
+     * @param current  Cache entry replaced by the build, null if the configuration was not cached
+     * @param building Claimed cache entry
+     * @return ActionListener
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private ActionListener build(String id, CachedListener current, CachedListener building)
+            throws RemoteFetchCoreException {
+
+        if (log.isDebugEnabled()) {
+            log.debug((current != null ? "Re-building" : "Building") +
+                    " ActionListener for RemoteFetchConfiguration id " + id);
+        }
+        ActionListener actionListener;
+        try {
+            actionListener = buildListener(building.remoteFetchConfiguration);
+        } catch (RemoteFetchCoreException | RuntimeException e) {
+            if (current != null && current.getBuiltActionListener() != null) {
+                this.cachedListeners.replace(id, building, current);
+            } else {
+                this.cachedListeners.remove(id, building);
+            }
+            building.actionListener.completeExceptionally(e);
+            throw e;
+        }
+        building.actionListener.complete(actionListener);
+        if (current != null) {
+            current.close();
+        }
+        return actionListener;
+    }
+
+    /**
+     * Builds ActionListener object from RemoteFetchConfiguration.
+     *
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @return ActionListener
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private static ActionListener buildListener(RemoteFetchConfiguration remoteFetchConfiguration)
+            throws RemoteFetchCoreException {
+
+        RemoteFetchComponentRegistry componentRegistry = RemoteFetchServiceComponentHolder.getInstance()
+                .getRemoteFetchComponentRegistry();
+        RepositoryManager repositoryManager = buildRepositoryManager(componentRegistry, remoteFetchConfiguration);
+        try {
+            ConfigDeployer configDeployer = buildConfigDeployer(componentRegistry, remoteFetchConfiguration);
+            return buildActionListener(componentRegistry, configDeployer, repositoryManager,
+                    remoteFetchConfiguration);
+        } catch (RemoteFetchCoreException | RuntimeException e) {
+            repositoryManager.close();
+            throw e;
+        }
+    }
+
+    /**
+     * This method is used to build repository manager for particular remote fetch configuration.
+     *
+     * @param componentRegistry        RemoteFetchComponentRegistry
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @return RepositoryManager
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private static RepositoryManager buildRepositoryManager(RemoteFetchComponentRegistry componentRegistry,
+                                                            RemoteFetchConfiguration remoteFetchConfiguration)
+            throws RemoteFetchCoreException {
+
+        RepositoryManagerComponent repositoryManagerComponent = componentRegistry
+                .getRepositoryManagerComponent(remoteFetchConfiguration.getRepositoryManagerType());
+        if (repositoryManagerComponent == null) {
+            throw new RemoteFetchCoreException("RepositoryManager " + remoteFetchConfiguration
+                    .getRepositoryManagerType()
+                    + " is not registered in RemoteFetchComponentRegistry");
+        }
+        try {
+            RepositoryManagerBuilder repositoryManagerBuilder = repositoryManagerComponent
+                    .getRepositoryManagerBuilder();
+
+            return repositoryManagerBuilder.addRemoteFetchConfig(remoteFetchConfiguration)
+                    .addRemoteFetchCoreConfig(RemoteFetchServiceComponentHolder.getInstance()
+                            .getFetchCoreConfiguration())
+                    .build();
+        } catch (RepositoryManagerBuilderException e) {
+            throw new RemoteFetchCoreException("Unable to build " + remoteFetchConfiguration
+                    .getRepositoryManagerType()
+                    + " RepositoryManager", e);
+        }
+    }
+
+    /**
+     * This method is used to build ConfigDeployer for particular remote fetch configuration.
+     *
+     * @param componentRegistry        RemoteFetchComponentRegistry
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @return ConfigDeployer
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private static ConfigDeployer buildConfigDeployer(RemoteFetchComponentRegistry componentRegistry,
+                                                      RemoteFetchConfiguration remoteFetchConfiguration)
+            throws RemoteFetchCoreException {
+
+        ConfigDeployerComponent configDeployerComponent = componentRegistry
+                .getConfigDeployerComponent(remoteFetchConfiguration.getConfigurationDeployerType());
+        if (configDeployerComponent == null) {
+            throw new RemoteFetchCoreException("ConfigurationDeployer " + remoteFetchConfiguration
+                    .getConfigurationDeployerType()
+                    + " is not registered in RemoteFetchComponentRegistry");
+        }
+        try {
+            ConfigDeployerBuilder configDeployerBuilder = configDeployerComponent.getConfigDeployerBuilder();
+            return configDeployerBuilder.addRemoteFetchConfig(remoteFetchConfiguration).build();
+        } catch (ConfigDeployerBuilderException e) {
+            throw new RemoteFetchCoreException("Unable to build " + remoteFetchConfiguration
+                    .getConfigurationDeployerType()
+                    + " ConfigDeployer object", e);
+        }
+    }
+
+    /**
+     * This method is used create action listener from given ConfigDeployer and RepositoryManager.
+     *
+     * @param componentRegistry        RemoteFetchComponentRegistry
+     * @param configDeployer           ConfigDeployer
+     * @param repositoryManager        RepositoryManager
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @return ActionListener
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private static ActionListener buildActionListener(RemoteFetchComponentRegistry componentRegistry,
+                                                      ConfigDeployer configDeployer,
+                                                      RepositoryManager repositoryManager,
+                                                      RemoteFetchConfiguration remoteFetchConfiguration)
+            throws RemoteFetchCoreException {
+
+        ActionListenerComponent actionListenerComponent = componentRegistry
+                .getActionListenerComponent(remoteFetchConfiguration.getActionListenerType());
+        if (actionListenerComponent == null) {
+            throw new RemoteFetchCoreException("ActionListener " + remoteFetchConfiguration
+                    .getActionListenerType()
+                    + " is not registered in RemoteFetchComponentRegistry");
+        }
+        try {
+            ActionListenerBuilder actionListenerBuilder = actionListenerComponent.getActionListenerBuilder();
+
+            return actionListenerBuilder.addRemoteFetchConfig(remoteFetchConfiguration)
+                    .addConfigDeployer(configDeployer).addRepositoryConnector(repositoryManager).build();
+        } catch (ActionListenerBuilderException e) {
+            throw new RemoteFetchCoreException("Unable to build " + remoteFetchConfiguration
+                    .getActionListenerType()
+                    + " ActionListener object", e);
+        }
+    }
+
+    /**
+     * Holds an ActionListener, or its build in progress, with the configuration and configuration hash it is built
+     * from.
+     */
+    private static class CachedListener {
+
+        private final RemoteFetchConfiguration remoteFetchConfiguration;
+        private final int configHash;
+        private final CompletableFuture<ActionListener> actionListener = new CompletableFuture<>();
+
+        private CachedListener(RemoteFetchConfiguration remoteFetchConfiguration, int configHash) {
+
+            this.remoteFetchConfiguration = remoteFetchConfiguration;
+            this.configHash = configHash;
+        }
+
+        private boolean isBuiltFrom(RemoteFetchConfiguration remoteFetchConfiguration, int configHash) {
+
+            return this.configHash == configHash && this.remoteFetchConfiguration.equals(remoteFetchConfiguration);
+        }
+
+        /**
+         * Get the ActionListener, waiting for its build to complete.
+         */
+        private ActionListener getActionListener() throws RemoteFetchCoreException {
+
+            try {
+                return this.actionListener.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemoteFetchCoreException("Interrupted while building ActionListener for " +
+                        "RemoteFetchConfiguration id " + this.remoteFetchConfiguration.getRemoteFetchConfigurationId(),
+                        e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RemoteFetchCoreException) {
+                    throw (RemoteFetchCoreException) e.getCause();
+                }
+                throw new RemoteFetchCoreException("Unable to build ActionListener for RemoteFetchConfiguration " +
+                        "id " + this.remoteFetchConfiguration.getRemoteFetchConfigurationId(), e.getCause());
+            }
+        }
+
+        /**
+         * Get the ActionListener if it is built.
+         *
+         * @return ActionListener, or null if it is being built or the build failed
+         */
+        private ActionListener getBuiltActionListener() {
+
+            if (!this.actionListener.isDone() || this.actionListener.isCompletedExceptionally()) {
+                return null;
+            }
+            return this.actionListener.join();
+        }
+
+        /**
+         * Close the ActionListener, once built if its build is in progress.
+         */
+        private void close() {
+
+            this.actionListener.thenAccept(ActionListener::close);
+        }
+    }
+}
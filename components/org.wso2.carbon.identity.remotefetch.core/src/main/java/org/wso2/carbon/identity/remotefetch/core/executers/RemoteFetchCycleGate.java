@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight gate for fetch and deploy cycles of remote fetch configurations. Only one cycle runs for a
+ * configuration at a time, so concurrent batch, immediate and web hook triggers never pull the same local
+ * repository concurrently. A cycle requested while another is running either attaches to the running cycle, or
+ * is queued as the single follow-up cycle run once the running cycle completes.
+ */
+public class RemoteFetchCycleGate {
+
+    private static final Log log = LogFactory.getLog(RemoteFetchCycleGate.class);
+
+    private Map<String, CycleState> cycleStates = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the cycle on the calling thread if no cycle is running for the configuration. Otherwise the cycle is
+     * queued as the follow-up of the running cycle, replacing any follow-up queued earlier.
+     *
+     * @param id    RemoteFetchConfiguration id
+     * @param cycle Cycle to run
+     * @return true if the cycle ran on the calling thread, false if it was queued
+     */
+    public boolean runOrQueue(String id, Runnable cycle) {
+
+        CycleState cycleState = this.cycleStates.computeIfAbsent(id, key -> new CycleState());
+        synchronized (cycleState) {
+            if (cycleState.isRunning) {
+                cycleState.followUp = cycle;
+                if (log.isDebugEnabled()) {
+                    log.debug("Cycle already running for RemoteFetchConfiguration id " + id + ", queued follow-up");
+                }
+                return false;
+            }
+            cycleState.isRunning = true;
+        }
+        this.run(id, cycleState, cycle);
+        return true;
+    }
+
+    /**
+     * Runs the cycle on the calling thread only if no cycle is running for the configuration. Otherwise the caller
+     * attaches to the running cycle and the given cycle is dropped.
+     *
+     * @param id    RemoteFetchConfiguration id
+     * @param cycle Cycle to run
+     * @return true if the cycle ran, false if a cycle was already running
+     */
+    public boolean runIfIdle(String id, Runnable cycle) {
+
+        CycleState cycleState = this.cycleStates.computeIfAbsent(id, key -> new CycleState());
+        synchronized (cycleState) {
+            if (cycleState.isRunning) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Cycle already running for RemoteFetchConfiguration id " + id + ", skipping");
+                }
+                return false;
+            }
+            cycleState.isRunning = true;
+        }
+        this.run(id, cycleState, cycle);
+        return true;
+    }
+
+    /**
+     * Returns whether a cycle is running for the configuration.
+     *
+     * @param id RemoteFetchConfiguration id
+     * @return true if a cycle is running
+     */
+    public boolean isRunning(String id) {
+
+        CycleState cycleState = this.cycleStates.get(id);
+        if (cycleState == null) {
+            return false;
+        }
+        synchronized (cycleState) {
+            return cycleState.isRunning;
+        }
+    }
+
+    /**
+     * Remove the state of a deleted configuration.
+     *
+     * @param id RemoteFetchConfiguration id
+     */
+    public void remove(String id) {
+
+        this.cycleStates.remove(id);
+    }
+
+    private void run(String id, CycleState cycleState, Runnable cycle) {
+
+        Runnable nextCycle = cycle;
+        while (nextCycle != null) {
+            try {
+                nextCycle.run();
+            } catch (RuntimeException e) {
+                log.error("Error running cycle for RemoteFetchConfiguration id " + id, e);
+            } catch (Error e) {
+                synchronized (cycleState) {
+                    cycleState.followUp = null;
+                    cycleState.isRunning = false;
+                }
+                throw e;
+            }
+            synchronized (cycleState) {
+                nextCycle = cycleState.followUp;
+                cycleState.followUp = null;
+                if (nextCycle == null) {
+                    cycleState.isRunning = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds whether a cycle is running and the follow-up cycle queued for a configuration.
+     */
+    private static class CycleState {
+
+        private boolean isRunning;
+        private Runnable followUp;
+    }
+}
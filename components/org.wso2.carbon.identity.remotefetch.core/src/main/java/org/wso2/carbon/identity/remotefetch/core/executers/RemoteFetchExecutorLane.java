@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An execution lane with its own worker pool, queue limit and metrics. Scheduled batch polling and immediate
+ * (trigger and web hook) runs are executed on separate lanes, so push to deploy latency does not depend on batch
+ * load. Executions are capped per Git host by a {@link RemoteFetchHostDispatcher} shared by all lanes.
+ */
+public class RemoteFetchExecutorLane {
+
+    private static final Log log = LogFactory.getLog(RemoteFetchExecutorLane.class);
+
+    private String name;
+    private ExecutorService workerPool;
+    private RemoteFetchHostDispatcher hostDispatcher;
+    private boolean isPrioritized;
+    private Semaphore queueSlots;
+
+    private AtomicLong submittedCount = new AtomicLong();
+    private AtomicLong rejectedCount = new AtomicLong();
+    private AtomicLong startedCount = new AtomicLong();
+    private AtomicLong completedCount = new AtomicLong();
+    private AtomicLong totalWaitNanos = new AtomicLong();
+
+    /**
+     * Create a lane.
+     *
+     * @param name           name of the lane used in logs
+     * @param workerPool     worker pool of the lane
+     * @param hostDispatcher dispatcher capping executions per Git host, shared by all lanes
+     * @param isPrioritized  whether executions of the lane waiting for a host go before those of other lanes
+     * @param queueLimit     number of executions waiting or running before submissions are rejected
+     */
+    public RemoteFetchExecutorLane(String name, ExecutorService workerPool, RemoteFetchHostDispatcher hostDispatcher,
+                                   boolean isPrioritized, int queueLimit) {
+
+        this.name = name;
+        this.workerPool = workerPool;
+        this.hostDispatcher = hostDispatcher;
+        this.isPrioritized = isPrioritized;
+        this.queueSlots = new Semaphore(queueLimit);
+    }
+
+    /**
+     * Submit an execution of a configuration to the lane.
+     *
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @param task                     Task to execute
+     * @return false if the lane queue is full or the worker pool is shut down, and the execution was rejected
+     */
+    public boolean submit(RemoteFetchConfiguration remoteFetchConfiguration, Runnable task) {
+
+        if (!this.queueSlots.tryAcquire()) {
+            this.rejectedCount.incrementAndGet();
+            log.warn("Remote fetch " + this.name + " lane queue is full, rejected execution of " +
+                    "RemoteFetchConfiguration id " + remoteFetchConfiguration.getRemoteFetchConfigurationId());
+            return false;
+        }
+        this.submittedCount.incrementAndGet();
+        long submittedTime = System.nanoTime();
+        try {
+            this.hostDispatcher.execute(remoteFetchConfiguration, this.workerPool, this.isPrioritized, () -> {
+                this.totalWaitNanos.addAndGet(System.nanoTime() - submittedTime);
+                this.startedCount.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    this.completedCount.incrementAndGet();
+                    this.queueSlots.release();
+                }
+            }, droppedTask -> this.releaseDropped());
+        } catch (RejectedExecutionException e) {
+            this.releaseDropped();
+            log.warn("Remote fetch " + this.name + " lane worker pool rejected execution of " +
+                    "RemoteFetchConfiguration id " + remoteFetchConfiguration.getRemoteFetchConfigurationId(), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Release the queue slot of an accepted execution dropped before it started, counting it as rejected.
+     */
+    private void releaseDropped() {
+
+        this.submittedCount.decrementAndGet();
+        this.rejectedCount.incrementAndGet();
+        this.queueSlots.release();
+    }
+
+    /**
+     * Log the metrics of the lane at debug level.
+     */
+    public void logMetrics() {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Remote fetch " + this.name + " lane submitted: " + this.getSubmittedCount() + ", rejected: " +
+                    this.getRejectedCount() + ", completed: " + this.getCompletedCount() + ", pending: " +
+                    this.getPendingCount() + ", average wait: " + this.getAverageWaitMillis() + " ms");
+        }
+    }
+
+    /**
+     * Shutdown the worker pool of the lane.
+     */
+    public void shutdown() {
+
+        this.workerPool.shutdown();
+    }
+
+    /**
+     * Get name of the lane.
+     *
+     * @return name
+     */
+    public String getName() {
+
+        return this.name;
+    }
+
+    /**
+     * Get number of accepted executions.
+     *
+     * @return submitted count
+     */
+    public long getSubmittedCount() {
+
+        return this.submittedCount.get();
+    }
+
+    /**
+     * Get number of executions rejected as the lane queue was full.
+     *
+     * @return rejected count
+     */
+    public long getRejectedCount() {
+
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Get number of completed executions.
+     *
+     * @return completed count
+     */
+    public long getCompletedCount() {
+
+        return this.completedCount.get();
+    }
+
+    /**
+     * Get number of accepted executions waiting or running.
+     *
+     * @return pending count
+     */
+    public long getPendingCount() {
+
+        return this.submittedCount.get() - this.completedCount.get();
+    }
+
+    /**
+     * Get average time accepted executions waited before starting.
+     *
+     * @return average wait time in milliseconds
+     */
+    public long getAverageWaitMillis() {
+
+        long started = this.startedCount.get();
+        return started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.totalWaitNanos.get() / started);
+    }
+}
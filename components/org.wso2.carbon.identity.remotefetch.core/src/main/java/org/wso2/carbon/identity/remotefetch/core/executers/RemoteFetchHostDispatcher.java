@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches configuration executions to worker pools while capping the number of executions running
+ * concurrently against a single Git host. A single dispatcher is shared by all execution lanes, so the cap applies
+ * to the node rather than to each lane. Executions beyond the cap wait in a per host queue, and are handed to the
+ * worker pool of their lane as executions against the same host complete, so they never occupy a worker thread
+ * while waiting. Waiting executions of prioritized lanes are dispatched before the others.
+ */
+public class RemoteFetchHostDispatcher {
+
+    private static final Log log = LogFactory.getLog(RemoteFetchHostDispatcher.class);
+    private static final String UNKNOWN_HOST = "";
+
+    private Map<String, HostQueue> hostQueues = new ConcurrentHashMap<>();
+    private int maxConcurrentFetchesPerHost;
+
+    /**
+     * Create a dispatcher.
+     *
+     * @param maxConcurrentFetchesPerHost number of executions running concurrently against a single Git host
+     */
+    public RemoteFetchHostDispatcher(int maxConcurrentFetchesPerHost) {
+
+        this.maxConcurrentFetchesPerHost = maxConcurrentFetchesPerHost;
+    }
+
+    /**
+     * Execute the task on the worker pool once the host of the configuration is below the concurrency cap.
+     *
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @param workerPool               worker pool executing the task
+     * @param isPrioritized            whether the task is dispatched before waiting tasks that are not prioritized
+     * @param task                     Task to execute
+     * @param droppedTaskHandler       called with the task if it is dropped while waiting, as the worker pool is
+     *                                 shut down
+     * @throws RejectedExecutionException if the worker pool is shut down
+     */
+    public void execute(RemoteFetchConfiguration remoteFetchConfiguration, ExecutorService workerPool,
+                        boolean isPrioritized, Runnable task, Consumer<Runnable> droppedTaskHandler) {
+
+        HostQueue hostQueue = this.hostQueues.computeIfAbsent(resolveHost(remoteFetchConfiguration),
+                host -> new HostQueue());
+        Execution execution = new Execution(workerPool, task, droppedTaskHandler);
+        synchronized (hostQueue) {
+            if (hostQueue.running >= this.maxConcurrentFetchesPerHost) {
+                (isPrioritized ? hostQueue.prioritizedPending : hostQueue.pending).add(execution);
+                return;
+            }
+            hostQueue.running++;
+        }
+        this.submit(hostQueue, execution);
+    }
+
+    private void submit(HostQueue hostQueue, Execution execution) {
+
+        try {
+            execution.workerPool.execute(() -> {
+                try {
+                    execution.task.run();
+                } finally {
+                    this.complete(hostQueue);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Worker pool is shutting down, drop the pending executions of the pool and pass the slot on.
+            List<Execution> droppedExecutions;
+            Execution nextExecution;
+            synchronized (hostQueue) {
+                droppedExecutions = hostQueue.removePending(execution.workerPool);
+                nextExecution = hostQueue.poll();
+                if (nextExecution == null) {
+                    hostQueue.running--;
+                }
+            }
+            droppedExecutions.forEach(Execution::drop);
+            if (nextExecution != null) {
+                this.submitOrDrop(hostQueue, nextExecution);
+            }
+            throw e;
+        }
+    }
+
+    private void complete(HostQueue hostQueue) {
+
+        Execution nextExecution;
+        synchronized (hostQueue) {
+            nextExecution = hostQueue.poll();
+            if (nextExecution == null) {
+                hostQueue.running--;
+                return;
+            }
+        }
+        this.submitOrDrop(hostQueue, nextExecution);
+    }
+
+    private void submitOrDrop(HostQueue hostQueue, Execution execution) {
+
+        try {
+            this.submit(hostQueue, execution);
+        } catch (RejectedExecutionException e) {
+            execution.drop();
+            log.warn("Worker pool rejected remote fetch execution", e);
+        }
+    }
+
+    /**
+     * Resolve the host of the remote repository, handling both URL and scp-like ssh (user@host:path) syntax.
+     *
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @return lower-cased host
+     */
+    private static String resolveHost(RemoteFetchConfiguration remoteFetchConfiguration) {
+
+        Map<String, String> attributes = remoteFetchConfiguration.getRepositoryManagerAttributes();
+        String uri = attributes == null ? null : attributes.get(RemoteFetchConstants.ID_UI_FIELD_URI);
+        if (StringUtils.isBlank(uri)) {
+            return UNKNOWN_HOST;
+        }
+        uri = uri.trim();
+        try {
+            String host = new URI(uri).getHost();
+            if (host != null) {
+                return host.toLowerCase(Locale.ENGLISH);
+            }
+        } catch (URISyntaxException e) {
+            // Not a URL, try scp-like syntax below.
+        }
+        String host = StringUtils.substringBefore(uri, ":");
+        if (host.contains("@")) {
+            host = StringUtils.substringAfterLast(host, "@");
+        }
+        return host.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Holds the number of running executions and the executions waiting for a host.
+     */
+    private static class HostQueue {
+
+        private int running;
+        private Deque<Execution> prioritizedPending = new ArrayDeque<>();
+        private Deque<Execution> pending = new ArrayDeque<>();
+
+        private Execution poll() {
+
+            Execution execution = this.prioritizedPending.poll();
+            return execution != null ? execution : this.pending.poll();
+        }
+
+        private List<Execution> removePending(ExecutorService workerPool) {
+
+            List<Execution> removedExecutions = new ArrayList<>();
+            for (Deque<Execution> executions : Arrays.asList(this.prioritizedPending, this.pending)) {
+                Iterator<Execution> iterator = executions.iterator();
+                while (iterator.hasNext()) {
+                    Execution execution = iterator.next();
+                    if (execution.workerPool == workerPool) {
+                        iterator.remove();
+                        removedExecutions.add(execution);
+                    }
+                }
+            }
+            return removedExecutions;
+        }
+    }
+
+    /**
+     * A task with the worker pool of its lane.
+     */
+    private static class Execution {
+
+        private ExecutorService workerPool;
+        private Runnable task;
+        private Consumer<Runnable> droppedTaskHandler;
+
+        private Execution(ExecutorService workerPool, Runnable task, Consumer<Runnable> droppedTaskHandler) {
+
+            this.workerPool = workerPool;
+            this.task = task;
+            this.droppedTaskHandler = droppedTaskHandler;
+        }
+
+        private void drop() {
+
+            this.droppedTaskHandler.accept(this.task);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Range of revisions covered by one or more pushes to a branch, with the files modified within it. The modified
+ * files are complete only while each push was made on the revision after the pushes merged before it, and at most
+ * {@link #MAX_MERGED_FILE_NAMES} files are kept.
+ */
+final class RemoteFetchPushRange {
+
+    static final int MAX_MERGED_FILE_NAMES = 3000;
+
+    private final String baseRevision;
+    private final String headRevision;
+    private final Set<String> modifiedFileNames;
+    private final boolean isComplete;
+
+    /**
+     * Create the range of a push.
+     *
+     * @param baseRevision      Revision the push was made on, or null
+     * @param headRevision      Revision after the push, or null
+     * @param modifiedFileNames Paths of files modified by the push, or null if unknown
+     * @param isComplete        whether the modified files are complete
+     */
+    RemoteFetchPushRange(String baseRevision, String headRevision, Collection<String> modifiedFileNames,
+                         boolean isComplete) {
+
+        this.baseRevision = baseRevision;
+        this.headRevision = headRevision;
+        this.modifiedFileNames = modifiedFileNames != null ? new LinkedHashSet<>(modifiedFileNames) :
+                new LinkedHashSet<>();
+        this.isComplete = isComplete && modifiedFileNames != null;
+    }
+
+    /**
+     * Merge the range of a later push. The merged range spans from the base revision of this range to the revision
+     * after the later push, and its modified files are the union of both, dropped once they exceed the maximum.
+     *
+     * @param laterRange Range of the later push
+     * @return Merged range
+     */
+    RemoteFetchPushRange merge(RemoteFetchPushRange laterRange) {
+
+        boolean isContiguous = this.headRevision != null && this.headRevision.equals(laterRange.baseRevision);
+        Set<String> mergedFileNames = new LinkedHashSet<>(this.modifiedFileNames);
+        mergedFileNames.addAll(laterRange.modifiedFileNames);
+        boolean isMergedComplete = this.isComplete && laterRange.isComplete && isContiguous &&
+                mergedFileNames.size() <= MAX_MERGED_FILE_NAMES;
+        if (mergedFileNames.size() > MAX_MERGED_FILE_NAMES) {
+            mergedFileNames.clear();
+        }
+        return new RemoteFetchPushRange(this.baseRevision, laterRange.headRevision, mergedFileNames,
+                isMergedComplete);
+    }
+
+    /**
+     * Get revision the first push was made on.
+     *
+     * @return baseRevision
+     */
+    String getBaseRevision() {
+
+        return this.baseRevision;
+    }
+
+    /**
+     * Get revision after the last push.
+     *
+     * @return headRevision
+     */
+    String getHeadRevision() {
+
+        return this.headRevision;
+    }
+
+    /**
+     * Get paths of files modified by the pushes, empty once dropped.
+     *
+     * @return modifiedFileNames
+     */
+    List<String> getModifiedFileNames() {
+
+        return new ArrayList<>(this.modifiedFileNames);
+    }
+
+    /**
+     * Get whether the modified files are complete.
+     *
+     * @return isComplete
+     */
+    boolean isComplete() {
+
+        return this.isComplete;
+    }
+}
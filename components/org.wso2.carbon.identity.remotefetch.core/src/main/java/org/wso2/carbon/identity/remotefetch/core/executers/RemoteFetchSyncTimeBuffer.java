@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.core.dao.DeploymentRevisionDAO;
+import org.wso2.carbon.identity.remotefetch.core.dao.impl.DeploymentRevisionDAOImpl;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer of the last synchronized date of configurations. The last synchronized date is a heartbeat
+ * rather than a deployment fact, so poll cycles record it here, and it is written to the database periodically and
+ * on shutdown instead of on every cycle.
+ */
+public class RemoteFetchSyncTimeBuffer {
+
+    private static final Log log = LogFactory.getLog(RemoteFetchSyncTimeBuffer.class);
+
+    private Map<String, Date> pendingSyncTimes = new ConcurrentHashMap<>();
+    private DeploymentRevisionDAO deploymentRevisionDAO;
+
+    public RemoteFetchSyncTimeBuffer() {
+
+        this.deploymentRevisionDAO = new DeploymentRevisionDAOImpl();
+    }
+
+    /**
+     * Record the last synchronized date of all DeploymentRevisions of a configuration.
+     *
+     * @param remoteFetchConfigurationId RemoteFetchConfiguration id
+     * @param lastSynchronizedDate       Last synchronized date
+     */
+    public void record(String remoteFetchConfigurationId, Date lastSynchronizedDate) {
+
+        this.pendingSyncTimes.merge(remoteFetchConfigurationId, lastSynchronizedDate,
+                (currentDate, newDate) -> newDate.after(currentDate) ? newDate : currentDate);
+    }
+
+    /**
+     * Get the last synchronized date of a configuration not yet written to the database.
+     *
+     * @param remoteFetchConfigurationId RemoteFetchConfiguration id
+     * @return Last synchronized date, or null if none is pending
+     */
+    public Date getPendingSyncTime(String remoteFetchConfigurationId) {
+
+        return this.pendingSyncTimes.get(remoteFetchConfigurationId);
+    }
+
+    /**
+     * Discard the pending last synchronized date of a deleted configuration.
+     *
+     * @param remoteFetchConfigurationId RemoteFetchConfiguration id
+     */
+    public void remove(String remoteFetchConfigurationId) {
+
+        this.pendingSyncTimes.remove(remoteFetchConfigurationId);
+    }
+
+    /**
+     * Write pending last synchronized dates to the database in a single batch. Dates recorded while flushing are
+     * kept for the next flush, and all dates are kept if the write fails.
+     */
+    public void flush() {
+
+        Map<String, Date> syncTimes = new HashMap<>(this.pendingSyncTimes);
+        if (syncTimes.isEmpty()) {
+            return;
+        }
+        try {
+            this.deploymentRevisionDAO.updateLastSynchronizedDates(syncTimes);
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to write last synchronized dates of " + syncTimes.size() + " configurations", e);
+            return;
+        }
+        for (Map.Entry<String, Date> syncTime : syncTimes.entrySet()) {
+            this.pendingSyncTimes.remove(syncTime.getKey(), syncTime.getValue());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Written last synchronized dates of " + syncTimes.size() + " configurations");
+        }
+    }
+}
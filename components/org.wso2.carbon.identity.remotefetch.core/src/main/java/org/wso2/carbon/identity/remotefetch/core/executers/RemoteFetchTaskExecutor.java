@@ -21,43 +21,198 @@ package org.wso2.carbon.identity.remotefetch.core.executers;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchCoreConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.WebHookEventStatus;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 import org.wso2.carbon.identity.remotefetch.core.executers.tasks.RemoteFetchConfigurationBatchTask;
 import org.wso2.carbon.identity.remotefetch.core.executers.tasks.RemoteFetchConfigurationImmediateTask;
+import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.ActionListenerImpl;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * The execution engine for Fetching the artifacts from remote repository and loads it to the system.
  * This execution engine has functions to start batch task and immediate task.
- * This execution engine starts batch task at component activation and schedule at fixed rate.
+ * This execution engine starts batch task at component activation and schedule at fixed rate to discover
+ * configurations, which are then scheduled individually on their polling frequency.
  * {@link RemoteFetchConfigurationBatchTask}
  * This execution engine starts immediate task when OSGi trigger service called.
  * {@link RemoteFetchConfigurationImmediateTask}
+ * Batch and immediate executions run concurrently on separate lanes, capped together per Git host.
+ * {@link RemoteFetchExecutorLane}
+ * Both tasks share warm ActionListeners through a listener cache.
+ * {@link RemoteFetchActionListenerCache}
+ * Immediate triggers of a configuration arriving within its debounce window are collapsed into one run.
+ * {@link RemoteFetchTriggerDebouncer}
  */
 public class RemoteFetchTaskExecutor {
 
     private static final Log log = LogFactory.getLog(RemoteFetchTaskExecutor.class);
 
     private ScheduledExecutorService scheduler;
+    private ExecutorService maintenanceWorker;
+    private RemoteFetchExecutorLane batchLane;
+    private RemoteFetchExecutorLane immediateLane;
+    private RemoteFetchSyncTimeBuffer syncTimeBuffer;
     private RemoteFetchConfigurationBatchTask remoteFetchConfigurationBatchTask;
+    private RemoteFetchCycleGate cycleGate = new RemoteFetchCycleGate();
+    private RemoteFetchActionListenerCache listenerCache = new RemoteFetchActionListenerCache();
+    private RemoteFetchWebHookQueue webHookQueue;
+    private RemoteFetchTriggerDebouncer triggerDebouncer;
 
     public RemoteFetchTaskExecutor() {
 
     }
 
+    /**
+     * Create the scheduler, which only dispatches due work, and the workers running periodic discovery, flushes and
+     * metrics off the scheduler thread. Each periodic task has at most one run in flight, so the workers are bounded
+     * by the number of periodic tasks and a slow task does not delay the others.
+     */
     public void createScheduler() {
 
         scheduler = Executors.newScheduledThreadPool(1);
+        maintenanceWorker = Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Run a periodic task on the maintenance workers. The next run is scheduled once the previous run completes, so
+     * a slow run neither blocks the scheduler thread nor queues up runs.
+     *
+     * @param task         Task to run
+     * @param initialDelay delay of the first run in seconds
+     * @param delay        delay between the end of a run and the start of the next in seconds
+     */
+    private void scheduleMaintenance(Runnable task, long initialDelay, long delay) {
+
+        try {
+            scheduler.schedule(() -> maintenanceWorker.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Error running remote fetch maintenance task", e);
+                } finally {
+                    scheduleMaintenance(task, delay, delay);
+                }
+            }), initialDelay, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Scheduler is shutting down.
+        }
     }
 
     /**
-     * Shutdown scheduler while deactivating the component.
+     * Create the batch and immediate lanes, so immediate and web hook executions never wait behind batch polling.
+     * Both lanes share one per host cap, and immediate executions waiting for a host go before batch executions.
+     * In virtual thread execution mode each configuration runs on its own virtual thread, bounded only by the per
+     * host cap, when the runtime supports it. Otherwise bounded pools of platform threads are used.
+     *
+     * @param fetchCoreConfiguration RemoteFetchCoreConfiguration
+     */
+    public void createWorkerPool(RemoteFetchCoreConfiguration fetchCoreConfiguration) {
+
+        RemoteFetchHostDispatcher hostDispatcher =
+                new RemoteFetchHostDispatcher(fetchCoreConfiguration.getMaxConcurrentFetchesPerHost());
+        // Batch executions are bounded by the number of configurations, as each has at most one in flight.
+        batchLane = new RemoteFetchExecutorLane("batch",
+                createWorkerPool(fetchCoreConfiguration, fetchCoreConfiguration.getWorkerPoolSize()),
+                hostDispatcher, false, Integer.MAX_VALUE);
+        immediateLane = new RemoteFetchExecutorLane("immediate",
+                createWorkerPool(fetchCoreConfiguration, fetchCoreConfiguration.getImmediateWorkerPoolSize()),
+                hostDispatcher, true, fetchCoreConfiguration.getImmediateQueueLimit());
+        triggerDebouncer = new RemoteFetchTriggerDebouncer(scheduler, fetchCoreConfiguration.getDebounceWindow(),
+                this::submitImmediateTask);
+    }
+
+    private static ExecutorService createWorkerPool(RemoteFetchCoreConfiguration fetchCoreConfiguration,
+                                                    int poolSize) {
+
+        ExecutorService workerPool = null;
+        if (fetchCoreConfiguration.isVirtualThreadExecution()) {
+            workerPool = createVirtualThreadExecutor();
+        }
+        if (workerPool == null) {
+            workerPool = Executors.newFixedThreadPool(poolSize);
+        }
+        return workerPool;
+    }
+
+    /**
+     * Create the queue of web hooks processed asynchronously, and start its workers.
+     *
+     * @param fetchCoreConfiguration RemoteFetchCoreConfiguration
+     * @param processor              Processor of queued web hooks
+     */
+    public void createWebHookQueue(RemoteFetchCoreConfiguration fetchCoreConfiguration,
+                                   RemoteFetchWebHookQueue.WebHookProcessor processor) {
+
+        webHookQueue = new RemoteFetchWebHookQueue(fetchCoreConfiguration.getWebHookQueueLimit(),
+                fetchCoreConfiguration.getWebHookWorkerPoolSize(), processor);
+    }
+
+    /**
+     * Create the write-behind buffer of last synchronized dates and schedule its periodic flush.
+     *
+     * @param fetchCoreConfiguration RemoteFetchCoreConfiguration
+     */
+    public void startSyncTimeFlushExecution(RemoteFetchCoreConfiguration fetchCoreConfiguration) {
+
+        syncTimeBuffer = new RemoteFetchSyncTimeBuffer();
+        RemoteFetchServiceComponentHolder.getInstance().setSyncTimeBuffer(syncTimeBuffer);
+        int flushInterval = fetchCoreConfiguration.getSyncTimeFlushInterval();
+        scheduleMaintenance(syncTimeBuffer::flush, flushInterval, flushInterval);
+    }
+
+    /**
+     * Create a virtual thread per task executor reflectively, as the component is built for runtimes without
+     * virtual threads.
+     *
+     * @return ExecutorService or null if the runtime does not support virtual threads
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+
+        try {
+            Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executorService = (ExecutorService) factoryMethod.invoke(null);
+            if (log.isDebugEnabled()) {
+                log.debug("Remote fetch configurations are executed on virtual threads.");
+            }
+            return executorService;
+        } catch (NoSuchMethodException e) {
+            log.warn("Virtual threads are not supported by the runtime, falling back to platform threads.");
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            log.warn("Unable to create virtual thread executor, falling back to platform threads.", e);
+        }
+        return null;
+    }
+
+    /**
+     * Shutdown scheduler, lanes and web hook queue, and write buffered last synchronized dates, while deactivating
+     * the component.
      */
     public void shutdownScheduler() {
 
         scheduler.shutdown();
+        maintenanceWorker.shutdown();
+        if (batchLane != null) {
+            batchLane.shutdown();
+        }
+        if (immediateLane != null) {
+            immediateLane.shutdown();
+        }
+        if (webHookQueue != null) {
+            webHookQueue.shutdown();
+        }
+        if (syncTimeBuffer != null) {
+            syncTimeBuffer.flush();
+        }
     }
 
     /**
@@ -65,26 +220,95 @@ public class RemoteFetchTaskExecutor {
      */
     public void startBatchTaskExecution() {
 
-        remoteFetchConfigurationBatchTask = new RemoteFetchConfigurationBatchTask();
-        scheduler.scheduleAtFixedRate(remoteFetchConfigurationBatchTask, 0, (60 * 1), TimeUnit.SECONDS);
+        remoteFetchConfigurationBatchTask = new RemoteFetchConfigurationBatchTask(cycleGate, listenerCache,
+                batchLane, scheduler);
+        scheduleMaintenance(remoteFetchConfigurationBatchTask, 0, (60 * 1));
+        scheduleMaintenance(this::logExecutionMetrics, 60, 60);
         log.info("Batch Task is scheduled.");
     }
 
     /**
-     * Schedule immediate task execution when OSGi trigger service called.
+     * Log the metrics of the lanes and the number of polls skipped as the repository was unchanged, at debug level.
+     */
+    private void logExecutionMetrics() {
+
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        batchLane.logMetrics();
+        immediateLane.logMetrics();
+        log.debug("Remote fetch polls skipped as the repository was unchanged: " +
+                ActionListenerImpl.getSkippedPollCount());
+    }
+
+    /**
+     * Schedule immediate task execution when OSGi trigger service called. Triggers within the debounce window of
+     * the configuration are collapsed into one run.
+     *
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @return false if the immediate lane queue is full and the task was rejected
+     */
+    public boolean startImmediateTaskExecution(RemoteFetchConfiguration remoteFetchConfiguration) {
+
+        return triggerDebouncer.trigger(remoteFetchConfiguration, null, null, null);
+    }
+
+    /**
+     * Schedule immediate task execution deploying only the files modified by a web hook push. Pushes within the
+     * debounce window of the configuration are collapsed into one run.
      *
      * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @param baseRevision             Revision the push was made on
+     * @param headRevision             Revision after the push
+     * @param modifiedFileNames        Paths of files modified by the push
+     * @return false if the immediate lane queue is full and the task was rejected
      */
-    public void startImmediateTaskExecution(RemoteFetchConfiguration remoteFetchConfiguration) {
+    public boolean startImmediateTaskExecution(RemoteFetchConfiguration remoteFetchConfiguration,
+                                               String baseRevision, String headRevision,
+                                               List<String> modifiedFileNames) {
+
+        return triggerDebouncer.trigger(remoteFetchConfiguration, baseRevision, headRevision, modifiedFileNames);
+    }
 
-        RemoteFetchConfigurationImmediateTask remoteFetchConfigurationImmediateTask =
-                new RemoteFetchConfigurationImmediateTask(remoteFetchConfiguration);
+    private boolean submitImmediateTask(RemoteFetchConfiguration remoteFetchConfiguration, String baseRevision,
+                                        String headRevision, List<String> modifiedFileNames) {
 
-        scheduler.schedule(remoteFetchConfigurationImmediateTask, 0, TimeUnit.SECONDS);
+        RemoteFetchConfigurationImmediateTask remoteFetchConfigurationImmediateTask = modifiedFileNames != null ?
+                new RemoteFetchConfigurationImmediateTask(remoteFetchConfiguration, cycleGate, listenerCache,
+                        baseRevision, headRevision, modifiedFileNames) :
+                new RemoteFetchConfigurationImmediateTask(remoteFetchConfiguration, cycleGate, listenerCache);
+        if (!immediateLane.submit(remoteFetchConfiguration, remoteFetchConfigurationImmediateTask)) {
+            return false;
+        }
         if (log.isDebugEnabled()) {
             log.debug("Immediate Task is scheduled for remote fetch configuration "
                     + remoteFetchConfiguration.getRemoteFetchConfigurationId());
         }
+        return true;
+    }
+
+    /**
+     * Queue a web hook to be matched and scheduled asynchronously.
+     *
+     * @param webHookEvent RemoteFetchWebHookEvent
+     * @return Event id of the web hook
+     * @throws RemoteFetchCoreException if the web hook queue is full
+     */
+    public String submitWebHook(RemoteFetchWebHookEvent webHookEvent) throws RemoteFetchCoreException {
+
+        return webHookQueue.submit(webHookEvent);
+    }
+
+    /**
+     * Get the status of a queued web hook event of the tenant.
+     *
+     * @param eventId  Event id
+     * @param tenantId Tenant id
+     * @return Status, or null if the event is unknown or no longer tracked
+     */
+    public WebHookEventStatus getWebHookEventStatus(String eventId, int tenantId) {
+
+        return webHookQueue.getStatus(eventId, tenantId);
     }
 
     /**
@@ -97,5 +321,13 @@ public class RemoteFetchTaskExecutor {
         if (remoteFetchConfigurationBatchTask != null) {
             remoteFetchConfigurationBatchTask.deleteRemoteFetchConfiguration(id);
         }
+        listenerCache.remove(id);
+        cycleGate.remove(id);
+        if (triggerDebouncer != null) {
+            triggerDebouncer.remove(id);
+        }
+        if (syncTimeBuffer != null) {
+            syncTimeBuffer.remove(id);
+        }
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapses the immediate and web hook triggers of a configuration arriving within its debounce window into one
+ * run. The window opens with the first trigger and is not extended by later ones, so a steady stream of pushes
+ * still deploys once per window. The run fetches the newest HEAD, scoped to the union of the pushed files when
+ * the pushes were contiguous, otherwise over the whole directory.
+ */
+public class RemoteFetchTriggerDebouncer {
+
+    private static final Log log = LogFactory.getLog(RemoteFetchTriggerDebouncer.class);
+
+    private final Map<String, PendingTrigger> pendingTriggers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final int defaultWindow;
+    private final TriggerSubmitter submitter;
+
+    /**
+     * Submits a run of a configuration once its debounce window closes.
+     */
+    @FunctionalInterface
+    public interface TriggerSubmitter {
+
+        /**
+         * Submit a run of the configuration.
+         *
+         * @param config            RemoteFetchConfiguration
+         * @param baseRevision      Revision the pushes were made on, or null
+         * @param headRevision      Revision after the pushes, or null
+         * @param modifiedFileNames Paths of files modified by the pushes, or null to run over the whole directory
+         * @return false if the run was rejected
+         */
+        boolean submit(RemoteFetchConfiguration config, String baseRevision, String headRevision,
+                       List<String> modifiedFileNames);
+    }
+
+    /**
+     * Create a debouncer.
+     *
+     * @param scheduler     Scheduler closing the windows
+     * @param defaultWindow Window in seconds of configurations not setting one, 0 to submit triggers directly
+     * @param submitter     Submitter of the collapsed runs
+     */
+    public RemoteFetchTriggerDebouncer(ScheduledExecutorService scheduler, int defaultWindow,
+                                       TriggerSubmitter submitter) {
+
+        this.scheduler = scheduler;
+        this.defaultWindow = defaultWindow;
+        this.submitter = submitter;
+    }
+
+    /**
+     * Trigger a run of the configuration, collapsed with the other triggers arriving within its debounce window.
+     *
+     * @param config            RemoteFetchConfiguration
+     * @param baseRevision      Revision the push was made on, or null
+     * @param headRevision      Revision after the push, or null
+     * @param modifiedFileNames Paths of files modified by the push, or null to run over the whole directory
+     * @return false if the run was rejected
+     */
+    public boolean trigger(RemoteFetchConfiguration config, String baseRevision, String headRevision,
+                           List<String> modifiedFileNames) {
+
+        int window = getDebounceWindow(config);
+        if (window <= 0) {
+            return this.submitter.submit(config, baseRevision, headRevision, modifiedFileNames);
+        }
+        String configurationId = config.getRemoteFetchConfigurationId();
+        boolean[] isWindowOpened = new boolean[1];
+        this.pendingTriggers.compute(configurationId, (id, pendingTrigger) -> {
+            if (pendingTrigger == null) {
+                isWindowOpened[0] = true;
+                return new PendingTrigger(config, baseRevision, headRevision, modifiedFileNames);
+            }
+            pendingTrigger.merge(config, baseRevision, headRevision, modifiedFileNames);
+            return pendingTrigger;
+        });
+        if (isWindowOpened[0]) {
+            try {
+                this.scheduler.schedule(() -> this.closeWindow(configurationId), window, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException e) {
+                // Scheduler is shutting down.
+                this.pendingTriggers.remove(configurationId);
+                return false;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Debouncing triggers of remote fetch configuration " + configurationId + " for " +
+                        window + " seconds.");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drop the pending triggers of a deleted configuration.
+     *
+     * @param id RemoteFetchConfiguration id
+     */
+    public void remove(String id) {
+
+        this.pendingTriggers.remove(id);
+    }
+
+    /**
+     * Submit the collapsed run of a configuration. Triggers arriving after this open a new window.
+     *
+     * @param configurationId RemoteFetchConfiguration id
+     */
+    private void closeWindow(String configurationId) {
+
+        PendingTrigger pendingTrigger = this.pendingTriggers.remove(configurationId);
+        if (pendingTrigger == null) {
+            return;
+        }
+        RemoteFetchPushRange pushRange = pendingTrigger.pushRange;
+        List<String> modifiedFileNames = pushRange.isComplete() ? pushRange.getModifiedFileNames() : null;
+        if (!this.submitter.submit(pendingTrigger.config, pushRange.getBaseRevision(), pushRange.getHeadRevision(),
+                modifiedFileNames)) {
+            log.warn("Immediate execution queue is full, dropped debounced run of remote fetch configuration " +
+                    configurationId);
+        }
+    }
+
+    /**
+     * Get the debounce window of a configuration from its action listener attributes, or the default window.
+     *
+     * @param config RemoteFetchConfiguration
+     * @return window in seconds
+     */
+    private int getDebounceWindow(RemoteFetchConfiguration config) {
+
+        Map<String, String> attributes = config.getActionListenerAttributes();
+        String window = attributes != null ? attributes.get(RemoteFetchConstants.ATTRIBUTE_DEBOUNCE_WINDOW) : null;
+        if (StringUtils.isBlank(window)) {
+            return this.defaultWindow;
+        }
+        try {
+            return Integer.parseInt(window.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid debounce window " + window + " of remote fetch configuration " +
+                    config.getRemoteFetchConfigurationId() + ", using the default window.");
+            return this.defaultWindow;
+        }
+    }
+
+    /**
+     * Triggers of a configuration collapsed within an open window. Only accessed inside compute of the pending
+     * triggers map, or after being removed from it.
+     */
+    private static class PendingTrigger {
+
+        private RemoteFetchConfiguration config;
+        private RemoteFetchPushRange pushRange;
+
+        PendingTrigger(RemoteFetchConfiguration config, String baseRevision, String headRevision,
+                       List<String> modifiedFileNames) {
+
+            this.config = config;
+            this.pushRange = new RemoteFetchPushRange(baseRevision, headRevision, modifiedFileNames, true);
+        }
+
+        /**
+         * Merge a later trigger. The run stays scoped to the pushed files only if the later push was made on the
+         * revision after the pushes merged so far, otherwise it runs over the whole directory.
+         *
+         * @param laterConfig            RemoteFetchConfiguration of the later trigger
+         * @param laterBaseRevision      Revision the later push was made on, or null
+         * @param laterHeadRevision      Revision after the later push, or null
+         * @param laterModifiedFileNames Paths of files modified by the later push, or null
+         */
+        void merge(RemoteFetchConfiguration laterConfig, String laterBaseRevision, String laterHeadRevision,
+                   List<String> laterModifiedFileNames) {
+
+            this.config = laterConfig;
+            this.pushRange = this.pushRange.merge(new RemoteFetchPushRange(laterBaseRevision, laterHeadRevision,
+                    laterModifiedFileNames, true));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.WebHookRoutingIndex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Web hook push queued for asynchronous processing. Pushes of the same repository and branch queued before they are
+ * processed are merged into a single event.
+ */
+public class RemoteFetchWebHookEvent {
+
+    private final int tenantId;
+    private final String url;
+    private final String branch;
+    private final List<String> modifiedFileNames;
+    private final String beforeRevision;
+    private final String afterRevision;
+    private final boolean isTruncated;
+
+    public RemoteFetchWebHookEvent(int tenantId, String url, String branch, List<String> modifiedFileNames,
+                                   String beforeRevision, String afterRevision, boolean isTruncated) {
+
+        this.tenantId = tenantId;
+        this.url = url;
+        this.branch = branch;
+        this.modifiedFileNames = modifiedFileNames != null ? modifiedFileNames : Collections.emptyList();
+        this.beforeRevision = beforeRevision;
+        this.afterRevision = afterRevision;
+        this.isTruncated = isTruncated;
+    }
+
+    /**
+     * Get the key web hooks are merged on, the tenant with the normalized repository URI and branch.
+     *
+     * @return Merge key
+     */
+    public String getMergeKey() {
+
+        return this.tenantId + ":" + WebHookRoutingIndex.toRouteKey(this.url, this.branch);
+    }
+
+    /**
+     * Merge a later push of the same repository and branch into this event. The merged event spans from the base
+     * revision of this push to the revision after the later push. The modified files of the merged event are only
+     * complete if the later push was made on the revision after this push, otherwise it is marked truncated.
+     *
+     * @param laterEvent Later push of the same repository and branch
+     * @return Merged event
+     */
+    public RemoteFetchWebHookEvent merge(RemoteFetchWebHookEvent laterEvent) {
+
+        RemoteFetchPushRange mergedRange = this.getPushRange().merge(laterEvent.getPushRange());
+        // Truncated events are routed to all directories, so file names dropped over the maximum are not needed.
+        return new RemoteFetchWebHookEvent(this.tenantId, laterEvent.url, laterEvent.branch,
+                mergedRange.getModifiedFileNames(), mergedRange.getBaseRevision(), mergedRange.getHeadRevision(),
+                !mergedRange.isComplete());
+    }
+
+    private RemoteFetchPushRange getPushRange() {
+
+        return new RemoteFetchPushRange(this.beforeRevision, this.afterRevision, this.modifiedFileNames,
+                !this.isTruncated);
+    }
+
+    /**
+     * Get tenant id of the web hook.
+     *
+     * @return tenantId
+     */
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    /**
+     * Get remote repository clone url.
+     *
+     * @return url
+     */
+    public String getUrl() {
+
+        return url;
+    }
+
+    /**
+     * Get remote repository branch.
+     *
+     * @return branch
+     */
+    public String getBranch() {
+
+        return branch;
+    }
+
+    /**
+     * Get paths of files modified by the push.
+     *
+     * @return modifiedFileNames
+     */
+    public List<String> getModifiedFileNames() {
+
+        return modifiedFileNames;
+    }
+
+    /**
+     * Get revision of the branch before the push.
+     *
+     * @return beforeRevision
+     */
+    public String getBeforeRevision() {
+
+        return beforeRevision;
+    }
+
+    /**
+     * Get revision of the branch after the push.
+     *
+     * @return afterRevision
+     */
+    public String getAfterRevision() {
+
+        return afterRevision;
+    }
+
+    /**
+     * Get whether the modified file names are incomplete.
+     *
+     * @return isTruncated
+     */
+    public boolean isTruncated() {
+
+        return isTruncated;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
+import org.wso2.carbon.identity.remotefetch.common.WebHookEventStatus;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bounded queue of web hooks processed asynchronously by a pool of workers, so web hook requests are acknowledged
+ * without waiting for matching and scheduling. A web hook for a repository and branch already waiting in the queue is
+ * merged into the waiting one, so a burst of pushes is processed once. Each submitted web hook gets an event id to
+ * look up its status, and statuses of the most recent events are tracked.
+ */
+public class RemoteFetchWebHookQueue {
+
+    private static final Log log = LogFactory.getLog(RemoteFetchWebHookQueue.class);
+    private static final int MAX_TRACKED_EVENTS = 10000;
+
+    private final Object lock = new Object();
+    private BlockingQueue<QueuedWebHook> queue;
+    private ExecutorService workerPool;
+    private WebHookProcessor processor;
+    // Web hooks waiting in the queue keyed by merge key, guarded by lock.
+    private Map<String, QueuedWebHook> waitingWebHooks = new HashMap<>();
+    // Web hooks of the most recent event ids, guarded by lock.
+    private Map<String, QueuedWebHook> trackedEvents = new LinkedHashMap<String, QueuedWebHook>() {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueuedWebHook> eldest) {
+
+            return size() > MAX_TRACKED_EVENTS;
+        }
+    };
+
+    /**
+     * Processes a web hook taken from the queue.
+     */
+    public interface WebHookProcessor {
+
+        /**
+         * Process the web hook.
+         *
+         * @param webHookEvent RemoteFetchWebHookEvent
+         * @throws RemoteFetchCoreException RemoteFetchCoreException
+         */
+        void process(RemoteFetchWebHookEvent webHookEvent) throws RemoteFetchCoreException;
+    }
+
+    /**
+     * Creates the queue and starts its workers.
+     *
+     * @param queueLimit     Number of web hooks of distinct repositories and branches waiting before rejecting
+     * @param workerPoolSize Number of workers
+     * @param processor      Processor of web hooks
+     */
+    public RemoteFetchWebHookQueue(int queueLimit, int workerPoolSize, WebHookProcessor processor) {
+
+        this.queue = new ArrayBlockingQueue<>(queueLimit);
+        this.processor = processor;
+        this.workerPool = Executors.newFixedThreadPool(workerPoolSize);
+        for (int i = 0; i < workerPoolSize; i++) {
+            this.workerPool.execute(this::drain);
+        }
+    }
+
+    /**
+     * Queue a web hook, merging it into a web hook of the same repository and branch waiting in the queue.
+     *
+     * @param webHookEvent RemoteFetchWebHookEvent
+     * @return Event id of the web hook
+     * @throws RemoteFetchCoreException if the queue is full
+     */
+    public String submit(RemoteFetchWebHookEvent webHookEvent) throws RemoteFetchCoreException {
+
+        String eventId = RemoteFetchConfigurationUtils.generateUniqueID();
+        String mergeKey = webHookEvent.getMergeKey();
+        synchronized (this.lock) {
+            QueuedWebHook queuedWebHook = this.waitingWebHooks.get(mergeKey);
+            if (queuedWebHook != null) {
+                queuedWebHook.webHookEvent = queuedWebHook.webHookEvent.merge(webHookEvent);
+                if (log.isDebugEnabled()) {
+                    log.debug("Web hook event " + eventId + " merged into waiting web hook of " + mergeKey);
+                }
+            } else {
+                queuedWebHook = new QueuedWebHook(mergeKey, webHookEvent);
+                if (!this.queue.offer(queuedWebHook)) {
+                    throw RemoteFetchConfigurationUtils.handleServerException(
+                            RemoteFetchConstants.ErrorMessage.ERROR_CODE_WEB_HOOK_QUEUE_FULL, webHookEvent.getUrl());
+                }
+                this.waitingWebHooks.put(mergeKey, queuedWebHook);
+            }
+            this.trackedEvents.put(eventId, queuedWebHook);
+        }
+        return eventId;
+    }
+
+    /**
+     * Get the status of a web hook event submitted by the tenant.
+     *
+     * @param eventId  Event id
+     * @param tenantId Tenant id
+     * @return Status, or null if the event is unknown, no longer tracked or of another tenant
+     */
+    public WebHookEventStatus getStatus(String eventId, int tenantId) {
+
+        synchronized (this.lock) {
+            QueuedWebHook queuedWebHook = this.trackedEvents.get(eventId);
+            if (queuedWebHook == null || queuedWebHook.webHookEvent.getTenantId() != tenantId) {
+                return null;
+            }
+            return queuedWebHook.status;
+        }
+    }
+
+    /**
+     * Stop the workers. Web hooks waiting in the queue are discarded.
+     */
+    public void shutdown() {
+
+        this.workerPool.shutdownNow();
+    }
+
+    /**
+     * Take and process web hooks from the queue until the worker is interrupted.
+     */
+    private void drain() {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedWebHook queuedWebHook;
+            try {
+                queuedWebHook = this.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            this.process(queuedWebHook);
+        }
+    }
+
+    /**
+     * Process a web hook taken from the queue. It stops accepting merges first, so later web hooks of the same
+     * repository and branch are queued to be processed after it.
+     *
+     * @param queuedWebHook QueuedWebHook
+     */
+    private void process(QueuedWebHook queuedWebHook) {
+
+        RemoteFetchWebHookEvent webHookEvent;
+        synchronized (this.lock) {
+            this.waitingWebHooks.remove(queuedWebHook.mergeKey, queuedWebHook);
+            queuedWebHook.status = WebHookEventStatus.PROCESSING;
+            webHookEvent = queuedWebHook.webHookEvent;
+        }
+        WebHookEventStatus status = WebHookEventStatus.COMPLETED;
+        try {
+            this.processor.process(webHookEvent);
+        } catch (RemoteFetchCoreException | RuntimeException e) {
+            log.error("Error processing web hook of " + queuedWebHook.mergeKey, e);
+            status = WebHookEventStatus.FAILED;
+        }
+        synchronized (this.lock) {
+            queuedWebHook.status = status;
+        }
+    }
+
+    /**
+     * Holds a queued web hook with the status shared by all events merged into it.
+     */
+    private static class QueuedWebHook {
+
+        private final String mergeKey;
+        private RemoteFetchWebHookEvent webHookEvent;
+        private WebHookEventStatus status = WebHookEventStatus.QUEUED;
+
+        private QueuedWebHook(String mergeKey, RemoteFetchWebHookEvent webHookEvent) {
+
+            this.mergeKey = mergeKey;
+            this.webHookEvent = webHookEvent;
+        }
+    }
+}
@@ -20,296 +20,246 @@ package org.wso2.carbon.identity.remotefetch.core.executers.tasks;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.remotefetch.common.RemoteFetchComponentRegistry;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfigurationService;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
 import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListener;
-import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilder;
-import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilderException;
-import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerComponent;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerBuilder;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerBuilderException;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerComponent;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilder;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilderException;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerComponent;
+import org.wso2.carbon.identity.remotefetch.core.dao.RemoteFetchConfigurationDAO;
+import org.wso2.carbon.identity.remotefetch.core.dao.impl.RemoteFetchConfigurationDAOImpl;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchActionListenerCache;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchCycleGate;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchExecutorLane;
+import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.polling.PollingActionListener;
 import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
 
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Retrieves RemoteFetchConfigurations and builds ActionListeners to be executed.
+ * Each configuration is scheduled on its own deadline and rescheduled after each run with its polling frequency.
+ * <p>
+ * Configuration versions are taken from a counter in the database and become visible in increasing order, so the
+ * incremental reload only reads versions above the highest version seen.
  */
 public class RemoteFetchConfigurationBatchTask implements Runnable {
 
     private static final Log log = LogFactory.getLog(RemoteFetchConfigurationBatchTask.class);
+    private static final long MINIMUM_FREQUENCY = 1;
+    private static final long DEFAULT_FREQUENCY = 60;
+    private static final int FULL_RELOAD_INTERVAL = 60;
     private RemoteFetchConfigurationService fetchConfigurationService;
-    private Map<String, RemoteFetchConfiguration> remoteFetchConfigurationMap = new HashMap<>();
-    private Map<String, ActionListener> actionListenerMap = new HashMap<>();
-    private RemoteFetchComponentRegistry componentRegistry;
-
-    public RemoteFetchConfigurationBatchTask() {
-
-        this.componentRegistry = RemoteFetchServiceComponentHolder.getInstance().getRemoteFetchComponentRegistry();
+    private RemoteFetchConfigurationDAO fetchConfigurationDAO = new RemoteFetchConfigurationDAOImpl();
+    private long loadedVersion = -1;
+    private int runsSinceFullReload;
+    private Map<String, RemoteFetchConfiguration> remoteFetchConfigurationMap = new ConcurrentHashMap<>();
+    private Set<String> inFlightConfigurations = ConcurrentHashMap.newKeySet();
+    private Map<String, ScheduledFuture<?>> scheduledRuns = new ConcurrentHashMap<>();
+    private RemoteFetchCycleGate cycleGate;
+    private RemoteFetchActionListenerCache listenerCache;
+    private RemoteFetchExecutorLane batchLane;
+    private ScheduledExecutorService scheduler;
+
+    public RemoteFetchConfigurationBatchTask(RemoteFetchCycleGate cycleGate,
+                                             RemoteFetchActionListenerCache listenerCache,
+                                             RemoteFetchExecutorLane batchLane, ScheduledExecutorService scheduler) {
+
+        this.cycleGate = cycleGate;
+        this.listenerCache = listenerCache;
+        this.batchLane = batchLane;
+        this.scheduler = scheduler;
         this.fetchConfigurationService = RemoteFetchServiceComponentHolder.getInstance()
                 .getRemoteFetchConfigurationService();
     }
 
     /**
-     * Builds ActionListener object from RemoteFetchConfiguration.
-     *
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return ActionListener
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private ActionListener buildListener(RemoteFetchConfiguration remoteFetchConfiguration)
-            throws RemoteFetchCoreException {
-
-        RepositoryManager repositoryManager = buildRepositoryManager(remoteFetchConfiguration);
-        ConfigDeployer configDeployer = buildConfigDeployer(remoteFetchConfiguration);
-        return buildActionListener(configDeployer, repositoryManager, remoteFetchConfiguration);
-    }
-
-    /**
-     * This method is used to build repository manager for particular remote fetch configuration.
-     *
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return RepositoryManager
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     * Load RemoteFetch Configurations from database and builds ActionListeners or re-builds if updated.
+     * Only configurations written since the last loaded version are read. Every FULL_RELOAD_INTERVAL runs all
+     * configurations are reloaded, to drop configurations deleted by other nodes.
      */
-    private RepositoryManager buildRepositoryManager(RemoteFetchConfiguration remoteFetchConfiguration)
-            throws RemoteFetchCoreException {
+    private void loadListeners() {
 
-        RepositoryManagerComponent repositoryManagerComponent =
-                getRepositoryManagerComponentFromRegistry(remoteFetchConfiguration);
-        if (repositoryManagerComponent != null) {
-            return buildRepositoryManagerFromComponent(repositoryManagerComponent, remoteFetchConfiguration);
+        if (this.loadedVersion < 0 || ++this.runsSinceFullReload >= FULL_RELOAD_INTERVAL) {
+            this.reloadAllListeners();
         } else {
-            throw new RemoteFetchCoreException("RepositoryManager " + remoteFetchConfiguration
-                    .getRepositoryManagerType()
-                    + " is not registered in RemoteFetchComponentRegistry");
+            this.reloadChangedListeners();
         }
     }
 
     /**
-     * This method is used to retrieve RepositoryManagerComponent from registry for particular remoteFetchConfiguration.
-     *
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return RepositoryManagerComponent
-     */
-    private RepositoryManagerComponent getRepositoryManagerComponentFromRegistry
-    (RemoteFetchConfiguration remoteFetchConfiguration) {
-
-        return this.componentRegistry
-                .getRepositoryManagerComponent(remoteFetchConfiguration.getRepositoryManagerType());
-    }
-
-    /**
-     * This method is used to build repository manager from RepositoryManagerBuilder.
-     *
-     * @param repositoryManagerComponent RepositoryManagerComponent
-     * @param remoteFetchConfiguration   RemoteFetchConfiguration
-     * @return RepositoryManager
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     * Load all enabled polling configurations, and drop configurations that are no longer listed.
      */
-    private RepositoryManager buildRepositoryManagerFromComponent(RepositoryManagerComponent repositoryManagerComponent,
-                                                                  RemoteFetchConfiguration remoteFetchConfiguration)
-            throws RemoteFetchCoreException {
+    private void reloadAllListeners() {
 
+        List<RemoteFetchConfiguration> configurations;
         try {
-            RepositoryManagerBuilder repositoryManagerBuilder = repositoryManagerComponent
-                    .getRepositoryManagerBuilder();
-
-            return repositoryManagerBuilder.addRemoteFetchConfig(remoteFetchConfiguration)
-                    .addRemoteFetchCoreConfig(RemoteFetchServiceComponentHolder.getInstance()
-                            .getFetchCoreConfiguration())
-                    .build();
-        } catch (RepositoryManagerBuilderException e) {
-            throw new RemoteFetchCoreException("Unable to build " + remoteFetchConfiguration
-                    .getRepositoryManagerType()
-                    + " RepositoryManager", e);
+            configurations = this.fetchConfigurationService.getEnabledPollingRemoteFetchConfigurationList();
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to list RemoteFetchConfigurations", e);
+            return;
+        }
+        Set<String> configurationIds = new HashSet<>();
+        long version = Math.max(this.loadedVersion, 0);
+        for (RemoteFetchConfiguration config : configurations) {
+            configurationIds.add(config.getRemoteFetchConfigurationId());
+            version = Math.max(version, config.getVersion());
+            this.applyConfiguration(config);
+        }
+        for (String configurationId : this.remoteFetchConfigurationMap.keySet()) {
+            if (!configurationIds.contains(configurationId)) {
+                this.deleteRemoteFetchConfiguration(configurationId);
+            }
         }
+        this.loadedVersion = version;
+        this.runsSinceFullReload = 0;
     }
 
     /**
-     * This method is used to build ConfigDeployer for particular remote fetch configuration.
-     *
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return ConfigDeployer
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     * Load configurations written since the last loaded version.
      */
-    private ConfigDeployer buildConfigDeployer(RemoteFetchConfiguration remoteFetchConfiguration)
-            throws RemoteFetchCoreException {
+    private void reloadChangedListeners() {
 
-        // Get an instance of ConfigDeployer from registry.
-        ConfigDeployerComponent configDeployerComponent =
-                getConfigDeployerComponentFromRegistry(remoteFetchConfiguration);
-        if (configDeployerComponent != null) {
-            return buildConfigDeployerFromComponent(configDeployerComponent, remoteFetchConfiguration);
-        } else {
-            throw new RemoteFetchCoreException("ConfigurationDeployer " + remoteFetchConfiguration
-                    .getConfigurationDeployerType()
-                    + " is not registered in RemoteFetchComponentRegistry");
+        List<RemoteFetchConfiguration> configurations;
+        try {
+            configurations = this.fetchConfigurationDAO.getRemoteFetchConfigurationsChangedSince(this.loadedVersion);
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to list changed RemoteFetchConfigurations", e);
+            return;
+        }
+        long version = this.loadedVersion;
+        for (RemoteFetchConfiguration config : configurations) {
+            version = Math.max(version, config.getVersion());
+            if (config.isEnabled() && RemoteFetchConstants.IDENTIFIER_POLLING_ACTION_LISTENER_COMPONENT
+                    .equals(config.getActionListenerType())) {
+                this.applyConfiguration(config);
+            } else if (this.remoteFetchConfigurationMap.containsKey(config.getRemoteFetchConfigurationId())) {
+                // Disabled, or no longer polled.
+                this.deleteRemoteFetchConfiguration(config.getRemoteFetchConfigurationId());
+            }
         }
+        this.loadedVersion = version;
     }
 
     /**
-     * This method is used to retrieve ConfigDeployerComponent from registry for particular remoteFetchConfiguration.
+     * Schedule a new or changed configuration to run immediately. Its ActionListener is taken from the listener
+     * cache, which rebuilds it only if the configuration changed, by the run on the batch lane, so discovery does not
+     * build listeners. An unchanged configuration keeps its schedule.
      *
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return ConfigDeployerComponent
+     * @param config RemoteFetchConfiguration
      */
-    private ConfigDeployerComponent getConfigDeployerComponentFromRegistry
-    (RemoteFetchConfiguration remoteFetchConfiguration) {
+    private void applyConfiguration(RemoteFetchConfiguration config) {
 
-        return this.componentRegistry
-                .getConfigDeployerComponent(remoteFetchConfiguration.getConfigurationDeployerType());
+        String configurationId = config.getRemoteFetchConfigurationId();
+        RemoteFetchConfiguration loadedConfig = this.remoteFetchConfigurationMap.put(configurationId, config);
+        // Keep the loaded version current, equals does not compare versions.
+        if (loadedConfig == null || !loadedConfig.equals(config)) {
+            this.scheduleRun(configurationId, 0);
+        }
     }
 
     /**
-     * This method is used to build ConfigDeployer from ConfigDeployerBuilder.
+     * Schedule the next run of a configuration on the scheduler delay queue, replacing any run scheduled earlier.
      *
-     * @param configDeployerComponent  ConfigDeployerComponent
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return ConfigDeployer
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     * @param configurationId RemoteFetchConfiguration id
+     * @param delay           delay in seconds
      */
-    private ConfigDeployer buildConfigDeployerFromComponent(ConfigDeployerComponent configDeployerComponent,
-                                                            RemoteFetchConfiguration remoteFetchConfiguration)
-            throws RemoteFetchCoreException {
+    private void scheduleRun(String configurationId, long delay) {
 
+        ScheduledFuture<?> scheduledRun;
         try {
-            ConfigDeployerBuilder configDeployerBuilder = configDeployerComponent.getConfigDeployerBuilder();
-            return configDeployerBuilder.addRemoteFetchConfig(remoteFetchConfiguration).build();
-
-        } catch (ConfigDeployerBuilderException e) {
-            throw new RemoteFetchCoreException("Unable to build " + remoteFetchConfiguration
-                    .getConfigurationDeployerType()
-                    + " ConfigDeployer object", e);
+            scheduledRun = this.scheduler.schedule(() -> this.dispatchRun(configurationId), delay, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Scheduler is shutting down.
+            return;
         }
-    }
-
-    /**
-     * This method is used create action listener from given ConfigDeployer and RepositoryManager.
-     *
-     * @param configDeployer           ConfigDeployer
-     * @param repositoryManager        RepositoryManager
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return ActionListener
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private ActionListener buildActionListener(ConfigDeployer configDeployer, RepositoryManager repositoryManager,
-                                               RemoteFetchConfiguration remoteFetchConfiguration)
-            throws RemoteFetchCoreException {
-
-        ActionListenerComponent actionListenerComponent =
-                getActionListenerComponentFromRegistry(remoteFetchConfiguration);
-        if (actionListenerComponent != null) {
-            return buildActionListenerFromComponent(actionListenerComponent,
-                    configDeployer, repositoryManager, remoteFetchConfiguration);
-        } else {
-            throw new RemoteFetchCoreException("ActionListener " + remoteFetchConfiguration
-                    .getActionListenerType()
-                    + " is not registered in RemoteFetchComponentRegistry");
+        ScheduledFuture<?> previousRun = this.scheduledRuns.put(configurationId, scheduledRun);
+        if (previousRun != null) {
+            previousRun.cancel(false);
         }
     }
 
     /**
-     * This method is used to retrieve ActionListenerComponent from registry for particular remoteFetchConfiguration.
+     * Hand a due configuration to the worker pool and schedule its next run once the run completes. The run builds
+     * the ActionListener of the configuration if it is not cached for the current configuration.
      *
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return ActionListenerComponent
+     * @param configurationId RemoteFetchConfiguration id
      */
-    private ActionListenerComponent getActionListenerComponentFromRegistry
-    (RemoteFetchConfiguration remoteFetchConfiguration) {
+    private void dispatchRun(String configurationId) {
 
-        return this.componentRegistry.getActionListenerComponent(remoteFetchConfiguration
-                .getActionListenerType());
+        RemoteFetchConfiguration config = this.remoteFetchConfigurationMap.get(configurationId);
+        // Skip deleted configurations, and configurations still running. The running cycle schedules the next run.
+        if (config == null || !this.inFlightConfigurations.add(configurationId)) {
+            return;
+        }
+        // Configurations with a cycle already running, triggered by a web hook or manually, are served by that cycle.
+        boolean isSubmitted = this.batchLane.submit(config, () -> {
+            try {
+                ActionListener actionListener = this.listenerCache.getActionListener(config);
+                this.cycleGate.runIfIdle(configurationId, actionListener::execute);
+            } catch (RemoteFetchCoreException e) {
+                log.error("Exception building ActionListener " + config.getActionListenerType() +
+                        " of RemoteFetchConfiguration id " + configurationId, e);
+            } finally {
+                this.inFlightConfigurations.remove(configurationId);
+                RemoteFetchConfiguration currentConfig = this.remoteFetchConfigurationMap.get(configurationId);
+                if (currentConfig != null) {
+                    // A configuration changed during the run is run again right away.
+                    this.scheduleRun(configurationId, currentConfig.equals(config) ? getFrequency(configurationId) : 0);
+                }
+            }
+        });
+        if (!isSubmitted) {
+            this.inFlightConfigurations.remove(configurationId);
+            this.scheduleRun(configurationId, getFrequency(configurationId));
+        }
     }
 
     /**
-     * This method is used to build ActionListener from ActionListenerFromComponent.
+     * Get the polling frequency of the cached ActionListener of a configuration, or the default frequency if the
+     * listener is not built, so failed builds are retried.
      *
-     * @param actionListenerComponent  ActionListenerComponent
-     * @param configDeployer           ConfigDeployer
-     * @param repositoryManager        RepositoryManager
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return ActionListener
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     * @param configurationId RemoteFetchConfiguration id
+     * @return frequency in seconds
      */
-    private ActionListener buildActionListenerFromComponent(ActionListenerComponent actionListenerComponent,
-                                                            ConfigDeployer configDeployer,
-                                                            RepositoryManager repositoryManager,
-                                                            RemoteFetchConfiguration remoteFetchConfiguration)
-            throws RemoteFetchCoreException {
+    private long getFrequency(String configurationId) {
 
-        try {
-            ActionListenerBuilder actionListenerBuilder = actionListenerComponent.getActionListenerBuilder();
-
-            return actionListenerBuilder.addRemoteFetchConfig(remoteFetchConfiguration)
-                    .addConfigDeployer(configDeployer).addRepositoryConnector(repositoryManager).build();
-        } catch (ActionListenerBuilderException e) {
-            throw new RemoteFetchCoreException("Unable to build " + remoteFetchConfiguration
-                    .getActionListenerType()
-                    + " ActionListener object", e);
+        ActionListener actionListener = this.listenerCache.getCachedActionListener(configurationId);
+        if (actionListener instanceof PollingActionListener) {
+            return Math.max(((PollingActionListener) actionListener).getFrequency(), MINIMUM_FREQUENCY);
         }
+        return DEFAULT_FREQUENCY;
     }
 
     /**
-     * Load RemoteFetch Configurations from database and builds ActionListeners or re-builds if updated.
+     * Discovers new and updated configurations. Runs of the configurations are scheduled individually, so this
+     * does not execute any ActionListener itself.
      */
-    private void loadListeners() {
-
-        try {
-            this.fetchConfigurationService.getEnabledPollingRemoteFetchConfigurationList()
-                    .forEach((RemoteFetchConfiguration config) -> {
-                        String configurationId = config.getRemoteFetchConfigurationId();
-                        // Check if RemoteFetchConfig already exists in Map.
-                        if (this.remoteFetchConfigurationMap.containsKey(configurationId)) {
-                            // Update RemoteFetchConfiguration if local and new config is different.
-                            if (!remoteFetchConfigurationMap.get(configurationId).equals(config)) {
-                                try {
-                                    this.actionListenerMap.put(configurationId, this.buildListener(config));
-                                } catch (RemoteFetchCoreException e) {
-                                    log.error("Exception re-building ActionListener " + config.getActionListenerType(),
-                                            e);
-                                }
-                            }
-                        } else {
-                            this.remoteFetchConfigurationMap.put(configurationId, config);
-                            try {
-                                this.actionListenerMap.put(configurationId, this.buildListener(config));
-                            } catch (RemoteFetchCoreException e) {
-                                log.error("Exception building ActionListener " + config.getActionListenerType(), e);
-                            }
-                        }
-                    });
-        } catch (RemoteFetchCoreException e) {
-            log.error("Unable to list RemoteFetchConfigurations", e);
-        }
-    }
-
     @Override
     public void run() {
 
         loadListeners();
-        for (ActionListener actionListener : this.actionListenerMap.values()) {
-            actionListener.execute();
-        }
     }
 
     /**
-     * Remove entries from hash maps while delete remote fetch configuration.
+     * Remove entries from hash maps and the listener cache while delete remote fetch configuration.
      *
      * @param id RemoteFetchConfiguration Id
      */
     public void deleteRemoteFetchConfiguration(String id) {
 
-        this.actionListenerMap.remove(id);
+        this.listenerCache.remove(id);
         this.remoteFetchConfigurationMap.remove(id);
+        ScheduledFuture<?> scheduledRun = this.scheduledRuns.remove(id);
+        if (scheduledRun != null) {
+            scheduledRun.cancel(false);
+        }
     }
 }
@@ -20,230 +20,85 @@ package org.wso2.carbon.identity.remotefetch.core.executers.tasks;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.remotefetch.common.RemoteFetchComponentRegistry;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListener;
-import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilder;
-import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilderException;
-import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerComponent;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerBuilder;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerBuilderException;
-import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerComponent;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilder;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilderException;
-import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerComponent;
-import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchActionListenerCache;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchCycleGate;
+
+import java.util.List;
 
 /**
  * This class provide immediate task to be executed for trigger call of given remote fetch configuration.
- * It retrieves relevant action lister component, deployer component and repository manager component using given
- * remote fetch configuration object from componant registry.
- * It builds action listener, deployer and repository manager using relevant builders
- * It runs corresponding action listener iteration. *
+ * It gets the action listener of the remote fetch configuration from the listener cache shared with the batch
+ * task, which builds action listener, deployer and repository manager only when the configuration is not cached
+ * or changed.
+ * It runs corresponding action listener iteration, scoped to the files modified by a push for web hook triggers.
  */
 public class RemoteFetchConfigurationImmediateTask implements Runnable {
 
     private static final Log log = LogFactory.getLog(RemoteFetchConfigurationImmediateTask.class);
 
-    private RemoteFetchComponentRegistry componentRegistry;
-
     private RemoteFetchConfiguration remoteFetchConfiguration;
 
-    public RemoteFetchConfigurationImmediateTask(RemoteFetchConfiguration remoteFetchConfiguration) {
-
-        this.remoteFetchConfiguration = remoteFetchConfiguration;
-        this.componentRegistry = RemoteFetchServiceComponentHolder.getInstance()
-                .getRemoteFetchComponentRegistry();
-    }
-
-    /**
-     * This method is used create action listener for particular remote fetch configuration.
-     *
-     * @return ActionListener
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private ActionListener buildListener() throws RemoteFetchCoreException {
-
-        RepositoryManager repositoryManager = buildRepositoryManager();
-        ConfigDeployer configDeployer = buildConfigDeployer();
-        return buildActionListener(configDeployer, repositoryManager);
-    }
-
-    /**
-     * This method is used to build repository manager for particular remote fetch configuration.
-     *
-     * @return RepositoryManager
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private RepositoryManager buildRepositoryManager() throws RemoteFetchCoreException {
-
-        RepositoryManagerComponent repositoryManagerComponent = getRepositoryManagerComponentFromRegistry();
-        if (repositoryManagerComponent != null) {
-            return buildRepositoryManagerFromComponent(repositoryManagerComponent);
-        } else {
-            throw new RemoteFetchCoreException("RepositoryManager " + this.remoteFetchConfiguration
-                    .getRepositoryManagerType()
-                    + " is not registered in RemoteFetchComponentRegistry");
-        }
-    }
-
-    /**
-     * This method is used to retrieve RepositoryManagerComponent from registry for particular remoteFetchConfiguration.
-     *
-     * @return RepositoryManagerComponent
-     */
-    private RepositoryManagerComponent getRepositoryManagerComponentFromRegistry() {
-
-        return this.componentRegistry
-                .getRepositoryManagerComponent(this.remoteFetchConfiguration.getRepositoryManagerType());
-    }
-
-    /**
-     * This method is used to build repository manager from RepositoryManagerBuilder.
-     *
-     * @param repositoryManagerComponent RepositoryManagerComponent
-     * @return RepositoryManager
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private RepositoryManager buildRepositoryManagerFromComponent(RepositoryManagerComponent repositoryManagerComponent)
-            throws RemoteFetchCoreException {
-
-        try {
-            RepositoryManagerBuilder repositoryManagerBuilder = repositoryManagerComponent
-                    .getRepositoryManagerBuilder();
-
-            return repositoryManagerBuilder.addRemoteFetchConfig(this.remoteFetchConfiguration)
-                    .addRemoteFetchCoreConfig(RemoteFetchServiceComponentHolder.getInstance()
-                            .getFetchCoreConfiguration())
-                    .build();
-        } catch (RepositoryManagerBuilderException e) {
-            throw new RemoteFetchCoreException("Unable to build " + this.remoteFetchConfiguration
-                    .getRepositoryManagerType()
-                    + " RepositoryManager", e);
-        }
-    }
-
-    /**
-     * This method is used to build ConfigDeployer for particular remote fetch configuration.
-     *
-     * @return ConfigDeployer
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private ConfigDeployer buildConfigDeployer() throws RemoteFetchCoreException {
-
-        // Get an instance of ConfigDeployer from registry.
-        ConfigDeployerComponent configDeployerComponent = getConfigDeployerComponentFromRegistry();
-
-        if (configDeployerComponent != null) {
-            return buildConfigDeployerFromComponent(configDeployerComponent);
-        } else {
-            throw new RemoteFetchCoreException("ConfigurationDeployer " + this.remoteFetchConfiguration
-                    .getConfigurationDeployerType()
-                    + " is not registered in RemoteFetchComponentRegistry");
-        }
-    }
+    private RemoteFetchCycleGate cycleGate;
 
-    /**
-     * This method is used to retrieve ConfigDeployerComponent from registry for particular remoteFetchConfiguration.
-     *
-     * @return ConfigDeployerComponent
-     */
-    private ConfigDeployerComponent getConfigDeployerComponentFromRegistry() {
+    private RemoteFetchActionListenerCache listenerCache;
 
-        return this.componentRegistry
-                .getConfigDeployerComponent(this.remoteFetchConfiguration.getConfigurationDeployerType());
-    }
+    private String baseRevision;
 
-    /**
-     * This method is used to build ConfigDeployer from ConfigDeployerBuilder.
-     *
-     * @param configDeployerComponent ConfigDeployerComponent
-     * @return ConfigDeployer
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private ConfigDeployer buildConfigDeployerFromComponent(ConfigDeployerComponent configDeployerComponent)
-            throws RemoteFetchCoreException {
-
-        try {
-            ConfigDeployerBuilder configDeployerBuilder = configDeployerComponent.getConfigDeployerBuilder();
-            return configDeployerBuilder.addRemoteFetchConfig(this.remoteFetchConfiguration).build();
-        } catch (ConfigDeployerBuilderException e) {
-            throw new RemoteFetchCoreException("Unable to build " + this.remoteFetchConfiguration
-                    .getConfigurationDeployerType()
-                    + " ConfigDeployer object", e);
-        }
-    }
+    private String headRevision;
 
-    /**
-     * This method is used create action listener from given ConfigDeployer and RepositoryManager.
-     *
-     * @param configDeployer    ConfigDeployer
-     * @param repositoryManager RepositoryManager
-     * @return ActionListener
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
-     */
-    private ActionListener buildActionListener(ConfigDeployer configDeployer, RepositoryManager repositoryManager)
-            throws RemoteFetchCoreException {
-
-        ActionListenerComponent actionListenerComponent = getActionListenerComponentFromRegistry();
-        if (actionListenerComponent != null) {
-            return buildActionListenerFromComponent(actionListenerComponent,
-                    configDeployer, repositoryManager);
-        } else {
-            throw new RemoteFetchCoreException("ActionListener " + this.remoteFetchConfiguration
-                    .getActionListenerType()
-                    + " is not registered in RemoteFetchComponentRegistry");
-        }
-    }
+    private List<String> modifiedFileNames;
 
-    /**
-     * This method is used to retrieve ActionListenerComponent from registry for particular remoteFetchConfiguration.
-     *
-     * @return ActionListenerComponent
-     */
-    private ActionListenerComponent getActionListenerComponentFromRegistry() {
+    public RemoteFetchConfigurationImmediateTask(RemoteFetchConfiguration remoteFetchConfiguration,
+                                                 RemoteFetchCycleGate cycleGate,
+                                                 RemoteFetchActionListenerCache listenerCache) {
 
-        return this.componentRegistry.getActionListenerComponent(this.remoteFetchConfiguration
-                .getActionListenerType());
+        this.remoteFetchConfiguration = remoteFetchConfiguration;
+        this.cycleGate = cycleGate;
+        this.listenerCache = listenerCache;
     }
 
     /**
-     * This method is used to build ActionListener from ActionListenerFromComponent.
+     * Creates an immediate task deploying only the files modified by a push.
      *
-     * @param actionListenerComponent ActionListenerComponent
-     * @param configDeployer          ConfigDeployer
-     * @param repositoryManager       RepositoryManager
-     * @return ActionListener
-     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     * @param remoteFetchConfiguration RemoteFetchConfiguration
+     * @param cycleGate                RemoteFetchCycleGate
+     * @param listenerCache            RemoteFetchActionListenerCache
+     * @param baseRevision             Revision the push was made on
+     * @param headRevision             Revision after the push
+     * @param modifiedFileNames        Paths of files modified by the push
      */
-    private ActionListener buildActionListenerFromComponent(ActionListenerComponent actionListenerComponent,
-                                                            ConfigDeployer configDeployer,
-                                                            RepositoryManager repositoryManager)
-            throws RemoteFetchCoreException {
-
-        try {
-            ActionListenerBuilder actionListenerBuilder = actionListenerComponent.getActionListenerBuilder();
-
-            return actionListenerBuilder.addRemoteFetchConfig(this.remoteFetchConfiguration)
-                    .addConfigDeployer(configDeployer).addRepositoryConnector(repositoryManager).build();
-
-        } catch (ActionListenerBuilderException e) {
-            throw new RemoteFetchCoreException("Unable to build " + this.remoteFetchConfiguration
-                    .getActionListenerType()
-                    + " ActionListener object", e);
-        }
+    public RemoteFetchConfigurationImmediateTask(RemoteFetchConfiguration remoteFetchConfiguration,
+                                                 RemoteFetchCycleGate cycleGate,
+                                                 RemoteFetchActionListenerCache listenerCache,
+                                                 String baseRevision, String headRevision,
+                                                 List<String> modifiedFileNames) {
+
+        this(remoteFetchConfiguration, cycleGate, listenerCache);
+        this.baseRevision = baseRevision;
+        this.headRevision = headRevision;
+        this.modifiedFileNames = modifiedFileNames;
     }
 
     @Override
     public void run() {
 
-        try {
-            this.buildListener().execute();
-        } catch (RemoteFetchCoreException e) {
-            log.error("Unable to trigger RemoteFetchConfigurations", e);
-        }
+        // If a cycle is already running for the configuration, this run is queued as its follow-up, so changes
+        // pushed after the running cycle fetched are still picked up.
+        this.cycleGate.runOrQueue(this.remoteFetchConfiguration.getRemoteFetchConfigurationId(), () -> {
+            try {
+                ActionListener actionListener = this.listenerCache.getActionListener(this.remoteFetchConfiguration);
+                if (this.modifiedFileNames != null) {
+                    actionListener.executeForFiles(this.baseRevision, this.headRevision, this.modifiedFileNames);
+                } else {
+                    // A trigger runs even if the configuration was polled within its polling frequency.
+                    actionListener.executeNow();
+                }
+            } catch (RemoteFetchCoreException e) {
+                log.error("Unable to trigger RemoteFetchConfigurations", e);
+            }
+        });
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.deployers.config;
+
+import org.apache.commons.collections.ExtendedProperties;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.resource.Resource;
+import org.apache.velocity.runtime.resource.loader.ResourceLoader;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * Velocity resource loader serving templates from the RepositoryManager instead of a checked out working tree.
+ */
+public class RepositoryResourceLoader extends ResourceLoader {
+
+    private static final Log log = LogFactory.getLog(RepositoryResourceLoader.class);
+
+    private RepositoryManager repositoryManager;
+    private File basePath;
+
+    /**
+     * Default constructor.
+     *
+     * @param repositoryManager RepositoryManager to read templates from
+     * @param basePath          Directory of the repository templates are resolved against
+     */
+    public RepositoryResourceLoader(RepositoryManager repositoryManager, File basePath) {
+
+        this.repositoryManager = repositoryManager;
+        this.basePath = basePath;
+    }
+
+    @Override
+    public void init(ExtendedProperties configuration) {
+
+    }
+
+    @Override
+    public InputStream getResourceStream(String source) throws ResourceNotFoundException {
+
+        try {
+            return this.repositoryManager.getFile(new File(this.basePath, source)).getContentStream();
+        } catch (RemoteFetchCoreException | IllegalArgumentException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to read template " + source + " from repository", e);
+            }
+            throw new ResourceNotFoundException("Unable to find template " + source + " in repository");
+        }
+    }
+
+    @Override
+    public boolean isSourceModified(Resource resource) {
+
+        return false;
+    }
+
+    @Override
+    public long getLastModified(Resource resource) {
+
+        return 0;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.deployers.config;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchCoreConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Provides the variables substituted into templates, keyed by lower case name.
+ * Variables are read from the environment file, and optionally from the environment of the process, into a
+ * snapshot which is only reloaded when the modified time or size of the environment file changes. Values of the
+ * environment file override values of the process environment. Variables found in neither are looked up in
+ * identity.xml under {@link RemoteFetchConstants#TEMPLATE_VARIABLES_PROPERTY}.
+ */
+public class TemplateVariableProvider {
+
+    private static final Log log = LogFactory.getLog(TemplateVariableProvider.class);
+
+    private final File environmentFile;
+    private final boolean isSystemEnvironmentIncluded;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Create a provider reading the environment file only.
+     *
+     * @param environmentFile File of environment variables
+     */
+    public TemplateVariableProvider(File environmentFile) {
+
+        this(environmentFile, false);
+    }
+
+    /**
+     * Create a provider.
+     *
+     * @param environmentFile             File of environment variables
+     * @param isSystemEnvironmentIncluded Whether environment variables of the process are provided
+     */
+    public TemplateVariableProvider(File environmentFile, boolean isSystemEnvironmentIncluded) {
+
+        this.environmentFile = environmentFile;
+        this.isSystemEnvironmentIncluded = isSystemEnvironmentIncluded;
+    }
+
+    /**
+     * Create a provider from the core configuration.
+     *
+     * @param fetchCoreConfiguration RemoteFetchCoreConfiguration
+     */
+    public TemplateVariableProvider(RemoteFetchCoreConfiguration fetchCoreConfiguration) {
+
+        this(new File(fetchCoreConfiguration.getEnvironmentFile()),
+                fetchCoreConfiguration.isSystemEnvironmentIncluded());
+    }
+
+    /**
+     * Resolve the values of the given template variables. Variables without a value are left out.
+     *
+     * @param names Lower case names of the variables
+     * @return Values keyed by name
+     * @throws IOException if the environment file cannot be read
+     */
+    public Map<String, String> resolveVariables(Iterable<String> names) throws IOException {
+
+        Map<String, String> environmentVariables = this.getEnvironmentVariables();
+        Map<String, String> variables = new HashMap<>();
+        for (String name : names) {
+            String value = environmentVariables.get(name);
+            if (value == null) {
+                value = IdentityUtil.getProperty(RemoteFetchConstants.TEMPLATE_VARIABLES_PROPERTY + "." + name);
+            }
+            if (value != null) {
+                variables.put(name, value);
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Get the snapshot of the environment variables, reloading it if the environment file changed since it was
+     * loaded.
+     *
+     * @return Environment variables keyed by lower case name
+     * @throws IOException if the environment file cannot be read
+     */
+    public Map<String, String> getEnvironmentVariables() throws IOException {
+
+        // Both are 0 if the file does not exist.
+        long lastModified = this.environmentFile.lastModified();
+        long length = this.environmentFile.length();
+        Snapshot currentSnapshot = this.snapshot;
+        if (currentSnapshot != null && currentSnapshot.isCurrent(lastModified, length)) {
+            return currentSnapshot.variables;
+        }
+        synchronized (this) {
+            currentSnapshot = this.snapshot;
+            if (currentSnapshot == null || !currentSnapshot.isCurrent(lastModified, length)) {
+                currentSnapshot = new Snapshot(lastModified, length, this.loadEnvironmentVariables());
+                this.snapshot = currentSnapshot;
+            }
+            return currentSnapshot.variables;
+        }
+    }
+
+    /**
+     * Read the environment variables of the process, if included, and of the environment file.
+     *
+     * @return Environment variables keyed by lower case name
+     * @throws IOException if the environment file cannot be read
+     */
+    private Map<String, String> loadEnvironmentVariables() throws IOException {
+
+        Map<String, String> variables = new HashMap<>();
+        if (this.isSystemEnvironmentIncluded) {
+            for (Map.Entry<String, String> variable : System.getenv().entrySet()) {
+                variables.put(variable.getKey().toLowerCase(Locale.ENGLISH), variable.getValue());
+            }
+        }
+        if (!this.environmentFile.isFile()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Environment file " + this.environmentFile + " does not exist.");
+            }
+            return Collections.unmodifiableMap(variables);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(this.environmentFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("=", 2);
+                if (parts.length >= 2) {
+                    variables.put(parts[0].toLowerCase(Locale.ENGLISH), parts[1]);
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + variables.size() + " template variables.");
+        }
+        return Collections.unmodifiableMap(variables);
+    }
+
+    /**
+     * Environment variables loaded at a modified time and size of the environment file.
+     */
+    private static class Snapshot {
+
+        private final long lastModified;
+        private final long length;
+        private final Map<String, String> variables;
+
+        Snapshot(long lastModified, long length, Map<String, String> variables) {
+
+            this.lastModified = lastModified;
+            this.length = length;
+            this.variables = variables;
+        }
+
+        boolean isCurrent(long lastModified, long length) {
+
+            return this.lastModified == lastModified && this.length == length;
+        }
+    }
+}
@@ -19,40 +19,83 @@
 package org.wso2.carbon.identity.remotefetch.core.impl.deployers.config;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.remotefetch.common.ConfigurationFileStream;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.util.ArrayList;
-import java.util.Locale;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Configure service provider using environment variables.
+ * A deployer is kept for the lifetime of its ActionListener. It initialises one Velocity runtime per template
+ * directory, and caches parsed templates keyed by path and blob id, so unchanged templates are parsed only once.
  */
 public class VelocityTemplatedSPDeployer extends ServiceProviderConfigDeployer {
 
     private static final Log log = LogFactory.getLog(VelocityTemplatedSPDeployer.class);
 
+    private static final String REPOSITORY_RESOURCE_LOADER = "repository";
+    private static final int MAX_TEMPLATE_CACHE_SIZE = 500;
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\$(\\w+)");
+    // Used when the component did not set up a provider from its configuration.
+    private static final TemplateVariableProvider DEFAULT_TEMPLATE_VARIABLE_PROVIDER =
+            new TemplateVariableProvider(new File(RemoteFetchConstants.DEFAULT_ENVIRONMENT_FILE));
+
     private String id;
+    private RepositoryManager repositoryManager;
+    // Velocity runtimes keyed by template directory, included templates are resolved against the directory.
+    private Map<String, RuntimeInstance> velocityRuntimes = new HashMap<>();
+    // Parsed templates keyed by path and blob id.
+    private Map<String, Template> templateCache = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+
+            return size() > MAX_TEMPLATE_CACHE_SIZE;
+        }
+    };
 
     public VelocityTemplatedSPDeployer(int tenantId, String id) {
 
+        this(tenantId, id, null);
+    }
+
+    /**
+     * Creates a deployer resolving templates from the given RepositoryManager, so templates resolve without a
+     * checked out working tree.
+     *
+     * @param tenantId          Tenant id
+     * @param id                RemoteFetchConfiguration id
+     * @param repositoryManager RepositoryManager to read templates from
+     */
+    public VelocityTemplatedSPDeployer(int tenantId, String id, RepositoryManager repositoryManager) {
+
         super(tenantId, id);
         this.id = id;
+        this.repositoryManager = repositoryManager;
     }
 
     /**
@@ -65,53 +108,125 @@ public class VelocityTemplatedSPDeployer extends ServiceProviderConfigDeployer {
     @Override
     public void deploy(ConfigurationFileStream configurationFileStream) throws RemoteFetchCoreException, IOException {
 
-        String velocityTemplate;
-        velocityTemplate = IOUtils.toString(configurationFileStream.getContentStream());
-        String fileNumber = String.valueOf(this.id);
-        String workingDirectory = IdentityUtil.getProperty("RemoteFetch.WorkingDirectory");
-        ArrayList<String> arrayList = new ArrayList<String>();
-        final Properties props = new Properties();
-        props.setProperty("file.resource.loader.path",
-                workingDirectory + "/repo-" + fileNumber + "/" + configurationFileStream.getPath().getParent());
-        String currentLine;
-        BufferedReader bufferedReader = new BufferedReader(new StringReader(velocityTemplate));
-        while ((currentLine = bufferedReader.readLine()) != null) {
-            Pattern pattern = Pattern.compile("(\\$\\w+)");
-            Matcher matcher = pattern.matcher(currentLine);
-            while (matcher.find()) {
-                String[] parts = matcher.group(1).split("\\$");
-                arrayList.add(parts[1]);
-            }
-        }
-        bufferedReader.close();
-        BufferedReader reader = null;
-        try {
-            VelocityEngine velocityEngine = new VelocityEngine();
-            velocityEngine.init(props);
-            VelocityContext context = new VelocityContext();
-
-            String line;
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream("/etc/environment"), "UTF-8"));
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("=", 2);
-                if ((parts.length >= 2) && (arrayList.contains(parts[0].toLowerCase(Locale.ENGLISH)))) {
-                    String key = parts[0].toLowerCase(Locale.ENGLISH);
-                    String value = parts[1];
-                    context.put(key, value);
-                }
-            }
-            Template template = velocityEngine.getTemplate(configurationFileStream.getPath().getName());
-            StringWriter writer = new StringWriter();
-            template.merge(context, writer);
-            velocityTemplate = writer.toString();
-        } finally {
-            if (reader != null) {
-                reader.close();
-            }
+        this.deploy(configurationFileStream, null);
+    }
+
+    /**
+     * Parameter replacement, reusing the parsed template if a template with the same path and blob id was deployed
+     * before.
+     *
+     * @param configurationFileStream ConfigurationFileStream of the application
+     * @param blobId                  Blob id of the template content, or null to parse the template
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     * @throws IOException              IOException
+     */
+    public synchronized void deploy(ConfigurationFileStream configurationFileStream, String blobId)
+            throws RemoteFetchCoreException, IOException {
+
+        String velocityTemplate = IOUtils.toString(configurationFileStream.getContentStream());
+        Template template = this.getTemplate(configurationFileStream.getPath(), velocityTemplate, blobId);
+        VelocityContext context = new VelocityContext();
+        for (Map.Entry<String, String> variable : getTemplateVariableProvider()
+                .resolveVariables(getPlaceholderNames(velocityTemplate)).entrySet()) {
+            context.put(variable.getKey(), variable.getValue());
         }
+        StringWriter writer = new StringWriter();
+        template.merge(context, writer);
+        velocityTemplate = writer.toString();
         String spXml = velocityTemplate;
         ConfigurationFileStream updatedStream = new ConfigurationFileStream(IOUtils.toInputStream(spXml),
                 configurationFileStream.getPath());
         super.deploy(updatedStream);
     }
+
+    /**
+     * Collect the names of the placeholders of a template in one pass.
+     *
+     * @param content Content of the template
+     * @return Placeholder names
+     */
+    private static Set<String> getPlaceholderNames(String content) {
+
+        Set<String> placeholderNames = new HashSet<>();
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(content);
+        while (matcher.find()) {
+            placeholderNames.add(matcher.group(1));
+        }
+        return placeholderNames;
+    }
+
+    /**
+     * Get the template variable provider set up by the component, or one reading the default environment file.
+     *
+     * @return TemplateVariableProvider
+     */
+    private static TemplateVariableProvider getTemplateVariableProvider() {
+
+        TemplateVariableProvider templateVariableProvider = RemoteFetchServiceComponentHolder.getInstance()
+                .getTemplateVariableProvider();
+        return templateVariableProvider != null ? templateVariableProvider : DEFAULT_TEMPLATE_VARIABLE_PROVIDER;
+    }
+
+    /**
+     * Get the parsed template from the template cache, or parse it with the Velocity runtime of its directory.
+     *
+     * @param path    Path of the template
+     * @param content Content of the template
+     * @param blobId  Blob id of the content, or null to parse the template without caching it
+     * @return Template
+     * @throws RemoteFetchCoreException if the template cannot be parsed
+     */
+    private Template getTemplate(File path, String content, String blobId) throws RemoteFetchCoreException {
+
+        String cacheKey = path.getPath() + "@" + blobId;
+        Template template = StringUtils.isNotEmpty(blobId) ? this.templateCache.get(cacheKey) : null;
+        if (template != null) {
+            return template;
+        }
+        RuntimeInstance velocityRuntime = this.getVelocityRuntime(path.getParentFile());
+        try {
+            SimpleNode document = velocityRuntime.parse(new StringReader(content), path.getName());
+            template = new Template();
+            template.setName(path.getName());
+            template.setRuntimeServices(velocityRuntime);
+            template.setData(document);
+            template.initDocument();
+        } catch (ParseException e) {
+            throw new RemoteFetchCoreException("Unable to parse template " + path.getName(), e);
+        }
+        if (StringUtils.isNotEmpty(blobId)) {
+            this.templateCache.put(cacheKey, template);
+        }
+        return template;
+    }
+
+    /**
+     * Get the Velocity runtime of a template directory, initialising it on first use.
+     *
+     * @param directory Template directory
+     * @return RuntimeInstance
+     */
+    private RuntimeInstance getVelocityRuntime(File directory) {
+
+        String directoryKey = directory != null ? directory.getPath() : "";
+        RuntimeInstance velocityRuntime = this.velocityRuntimes.get(directoryKey);
+        if (velocityRuntime != null) {
+            return velocityRuntime;
+        }
+        velocityRuntime = new RuntimeInstance();
+        if (this.repositoryManager != null) {
+            velocityRuntime.setProperty(RuntimeConstants.RESOURCE_LOADER, REPOSITORY_RESOURCE_LOADER);
+            velocityRuntime.setProperty(REPOSITORY_RESOURCE_LOADER + "." + RuntimeConstants.RESOURCE_LOADER +
+                    ".instance", new RepositoryResourceLoader(this.repositoryManager, directory));
+            velocityRuntime.init();
+        } else {
+            String workingDirectory = IdentityUtil.getProperty("RemoteFetch.WorkingDirectory");
+            Properties props = new Properties();
+            props.setProperty("file.resource.loader.path",
+                    workingDirectory + "/repo-" + this.id + "/" + directory);
+            velocityRuntime.init(props);
+        }
+        this.velocityRuntimes.put(directoryKey, velocityRuntime);
+        return velocityRuntime;
+    }
 }
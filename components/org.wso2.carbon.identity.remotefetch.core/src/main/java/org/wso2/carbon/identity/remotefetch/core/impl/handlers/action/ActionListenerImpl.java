@@ -27,20 +27,29 @@ import org.wso2.carbon.identity.remotefetch.common.DeploymentRevision;
 import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListener;
 import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.FileChange;
 import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
 import org.wso2.carbon.identity.remotefetch.core.dao.DeploymentRevisionDAO;
 import org.wso2.carbon.identity.remotefetch.core.dao.impl.DeploymentRevisionDAOImpl;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchSyncTimeBuffer;
 import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.VelocityTemplatedSPDeployer;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
 import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils.generateUniqueID;
 
@@ -50,24 +59,56 @@ import static org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigur
 public class ActionListenerImpl implements ActionListener {
 
     private static final Log log = LogFactory.getLog(ActionListenerImpl.class);
+    private static final AtomicLong skippedPollCount = new AtomicLong();
+    private static final int MAX_RESOLVED_NAME_CACHE_SIZE = 1000;
 
     private RepositoryManager repo;
     protected Date lastIteration;
     private ConfigDeployer configDeployer;
+    // Kept for the lifetime of the listener, so its Velocity runtimes and parsed templates are reused.
+    private VelocityTemplatedSPDeployer templatedDeployer;
     private DeploymentRevisionDAO deploymentRevisionDAO;
+    private RemoteFetchSyncTimeBuffer syncTimeBuffer;
     private Map<String, DeploymentRevision> deploymentRevisionMapNotResolved = new HashMap<>();
     private Map<String, DeploymentRevision> deploymentRevisionMap = new HashMap<>();
     private String remoteFetchConfigurationId;
     private int tenantId;
+    private String lastSyncedRevision;
+    private int runningExecutions;
+    private boolean isClosed;
+    // DeploymentRevisions created and updated during the poll cycle, written in a single batch at its end.
+    private Map<String, DeploymentRevision> pendingCreatedRevisions = new LinkedHashMap<>();
+    private Map<String, DeploymentRevision> pendingUpdatedRevisions = new LinkedHashMap<>();
+    // Resolved configuration names keyed by content hash, so names are only resolved for changed content.
+    private Map<String, String> resolvedNameCache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+
+            return size() > MAX_RESOLVED_NAME_CACHE_SIZE;
+        }
+    };
 
     public ActionListenerImpl(RepositoryManager repo, ConfigDeployer configDeployer,
                               String remoteFetchConfigurationId, int tenantId) {
 
+        this(repo, configDeployer, remoteFetchConfigurationId, tenantId,
+                new VelocityTemplatedSPDeployer(tenantId, remoteFetchConfigurationId, repo),
+                new DeploymentRevisionDAOImpl());
+    }
+
+    protected ActionListenerImpl(RepositoryManager repo, ConfigDeployer configDeployer,
+                                 String remoteFetchConfigurationId, int tenantId,
+                                 VelocityTemplatedSPDeployer templatedDeployer,
+                                 DeploymentRevisionDAO deploymentRevisionDAO) {
+
         this.repo = repo;
         this.configDeployer = configDeployer;
         this.remoteFetchConfigurationId = remoteFetchConfigurationId;
         this.tenantId = tenantId;
-        this.deploymentRevisionDAO = new DeploymentRevisionDAOImpl();
+        this.templatedDeployer = templatedDeployer;
+        this.deploymentRevisionDAO = deploymentRevisionDAO;
+        this.syncTimeBuffer = RemoteFetchServiceComponentHolder.getInstance().getSyncTimeBuffer();
         this.seedRevisions();
     }
 
@@ -77,13 +118,268 @@ public class ActionListenerImpl implements ActionListener {
     @Override
     public void execute() {
 
+        if (!this.startExecution()) {
+            return;
+        }
+        try {
+            this.fetchAndPoll();
+        } finally {
+            this.completeExecution();
+        }
+    }
+
+    /**
+     * Fetch and poll the directory right away. Subclasses gating {@link #execute()} on a schedule do not gate this.
+     */
+    @Override
+    public void executeNow() {
+
+        if (!this.startExecution()) {
+            return;
+        }
+        try {
+            this.fetchAndPoll();
+        } finally {
+            this.completeExecution();
+        }
+    }
+
+    /**
+     * Fetch the repository and poll the directory, unless the repository is unchanged since the last sync.
+     */
+    private void fetchAndPoll() {
+
+        if (this.fetchAndSkipIfUnchanged()) {
+            return;
+        }
+        this.pollDirectory(this.configDeployer);
+    }
+
+    /**
+     * Deploy only the files modified by a push. The modified files are trusted only when the push was made on the
+     * revision last synchronized and the repository is at the revision after the push, otherwise the directory is
+     * polled as in {@link #execute()}.
+     *
+     * @param baseRevision      Revision the push was made on
+     * @param headRevision      Revision after the push
+     * @param modifiedFileNames Paths of files added, modified or removed by the push, relative to the repository
+     */
+    @Override
+    public void executeForFiles(String baseRevision, String headRevision, List<String> modifiedFileNames) {
+
+        if (!this.startExecution()) {
+            return;
+        }
+        try {
+            if (this.fetchAndSkipIfUnchanged()) {
+                return;
+            }
+            List<FileChange> fileChanges = this.getPushedFileChanges(baseRevision, headRevision, modifiedFileNames);
+            if (fileChanges == null) {
+                this.pollDirectory(this.configDeployer);
+                return;
+            }
+            if (this.pollChangedFiles(fileChanges)) {
+                this.updateLastSyncedRevision(headRevision);
+            }
+        } finally {
+            this.completeExecution();
+        }
+    }
+
+    /**
+     * Close the repository of the listener once it is replaced or removed. If an execution is in progress, the
+     * repository is closed when the execution completes.
+     */
+    @Override
+    public void close() {
+
+        synchronized (this) {
+            if (this.isClosed) {
+                return;
+            }
+            this.isClosed = true;
+            if (this.runningExecutions > 0) {
+                return;
+            }
+        }
+        this.repo.close();
+    }
+
+    /**
+     * Register an execution, unless the listener is closed.
+     *
+     * @return true if the execution can run
+     */
+    private synchronized boolean startExecution() {
+
+        if (this.isClosed) {
+            if (log.isDebugEnabled()) {
+                log.debug("ActionListener of RemoteFetchConfiguration id " + this.remoteFetchConfigurationId +
+                        " is closed, skipping execution");
+            }
+            return false;
+        }
+        this.runningExecutions++;
+        return true;
+    }
+
+    /**
+     * Complete an execution, closing the repository if the listener was closed while it ran.
+     */
+    private void completeExecution() {
+
+        synchronized (this) {
+            if (--this.runningExecutions > 0 || !this.isClosed) {
+                return;
+            }
+        }
+        this.repo.close();
+    }
+
+    /**
+     * Fetch the repository, and only update the synced dates if it is still at the revision last synchronized and
+     * no file is waiting to be retried.
+     *
+     * @return true if the repository is unchanged and the poll is skipped
+     */
+    private boolean fetchAndSkipIfUnchanged() {
+
         try {
             this.repo.fetchRepository();
         } catch (RemoteFetchCoreException e) {
             log.error("Error pulling repository", e);
         }
         this.lastIteration = new Date();
-        this.pollDirectory(this.configDeployer);
+        if (!this.isRepositoryUnchanged() || !this.getFailedFiles().isEmpty()) {
+            return false;
+        }
+        long skippedPolls = skippedPollCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Repository unchanged since last synced revision for RemoteFetchConfiguration id " +
+                    this.remoteFetchConfigurationId + ", skipping poll. Total skipped polls: " + skippedPolls);
+        }
+        this.updateLastSynchronizedDates();
+        return true;
+    }
+
+    /**
+     * Resolve the changes of the files modified by a push.
+     *
+     * @param baseRevision      Revision the push was made on
+     * @param headRevision      Revision after the push
+     * @param modifiedFileNames Paths of files modified by the push
+     * @return List of file changes, or null if the modified files do not cover all changes since the revision last
+     * synchronized
+     */
+    private List<FileChange> getPushedFileChanges(String baseRevision, String headRevision,
+                                                  List<String> modifiedFileNames) {
+
+        if (modifiedFileNames == null || baseRevision == null || !baseRevision.equals(this.lastSyncedRevision)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Push is not based on the last synced revision of RemoteFetchConfiguration id " +
+                        this.remoteFetchConfigurationId + ", polling directory");
+            }
+            return null;
+        }
+        try {
+            if (headRevision == null || !headRevision.equals(this.repo.getRevision())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Repository moved beyond the pushed revision for RemoteFetchConfiguration id " +
+                            this.remoteFetchConfigurationId + ", polling directory");
+                }
+                return null;
+            }
+            return this.repo.resolveFileChanges(modifiedFileNames);
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to resolve pushed changes for RemoteFetchConfiguration id " +
+                    this.remoteFetchConfigurationId + ", polling directory", e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the number of polls skipped, across all configurations, since the repository was unchanged.
+     *
+     * @return Number of skipped polls
+     */
+    public static long getSkippedPollCount() {
+
+        return skippedPollCount.get();
+    }
+
+    /**
+     * Returns whether the repository is still at the revision last synchronized.
+     *
+     * @return true if the repository is unchanged
+     */
+    private boolean isRepositoryUnchanged() {
+
+        if (this.lastSyncedRevision == null) {
+            return false;
+        }
+        try {
+            return this.lastSyncedRevision.equals(this.repo.getRevision());
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to resolve revision of repository for RemoteFetchConfiguration id " +
+                    this.remoteFetchConfigurationId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Get the files whose name could not be resolved or whose deployment failed. They are retried on every poll,
+     * even if they did not change since the revision last synchronized.
+     *
+     * @return Files of failed DeploymentRevisions
+     */
+    private Set<File> getFailedFiles() {
+
+        Set<File> failedFiles = new HashSet<>();
+        for (DeploymentRevision deploymentRevision : this.deploymentRevisionMap.values()) {
+            if (deploymentRevision.getDeploymentStatus() == DeploymentRevision.DeploymentStatus.FAIL) {
+                failedFiles.add(deploymentRevision.getFile());
+            }
+        }
+        for (DeploymentRevision deploymentRevision : this.deploymentRevisionMapNotResolved.values()) {
+            if (deploymentRevision.getDeploymentStatus() == DeploymentRevision.DeploymentStatus.FAIL) {
+                failedFiles.add(deploymentRevision.getFile());
+            }
+        }
+        return failedFiles;
+    }
+
+    /**
+     * Set last iteration date as synced date of all DeploymentRevisions.
+     */
+    private void updateLastSynchronizedDates() {
+
+        for (DeploymentRevision deploymentRevision : this.deploymentRevisionMap.values()) {
+            deploymentRevision.setLastSynchronizedDate(this.lastIteration);
+        }
+        for (DeploymentRevision deploymentRevision : this.deploymentRevisionMapNotResolved.values()) {
+            deploymentRevision.setLastSynchronizedDate(this.lastIteration);
+        }
+        this.storeLastSynchronizedDate();
+    }
+
+    /**
+     * Store last iteration date as synced date of all DeploymentRevisions of the configuration. The date is recorded
+     * in the write-behind buffer when available, otherwise it is written with a single update.
+     */
+    private void storeLastSynchronizedDate() {
+
+        if (this.syncTimeBuffer != null) {
+            this.syncTimeBuffer.record(this.remoteFetchConfigurationId, this.lastIteration);
+            return;
+        }
+        try {
+            this.deploymentRevisionDAO.updateLastSynchronizedDate(this.remoteFetchConfigurationId,
+                    this.lastIteration);
+        } catch (RemoteFetchCoreException e) {
+            log.error("Error updating last synchronized date of DeploymentRevisions for RemoteFetchConfiguration" +
+                    " id " + this.remoteFetchConfigurationId, e);
+        }
     }
 
     /**
@@ -97,16 +393,30 @@ public class ActionListenerImpl implements ActionListener {
 
             for (DeploymentRevision deploymentRevision : deploymentRevisions) {
                 this.deploymentRevisionMap.put(deploymentRevision.getItemName(), deploymentRevision);
+                // The stored hash is the content the item name was resolved from.
+                if (StringUtils.isNotEmpty(deploymentRevision.getFileHash())) {
+                    this.resolvedNameCache.put(deploymentRevision.getFileHash(), deploymentRevision.getItemName());
+                }
             }
 
         } catch (RemoteFetchCoreException e) {
             log.info("Unable to seed DeploymentRevisions for RemoteFetchConfiguration id " +
                     this.remoteFetchConfigurationId, e);
         }
+
+        try {
+            // A revision synced before the repository or directory changed is ignored, so all files of the new
+            // source are reconciled.
+            this.lastSyncedRevision = this.deploymentRevisionDAO
+                    .getLastSyncedRevision(this.remoteFetchConfigurationId, this.repo.getSourceKey());
+        } catch (RemoteFetchCoreException e) {
+            log.info("Unable to read last synced revision for RemoteFetchConfiguration id " +
+                    this.remoteFetchConfigurationId + ", all files will be reconciled", e);
+        }
     }
 
     /**
-     * Resolve and create / update list of revisions.
+     * Resolve and create / update list of revisions. Names are resolved only for content not resolved before.
      *
      * @param configPaths list of file paths to be deployed
      */
@@ -116,9 +426,10 @@ public class ActionListenerImpl implements ActionListener {
 
             String resolvedName = "";
             String fileName = FilenameUtils.removeExtension(configPath.getName());
+            String contentHash = this.getContentHash(configPath);
 
             try {
-                resolvedName = this.configDeployer.resolveConfigName(this.repo.getFile(configPath));
+                resolvedName = this.resolveConfigName(configPath, contentHash);
             } catch (RemoteFetchCoreException e) {
                 log.error("Unable to resolve configuration name for file " + configPath.getAbsolutePath(), e);
 
@@ -145,6 +456,41 @@ public class ActionListenerImpl implements ActionListener {
         });
     }
 
+    /**
+     * Resolve configuration name of the file, reusing the name resolved earlier for the same content.
+     *
+     * @param configPath  Configuration file path
+     * @param contentHash Content hash of the file, null if unknown
+     * @return resolved name
+     * @throws RemoteFetchCoreException if the name could not be resolved
+     */
+    private String resolveConfigName(File configPath, String contentHash) throws RemoteFetchCoreException {
+
+        if (contentHash != null) {
+            String cachedName = this.resolvedNameCache.get(contentHash);
+            if (cachedName != null) {
+                return cachedName;
+            }
+        }
+        String resolvedName = this.configDeployer.resolveConfigName(this.repo.getFile(configPath));
+        if (contentHash != null && StringUtils.isNotEmpty(resolvedName)) {
+            this.resolvedNameCache.put(contentHash, resolvedName);
+        }
+        return resolvedName;
+    }
+
+    private String getContentHash(File configPath) {
+
+        try {
+            return StringUtils.defaultIfEmpty(this.repo.getContentHash(configPath), null);
+        } catch (RemoteFetchCoreException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to get content hash for file " + configPath.getAbsolutePath(), e);
+            }
+            return null;
+        }
+    }
+
     /**
      * Update revision if error occurred while resolving the application name.
      *
@@ -169,12 +515,7 @@ public class ActionListenerImpl implements ActionListener {
         if (!currentDeploymentRevision.getFile().equals(configPath)) {
             currentDeploymentRevision.setFile(configPath);
         }
-        try {
-            this.deploymentRevisionDAO.updateDeploymentRevision(currentDeploymentRevision);
-        } catch (RemoteFetchCoreException e) {
-            log.error("Unable to update DeploymentRevision for " + sanitize(fileName), e);
-        }
-
+        this.markRevisionUpdated(currentDeploymentRevision);
     }
 
     /**
@@ -192,26 +533,22 @@ public class ActionListenerImpl implements ActionListener {
         exceptionStringBuilder.append("Unable to resolve configuration name for file ").append(fileName);
         exceptionStringBuilder.append(exception.getMessage());
 
-        try {
-            String deploymentRevisionId = generateUniqueID();
-            if (log.isDebugEnabled()) {
-                log.debug("Deployment Revision ID is  generated: " + deploymentRevisionId);
-            }
-            DeploymentRevision deploymentRevision = new DeploymentRevision(this.remoteFetchConfigurationId, configPath);
-            deploymentRevision.setFileHash("");
-            deploymentRevision.setItemName(fileName);
-            deploymentRevision.setDeploymentRevisionId(deploymentRevisionId);
-            deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.FAIL);
-            deploymentRevision.setErrorMessage(
-                    RemoteFetchConfigurationUtils.trimErrorMessage(exceptionStringBuilder.toString(),
-                            exception));
-            deploymentRevision.setDeployedDate(new Date());
-            deploymentRevision.setLastSynchronizedDate(this.lastIteration);
-            this.deploymentRevisionDAO.createDeploymentRevision(deploymentRevision);
-            this.deploymentRevisionMapNotResolved.put(deploymentRevision.getItemName(), deploymentRevision);
-        } catch (RemoteFetchCoreException e) {
-            log.error("Unable to add a new DeploymentRevision for " + sanitize(fileName), e);
+        String deploymentRevisionId = generateUniqueID();
+        if (log.isDebugEnabled()) {
+            log.debug("Deployment Revision ID is  generated: " + deploymentRevisionId);
         }
+        DeploymentRevision deploymentRevision = new DeploymentRevision(this.remoteFetchConfigurationId, configPath);
+        deploymentRevision.setFileHash("");
+        deploymentRevision.setItemName(fileName);
+        deploymentRevision.setDeploymentRevisionId(deploymentRevisionId);
+        deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.FAIL);
+        deploymentRevision.setErrorMessage(
+                RemoteFetchConfigurationUtils.trimErrorMessage(exceptionStringBuilder.toString(),
+                        exception));
+        deploymentRevision.setDeployedDate(new Date());
+        deploymentRevision.setLastSynchronizedDate(this.lastIteration);
+        this.pendingCreatedRevisions.put(deploymentRevisionId, deploymentRevision);
+        this.deploymentRevisionMapNotResolved.put(deploymentRevision.getItemName(), deploymentRevision);
     }
 
     /**
@@ -224,12 +561,8 @@ public class ActionListenerImpl implements ActionListener {
 
         DeploymentRevision currentDeploymentRevision = this.deploymentRevisionMap.get(resolvedName);
         if (!currentDeploymentRevision.getFile().equals(configPath)) {
-            try {
-                currentDeploymentRevision.setFile(configPath);
-                this.deploymentRevisionDAO.updateDeploymentRevision(currentDeploymentRevision);
-            } catch (RemoteFetchCoreException e) {
-                log.error("Unable to update DeploymentRevision for " + sanitize(resolvedName), e);
-            }
+            currentDeploymentRevision.setFile(configPath);
+            this.markRevisionUpdated(currentDeploymentRevision);
         }
     }
 
@@ -241,106 +574,339 @@ public class ActionListenerImpl implements ActionListener {
      */
     private void createRevision(String resolvedName, File configPath) {
 
+        String deploymentRevisionId = generateUniqueID();
+        if (log.isDebugEnabled()) {
+            log.debug("Deployment Revision ID is  generated: " + deploymentRevisionId);
+        }
+        DeploymentRevision deploymentRevision = new DeploymentRevision(this.remoteFetchConfigurationId, configPath);
+        deploymentRevision.setFileHash("");
+        deploymentRevision.setItemName(resolvedName);
+        deploymentRevision.setDeploymentRevisionId(deploymentRevisionId);
+        this.pendingCreatedRevisions.put(deploymentRevisionId, deploymentRevision);
+        this.deploymentRevisionMap.put(deploymentRevision.getItemName(), deploymentRevision);
+    }
+
+    /**
+     * Poll directory for new files. When the revision last synchronized is known, only the files changed since
+     * that revision are processed, otherwise all files in the directory are reconciled.
+     *
+     * @param deployer ConfigDeployer
+     */
+    private void pollDirectory(ConfigDeployer deployer) {
+
+        String revision = null;
+        List<FileChange> fileChanges = null;
         try {
-            String deploymentRevisionId = generateUniqueID();
-            if (log.isDebugEnabled()) {
-                log.debug("Deployment Revision ID is  generated: " + deploymentRevisionId);
+            revision = this.repo.getRevision();
+            if (revision != null && this.lastSyncedRevision != null) {
+                fileChanges = this.repo.listChangedFiles(this.lastSyncedRevision);
             }
-            DeploymentRevision deploymentRevision = new DeploymentRevision(this.remoteFetchConfigurationId, configPath);
-            deploymentRevision.setFileHash("");
-            deploymentRevision.setItemName(resolvedName);
-            deploymentRevision.setDeploymentRevisionId(deploymentRevisionId);
-            this.deploymentRevisionDAO.createDeploymentRevision(deploymentRevision);
-            this.deploymentRevisionMap.put(deploymentRevision.getItemName(), deploymentRevision);
         } catch (RemoteFetchCoreException e) {
-            log.error("Unable to add a new DeploymentRevision for " + sanitize(resolvedName), e);
+            log.error("Unable to list changes since last synced revision for RemoteFetchConfiguration id " +
+                    this.remoteFetchConfigurationId + ", all files will be reconciled", e);
+        }
+
+        boolean isSynced;
+        if (fileChanges != null) {
+            isSynced = this.pollChangedFiles(fileChanges);
+        } else {
+            isSynced = this.pollAllFiles();
+        }
+
+        if (isSynced) {
+            this.updateLastSyncedRevision(revision);
         }
     }
 
     /**
-     * Poll directory for new files.
+     * Reconcile all files in the directory against the DeploymentRevisions. Revisions of files no longer in the
+     * directory are marked missing, as when the deletion is seen by {@link #pollChangedFiles(List)}.
      *
-     * @param deployer ConfigDeployer
+     * @return true if the directory was synchronized
      */
-    private void pollDirectory(ConfigDeployer deployer) {
+    private boolean pollAllFiles() {
 
-        List<File> configFiles = null;
+        List<File> configFiles;
 
         try {
             configFiles = this.repo.listFiles();
         } catch (RemoteFetchCoreException e) {
             log.error("Error listing files from repository", e);
-            return;
+            return false;
         }
 
         this.manageRevisions(configFiles);
 
+        Set<File> configFileSet = new HashSet<>(configFiles);
+        for (DeploymentRevision deploymentRevision : this.deploymentRevisionMapNotResolved.values()) {
+            if (!configFileSet.contains(deploymentRevision.getFile()) && deploymentRevision.getDeploymentStatus()
+                    != DeploymentRevision.DeploymentStatus.FILE_MISSING) {
+                this.markRevisionFileMissing(deploymentRevision);
+            }
+        }
         for (DeploymentRevision deploymentRevision : this.deploymentRevisionMap.values()) {
+            if (configFileSet.contains(deploymentRevision.getFile())) {
+                this.deployRevision(deploymentRevision);
+            } else if (deploymentRevision.getDeploymentStatus() != DeploymentRevision.DeploymentStatus.FILE_MISSING) {
+                this.markRevisionFileMissing(deploymentRevision);
+            } else {
+                this.updateLastSynchronizedDate(deploymentRevision);
+            }
+        }
+        return this.saveRevisions();
+    }
 
-            String newHash = "";
-            try {
-                newHash = this.repo.getRevisionHash(deploymentRevision.getFile());
-            } catch (RemoteFetchCoreException e) {
-                log.error("Unable to get new hash for " + sanitize(deploymentRevision.getItemName()), e);
+    /**
+     * Process only the files changed since the revision last synchronized, and retry the files that failed to
+     * resolve or deploy earlier.
+     *
+     * @param fileChanges Files changed since the last synchronized revision
+     * @return true if the directory was synchronized
+     */
+    private boolean pollChangedFiles(List<FileChange> fileChanges) {
+
+        Set<File> modifiedFiles = new LinkedHashSet<>();
+        Set<File> deletedFiles = new HashSet<>();
+        for (FileChange fileChange : fileChanges) {
+            if (fileChange.getChangeType() == FileChange.ChangeType.DELETE) {
+                deletedFiles.add(fileChange.getPath());
+            } else {
+                modifiedFiles.add(fileChange.getPath());
             }
+        }
+        Set<File> failedFiles = this.getFailedFiles();
+        failedFiles.removeAll(deletedFiles);
+        if (log.isDebugEnabled()) {
+            log.debug(modifiedFiles.size() + " files modified and " + deletedFiles.size() + " files deleted since " +
+                    "last synced revision of RemoteFetchConfiguration id " + this.remoteFetchConfigurationId +
+                    ", retrying " + failedFiles.size() + " failed files");
+        }
+        modifiedFiles.addAll(failedFiles);
 
-            // Deploy if new file or updated file
-            if (this.isDeploymentRevisionChanged(deploymentRevision, newHash)) {
+        this.manageRevisions(new ArrayList<>(modifiedFiles));
 
-                try {
-                    deploymentRevision.setFileHash(newHash);
+        // Files that failed to resolve are no longer retried once deleted.
+        for (DeploymentRevision deploymentRevision : this.deploymentRevisionMapNotResolved.values()) {
+            if (deletedFiles.contains(deploymentRevision.getFile()) && deploymentRevision.getDeploymentStatus()
+                    != DeploymentRevision.DeploymentStatus.FILE_MISSING) {
+                this.markRevisionFileMissing(deploymentRevision);
+            }
+        }
 
-                    ConfigurationFileStream configurationFileStream = repo.getFile(deploymentRevision.getFile());
+        for (DeploymentRevision deploymentRevision : this.deploymentRevisionMap.values()) {
+            if (modifiedFiles.contains(deploymentRevision.getFile())) {
+                this.deployRevision(deploymentRevision);
+            } else if (deletedFiles.contains(deploymentRevision.getFile())) {
+                this.markRevisionFileMissing(deploymentRevision);
+            } else {
+                this.updateLastSynchronizedDate(deploymentRevision);
+            }
+        }
+        return this.saveRevisions();
+    }
 
-                    VelocityTemplatedSPDeployer velocityTemplatedSPDeployer =
-                            new VelocityTemplatedSPDeployer(this.tenantId,
-                                    this.remoteFetchConfigurationId);
-                    velocityTemplatedSPDeployer.deploy(configurationFileStream);
+    /**
+     * Deploy the DeploymentRevision if the file is new or updated.
+     *
+     * @param deploymentRevision DeploymentRevision
+     */
+    private void deployRevision(DeploymentRevision deploymentRevision) {
 
-                    deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.SUCCESS);
-                    deploymentRevision.setErrorMessage(null);
+        String newHash = "";
+        try {
+            newHash = this.repo.getContentHash(deploymentRevision.getFile());
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to get new hash for " + sanitize(deploymentRevision.getItemName()), e);
+        }
 
-                } catch (RemoteFetchCoreException | IOException e) {
-                    log.error("Error Deploying " + sanitize(deploymentRevision.getFile().getName()), e);
-                    deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.FAIL);
-                    deploymentRevision.setErrorMessage(RemoteFetchConfigurationUtils.trimErrorMessage(e.getMessage(),
-                            e));
-                }
+        if (this.isLegacyHashOfContent(deploymentRevision, newHash)) {
+            // Only the format of the stored hash changed, store the content hash without deploying again.
+            deploymentRevision.setFileHash(newHash);
+            this.updateLastSynchronizedDate(deploymentRevision);
+            this.markRevisionUpdated(deploymentRevision);
+            return;
+        }
 
-                // Set new deployment Date
-                deploymentRevision.setDeployedDate(new Date());
-                // Set last iteration date as synced Date
-                deploymentRevision.setLastSynchronizedDate(this.lastIteration);
+        // Deploy if new file or updated file
+        if (!this.isDeploymentRevisionChanged(deploymentRevision, newHash)) {
+            this.updateLastSynchronizedDate(deploymentRevision);
+            return;
+        }
 
-                try {
-                    this.deploymentRevisionDAO.updateDeploymentRevision(deploymentRevision);
-                } catch (RemoteFetchCoreException e) {
-                    log.error("Error updating DeploymentRevision for : " + sanitize(deploymentRevision.getItemName())
-                            , e);
-                }
-            } else {
-                // Set last iteration date as synced Date
-                deploymentRevision.setLastSynchronizedDate(this.lastIteration);
-
-                try {
-                    this.deploymentRevisionDAO.updateDeploymentRevision(deploymentRevision);
-                } catch (RemoteFetchCoreException e) {
-                    log.error("Error updating DeploymentRevision for : " + sanitize(deploymentRevision.getItemName())
-                            , e);
-                }
+        try {
+            deploymentRevision.setFileHash(newHash);
+
+            ConfigurationFileStream configurationFileStream = repo.getFile(deploymentRevision.getFile());
+
+            this.templatedDeployer.deploy(configurationFileStream, newHash);
+
+            deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.SUCCESS);
+            deploymentRevision.setErrorMessage(null);
+
+        } catch (RemoteFetchCoreException | IOException e) {
+            log.error("Error Deploying " + sanitize(deploymentRevision.getFile().getName()), e);
+            deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.FAIL);
+            deploymentRevision.setErrorMessage(RemoteFetchConfigurationUtils.trimErrorMessage(e.getMessage(),
+                    e));
+        }
+
+        // Set new deployment Date
+        deploymentRevision.setDeployedDate(new Date());
+        // Set last iteration date as synced Date
+        deploymentRevision.setLastSynchronizedDate(this.lastIteration);
+        this.markRevisionUpdated(deploymentRevision);
+    }
+
+    /**
+     * Mark the DeploymentRevision as missing once its file is deleted from the repository. The hash is cleared so
+     * that the configuration is deployed again if the file is restored.
+     *
+     * @param deploymentRevision DeploymentRevision
+     */
+    private void markRevisionFileMissing(DeploymentRevision deploymentRevision) {
+
+        deploymentRevision.setFileHash("");
+        deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.FILE_MISSING);
+        deploymentRevision.setLastSynchronizedDate(this.lastIteration);
+        this.markRevisionUpdated(deploymentRevision);
+    }
+
+    /**
+     * Set last iteration date as synced date of the DeploymentRevision. It is stored for all DeploymentRevisions of
+     * the configuration when the poll cycle is saved.
+     *
+     * @param deploymentRevision DeploymentRevision
+     */
+    private void updateLastSynchronizedDate(DeploymentRevision deploymentRevision) {
+
+        deploymentRevision.setLastSynchronizedDate(this.lastIteration);
+    }
+
+    /**
+     * Queue an update of the DeploymentRevision, unless it is already queued to be created in this poll cycle.
+     *
+     * @param deploymentRevision DeploymentRevision
+     */
+    private void markRevisionUpdated(DeploymentRevision deploymentRevision) {
+
+        if (!this.pendingCreatedRevisions.containsKey(deploymentRevision.getDeploymentRevisionId())) {
+            this.pendingUpdatedRevisions.put(deploymentRevision.getDeploymentRevisionId(), deploymentRevision);
+        }
+    }
+
+    /**
+     * Write the DeploymentRevisions created and updated in the poll cycle in a single batched transaction, and store
+     * the synced date of all DeploymentRevisions of the configuration. Falls back to writing each
+     * DeploymentRevision separately if the batch fails, so that a single bad row does not fail the whole cycle.
+     *
+     * @return true if all DeploymentRevisions were stored
+     */
+    private boolean saveRevisions() {
+
+        List<DeploymentRevision> createdRevisions = new ArrayList<>(this.pendingCreatedRevisions.values());
+        List<DeploymentRevision> updatedRevisions = new ArrayList<>(this.pendingUpdatedRevisions.values());
+        this.pendingCreatedRevisions.clear();
+        this.pendingUpdatedRevisions.clear();
+
+        // The synced date is written with the batch only when there is no write-behind buffer.
+        Date lastSynchronizedDate = this.syncTimeBuffer == null ? this.lastIteration : null;
+        try {
+            this.deploymentRevisionDAO.saveDeploymentRevisions(this.remoteFetchConfigurationId, createdRevisions,
+                    updatedRevisions, lastSynchronizedDate);
+            if (this.syncTimeBuffer != null) {
+                this.syncTimeBuffer.record(this.remoteFetchConfigurationId, this.lastIteration);
+            }
+            return true;
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to save DeploymentRevisions in batch for RemoteFetchConfiguration id " +
+                    this.remoteFetchConfigurationId + ", saving individually", e);
+        }
+
+        boolean isSaved = true;
+        for (DeploymentRevision deploymentRevision : createdRevisions) {
+            try {
+                this.deploymentRevisionDAO.createDeploymentRevision(deploymentRevision);
+            } catch (RemoteFetchCoreException e) {
+                log.error("Unable to add a new DeploymentRevision for " +
+                        sanitize(deploymentRevision.getItemName()), e);
+                // Forget the revision so that it is created again in the next poll cycle.
+                this.deploymentRevisionMap.remove(deploymentRevision.getItemName(), deploymentRevision);
+                this.deploymentRevisionMapNotResolved.remove(deploymentRevision.getItemName(), deploymentRevision);
+                isSaved = false;
             }
         }
+        for (DeploymentRevision deploymentRevision : updatedRevisions) {
+            try {
+                this.deploymentRevisionDAO.updateDeploymentRevision(deploymentRevision);
+            } catch (RemoteFetchCoreException e) {
+                log.error("Error updating DeploymentRevision for : " + sanitize(deploymentRevision.getItemName())
+                        , e);
+                isSaved = false;
+            }
+        }
+        this.storeLastSynchronizedDate();
+        return isSaved;
     }
 
     /**
-     * Returns if the DeploymentRevision hash changed.
+     * Store the revision the directory was synchronized to, so the next poll only processes later changes.
+     *
+     * @param revision Synchronized revision
+     */
+    private void updateLastSyncedRevision(String revision) {
+
+        if (revision == null || revision.equals(this.lastSyncedRevision)) {
+            return;
+        }
+        try {
+            this.deploymentRevisionDAO.updateLastSyncedRevision(this.remoteFetchConfigurationId, revision,
+                    this.repo.getSourceKey());
+            this.lastSyncedRevision = revision;
+        } catch (RemoteFetchCoreException e) {
+            log.error("Unable to store last synced revision for RemoteFetchConfiguration id " +
+                    this.remoteFetchConfigurationId, e);
+        }
+    }
+
+    /**
+     * Returns if the stored hash of a successfully deployed DeploymentRevision is a revision hash, as stored before
+     * content hashes were, of a revision at which the file had the current content. Such a hash is not compared as
+     * a content hash, so upgrading does not deploy every file again.
+     *
+     * @param deploymentRevision DeploymentRevision
+     * @param newHash            Content hash of current file
+     * @return true if the stored hash identifies the current content
+     */
+    private boolean isLegacyHashOfContent(DeploymentRevision deploymentRevision, String newHash) {
+
+        String currentHash = deploymentRevision.getFileHash();
+        if (newHash.isEmpty() || StringUtils.isEmpty(currentHash) || currentHash.equals(newHash) ||
+                deploymentRevision.getDeploymentStatus() != DeploymentRevision.DeploymentStatus.SUCCESS) {
+            return false;
+        }
+        try {
+            return newHash.equals(this.repo.getContentHash(deploymentRevision.getFile(), currentHash));
+        } catch (RemoteFetchCoreException e) {
+            log.debug("Unable to get content hash at stored revision of " +
+                    sanitize(deploymentRevision.getItemName()), e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns if the DeploymentRevision content hash changed. A DeploymentRevision that failed to deploy is always
+     * deployed again.
      *
      * @param deploymentRevision DeploymentRevision
-     * @param newHash            Hashfile of current file
+     * @param newHash            Content hash of current file
      * @return flag used to point whether file changed or not
      */
     private boolean isDeploymentRevisionChanged(DeploymentRevision deploymentRevision, String newHash) {
 
+        if (!newHash.isEmpty() &&
+                deploymentRevision.getDeploymentStatus() == DeploymentRevision.DeploymentStatus.FAIL) {
+            return true;
+        }
         String currentHash = deploymentRevision.getFileHash();
         // Check if previous revision is none which indicates the addition of a new file and if so deploy.
         try {
@@ -23,19 +23,13 @@ import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
-import org.wso2.carbon.identity.remotefetch.core.dao.RemoteFetchConfigurationDAO;
-import org.wso2.carbon.identity.remotefetch.core.dao.impl.RemoteFetchConfigurationDAOImpl;
 import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchTaskExecutor;
 
 import java.util.List;
-import java.util.Map;
-
-import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_BRANCH;
-import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_DIRECTORY;
-import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_URI;
 
 /**
  * This class is used to handle web hook.{@see https://developer.github.com/webhooks/}
+ * Matching configurations are looked up in the {@link WebHookRoutingIndex} of the tenant.
  */
 public class WebHookHandler {
 
@@ -43,7 +37,10 @@ public class WebHookHandler {
     private String branch;
     private List<String> modifiedFileNames;
     private RemoteFetchTaskExecutor remoteFetchTaskExecutor;
-    private RemoteFetchConfigurationDAO remoteFetchConfigurationDAO;
+    private WebHookRoutingIndex webHookRoutingIndex;
+    private String beforeRevision;
+    private String afterRevision;
+    private boolean isTruncated;
 
     /**
      * Constructor to create web hook handler.
@@ -52,48 +49,80 @@ public class WebHookHandler {
      * @param branch                  Remote repository branch.
      * @param modifiedFileNames       Modified file name list.
      * @param remoteFetchTaskExecutor Task Executor to schedule immediate task for valid web hooks.
+     * @param webHookRoutingIndex     Routing index of web hook configurations.
      */
     public WebHookHandler(String url, String branch, List<String> modifiedFileNames,
-                          RemoteFetchTaskExecutor remoteFetchTaskExecutor) {
+                          RemoteFetchTaskExecutor remoteFetchTaskExecutor, WebHookRoutingIndex webHookRoutingIndex) {
 
         this.url = url;
         this.branch = branch;
         this.modifiedFileNames = modifiedFileNames;
         this.remoteFetchTaskExecutor = remoteFetchTaskExecutor;
-        remoteFetchConfigurationDAO = new RemoteFetchConfigurationDAOImpl();
+        this.webHookRoutingIndex = webHookRoutingIndex;
+    }
+
+    /**
+     * Constructor to create web hook handler deploying only the files modified by the push.
+     *
+     * @param url                     Remote repository clone url.
+     * @param branch                  Remote repository branch.
+     * @param modifiedFileNames       Modified file name list.
+     * @param beforeRevision          Revision of the branch before the push.
+     * @param afterRevision           Revision of the branch after the push.
+     * @param isTruncated             Whether the modified file name list is truncated.
+     * @param remoteFetchTaskExecutor Task Executor to schedule immediate task for valid web hooks.
+     * @param webHookRoutingIndex     Routing index of web hook configurations.
+     */
+    public WebHookHandler(String url, String branch, List<String> modifiedFileNames, String beforeRevision,
+                          String afterRevision, boolean isTruncated, RemoteFetchTaskExecutor remoteFetchTaskExecutor,
+                          WebHookRoutingIndex webHookRoutingIndex) {
+
+        this(url, branch, modifiedFileNames, remoteFetchTaskExecutor, webHookRoutingIndex);
+        this.beforeRevision = beforeRevision;
+        this.afterRevision = afterRevision;
+        this.isTruncated = isTruncated;
     }
 
     /**
      * This method is used to check if web hook matches with any remote fetch configuration for particular tenant.
-     * If so schedule a immediate task for matched remote fetch configuration.
+     * If so schedule a immediate task for matched remote fetch configuration. The task deploys only the modified
+     * files when the push revisions are known and the modified file list is complete.
      *
      * @throws RemoteFetchCoreException RemoteFetchCoreException
      */
     public void handleWebHook() throws RemoteFetchCoreException {
 
-        int tenantId = IdentityTenantUtil.getTenantId(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
-        List<RemoteFetchConfiguration> remoteFetchConfigurations =
-                this.remoteFetchConfigurationDAO.getWebHookRemoteFetchConfigurationsByTenant(tenantId);
-        for (RemoteFetchConfiguration remoteFetchConfiguration : remoteFetchConfigurations) {
-            if (isWebHookMatches(remoteFetchConfiguration)) {
+        handleWebHook(IdentityTenantUtil.getTenantId(CarbonContext.getThreadLocalCarbonContext().getTenantDomain()));
+    }
+
+    /**
+     * This method is used to check if web hook matches with any remote fetch configuration of the given tenant, when
+     * the web hook is handled outside the request of the tenant.
+     *
+     * @param tenantId Tenant id
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    public void handleWebHook(int tenantId) throws RemoteFetchCoreException {
+
+        for (RemoteFetchConfiguration remoteFetchConfiguration : this.webHookRoutingIndex
+                .getMatchingConfigurations(tenantId, url, branch, isTruncated ? null : modifiedFileNames)) {
+            if (isScopedToModifiedFiles()) {
+                remoteFetchTaskExecutor.startImmediateTaskExecution(remoteFetchConfiguration, beforeRevision,
+                        afterRevision, modifiedFileNames);
+            } else {
                 remoteFetchTaskExecutor.startImmediateTaskExecution(remoteFetchConfiguration);
             }
         }
     }
 
     /**
-     * Check whether given web hook params are matching with remote fetch configuration.
+     * Check whether the push can be deployed from the modified file list.
      *
-     * @param remoteFetchConfiguration RemoteFetchConfiguration
-     * @return flag used to point whether webhook matches with corresponding remote fetch configuration.
+     * @return true if the push revisions are known and the modified file list is complete
      */
-    private boolean isWebHookMatches(RemoteFetchConfiguration remoteFetchConfiguration) {
-
-        Map<String, String> repositoryManagerAttributes = remoteFetchConfiguration.getRepositoryManagerAttributes();
+    private boolean isScopedToModifiedFiles() {
 
-        return (StringUtils.equalsIgnoreCase(url, repositoryManagerAttributes.get(ID_UI_FIELD_URI))) &&
-                (StringUtils.equalsIgnoreCase(branch, repositoryManagerAttributes.get(ID_UI_FIELD_BRANCH))) &&
-                modifiedFileNames.stream().anyMatch(modifiedFileName ->
-                        (modifiedFileName.startsWith(repositoryManagerAttributes.get(ID_UI_FIELD_DIRECTORY))));
+        return !isTruncated && modifiedFileNames != null && StringUtils.isNotEmpty(beforeRevision) &&
+                StringUtils.isNotEmpty(afterRevision);
     }
 }
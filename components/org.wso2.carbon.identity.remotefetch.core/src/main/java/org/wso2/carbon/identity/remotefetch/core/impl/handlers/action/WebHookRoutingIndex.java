@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.handlers.action;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.core.dao.RemoteFetchConfigurationDAO;
+import org.wso2.carbon.identity.remotefetch.core.dao.impl.RemoteFetchConfigurationDAOImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_BRANCH;
+import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_DIRECTORY;
+import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_URI;
+
+/**
+ * In-memory routing index of web hook remote fetch configurations per tenant. Configurations are keyed by
+ * normalized repository URI and branch, and their directories are held in a path segment trie, so matching a web
+ * hook walks each modified file path once, with a single read of the configuration version as database access.
+ * Routes of a tenant are built on first use and invalidated when a configuration of the tenant is added, updated or
+ * deleted. Routes are also rebuilt when the last configuration version changed since they were built, to pick up
+ * changes made by other nodes.
+ */
+public class WebHookRoutingIndex {
+
+    private static final Log log = LogFactory.getLog(WebHookRoutingIndex.class);
+    private static final String PATH_SEPARATOR = "/";
+    private static final String GIT_SUFFIX = ".git";
+    private static final char ROUTE_KEY_SEPARATOR = '#';
+
+    private RemoteFetchConfigurationDAO remoteFetchConfigurationDAO = new RemoteFetchConfigurationDAOImpl();
+    private Map<Integer, TenantRoutes> tenantRoutes = new ConcurrentHashMap<>();
+
+    /**
+     * Get web hook configurations of the tenant whose repository URI and branch match the web hook, and whose
+     * directory contains any of the modified files.
+     *
+     * @param tenantId          Tenant id
+     * @param url               Remote repository clone url
+     * @param branch            Remote repository branch
+     * @param modifiedFileNames Modified file name list, or null to match all directories when it is unknown
+     * @return Matching RemoteFetchConfigurations
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    public Set<RemoteFetchConfiguration> getMatchingConfigurations(int tenantId, String url, String branch,
+                                                                   List<String> modifiedFileNames)
+            throws RemoteFetchCoreException {
+
+        Set<RemoteFetchConfiguration> matchingConfigurations = new LinkedHashSet<>();
+        PathNode root = this.getTenantRoutes(tenantId).routes.get(toRouteKey(url, branch));
+        if (root == null) {
+            return matchingConfigurations;
+        }
+        if (modifiedFileNames == null) {
+            collectConfigurations(root, matchingConfigurations);
+            return matchingConfigurations;
+        }
+        for (String modifiedFileName : modifiedFileNames) {
+            PathNode node = root;
+            matchingConfigurations.addAll(node.configurations);
+            for (String segment : toSegments(modifiedFileName)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    break;
+                }
+                matchingConfigurations.addAll(node.configurations);
+            }
+        }
+        return matchingConfigurations;
+    }
+
+    /**
+     * Collect the configurations of a node and all nodes below it.
+     *
+     * @param node           Directory trie node
+     * @param configurations Collected configurations
+     */
+    private static void collectConfigurations(PathNode node, Set<RemoteFetchConfiguration> configurations) {
+
+        configurations.addAll(node.configurations);
+        for (PathNode child : node.children.values()) {
+            collectConfigurations(child, configurations);
+        }
+    }
+
+    /**
+     * Invalidate the routes of a tenant, after a configuration of the tenant is added, updated or deleted.
+     *
+     * @param tenantId Tenant id
+     */
+    public void invalidate(int tenantId) {
+
+        this.tenantRoutes.remove(tenantId);
+    }
+
+    /**
+     * Get the routes of a tenant, building them if not built or built before the last configuration version.
+     * The version is read before the configurations are loaded, so routes that may have missed a change are
+     * rebuilt on the next lookup. Routes are built outside the map, so lookups of other tenants don't wait on the
+     * database; concurrent lookups of the same tenant may each build the routes.
+     *
+     * @param tenantId Tenant id
+     * @return TenantRoutes
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private TenantRoutes getTenantRoutes(int tenantId) throws RemoteFetchCoreException {
+
+        long version = this.remoteFetchConfigurationDAO.getLastConfigVersion();
+        TenantRoutes routes = this.tenantRoutes.get(tenantId);
+        if (routes != null && routes.version == version) {
+            return routes;
+        }
+        TenantRoutes builtRoutes = this.buildTenantRoutes(tenantId, version);
+        this.tenantRoutes.merge(tenantId, builtRoutes,
+                (current, built) -> current.version > built.version ? current : built);
+        return builtRoutes;
+    }
+
+    /**
+     * Build the routes of a tenant from its web hook configurations.
+     *
+     * @param tenantId Tenant id
+     * @param version  Last configuration version read before loading the configurations
+     * @return TenantRoutes
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private TenantRoutes buildTenantRoutes(int tenantId, long version) throws RemoteFetchCoreException {
+
+        List<RemoteFetchConfiguration> remoteFetchConfigurations =
+                this.remoteFetchConfigurationDAO.getWebHookRemoteFetchConfigurationsByTenant(tenantId);
+        TenantRoutes routes = new TenantRoutes(version);
+        for (RemoteFetchConfiguration remoteFetchConfiguration : remoteFetchConfigurations) {
+            Map<String, String> repositoryManagerAttributes = remoteFetchConfiguration.getRepositoryManagerAttributes();
+            if (repositoryManagerAttributes == null) {
+                continue;
+            }
+            PathNode node = routes.routes.computeIfAbsent(toRouteKey(repositoryManagerAttributes.get(ID_UI_FIELD_URI),
+                    repositoryManagerAttributes.get(ID_UI_FIELD_BRANCH)), key -> new PathNode());
+            for (String segment : toSegments(repositoryManagerAttributes.get(ID_UI_FIELD_DIRECTORY))) {
+                node = node.children.computeIfAbsent(segment, key -> new PathNode());
+            }
+            node.configurations.add(remoteFetchConfiguration);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Web hook routes built for tenant " + tenantId + " with " + remoteFetchConfigurations.size() +
+                    " configurations.");
+        }
+        return routes;
+    }
+
+    /**
+     * Build the route key of a repository URI and branch. URIs and branches are matched case insensitively, and
+     * URIs with or without a trailing separator or .git suffix are treated as the same repository.
+     *
+     * @param url    Repository URI
+     * @param branch Branch
+     * @return Route key
+     */
+    public static String toRouteKey(String url, String branch) {
+
+        String normalizedUrl = StringUtils.trimToEmpty(url).toLowerCase(Locale.ENGLISH);
+        normalizedUrl = StringUtils.removeEnd(StringUtils.stripEnd(normalizedUrl, PATH_SEPARATOR), GIT_SUFFIX);
+        return normalizedUrl + ROUTE_KEY_SEPARATOR + StringUtils.trimToEmpty(branch).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Split a path into its non empty segments.
+     *
+     * @param path Path
+     * @return Path segments
+     */
+    private static List<String> toSegments(String path) {
+
+        String[] segments = StringUtils.split(path, PATH_SEPARATOR);
+        if (segments == null) {
+            return Collections.emptyList();
+        }
+        List<String> segmentList = new ArrayList<>(segments.length);
+        Collections.addAll(segmentList, segments);
+        return segmentList;
+    }
+
+    /**
+     * Holds the routes of a tenant, keyed by route key, with the configuration version they were built at.
+     */
+    private static class TenantRoutes {
+
+        private final Map<String, PathNode> routes = new HashMap<>();
+        private final long version;
+
+        private TenantRoutes(long version) {
+
+            this.version = version;
+        }
+    }
+
+    /**
+     * Node of the directory trie, holding the configurations whose directory ends at this node.
+     */
+    private static class PathNode {
+
+        private final Map<String, PathNode> children = new HashMap<>();
+        private final List<RemoteFetchConfiguration> configurations = new ArrayList<>();
+    }
+}
@@ -22,9 +22,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
 import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+import org.wso2.carbon.identity.remotefetch.core.dao.DeploymentRevisionDAO;
+import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.VelocityTemplatedSPDeployer;
 import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.ActionListenerImpl;
 
-import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ActionListener that polls repository with frequency for changes to be deployed.
@@ -42,15 +44,33 @@ public class PollingActionListener extends ActionListenerImpl {
         this.frequency = frequency;
     }
 
+    PollingActionListener(RepositoryManager repo, ConfigDeployer configDeployer, int frequency,
+                          String remoteFetchConfigurationId, int tenantId,
+                          VelocityTemplatedSPDeployer templatedDeployer, DeploymentRevisionDAO deploymentRevisionDAO) {
+
+        super(repo, configDeployer, remoteFetchConfigurationId, tenantId, templatedDeployer, deploymentRevisionDAO);
+        this.frequency = frequency;
+    }
+
+    /**
+     * Get polling frequency in seconds.
+     *
+     * @return frequency
+     */
+    public int getFrequency() {
+
+        return this.frequency;
+    }
+
     /**
-     * Contains logic to listen for updates for polling type.
+     * Contains logic to listen for updates for polling type. Runs only once the polling frequency elapsed since the
+     * last execution, triggered executions through {@link #executeNow()} are not gated.
      */
     @Override
     public void execute() {
 
-        Calendar nextIteration = Calendar.getInstance();
-        nextIteration.add(Calendar.MINUTE, this.frequency);
-        if ((lastIteration == null) || (lastIteration.before(nextIteration.getTime()))) {
+        if ((lastIteration == null) || (System.currentTimeMillis() - lastIteration.getTime()
+                >= TimeUnit.SECONDS.toMillis(this.frequency))) {
             super.execute();
             if (log.isDebugEnabled()) {
                 log.debug("Polling Action Listener is executed`");
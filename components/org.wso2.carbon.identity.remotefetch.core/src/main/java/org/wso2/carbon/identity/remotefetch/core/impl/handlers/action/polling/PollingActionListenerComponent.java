@@ -22,6 +22,7 @@ import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
 import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilder;
 import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerComponent;
 import org.wso2.carbon.identity.remotefetch.common.ui.UIField;
+import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -79,6 +80,7 @@ public class PollingActionListenerComponent implements ActionListenerComponent {
                 "Number of seconds polling should occur", "^\\d+$", "60",
                 true, false, false
         ));
+        fieldList.add(RemoteFetchConfigurationUtils.buildDebounceWindowField());
         return fieldList;
     }
 }
@@ -22,7 +22,9 @@ import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
 import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilder;
 import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerComponent;
 import org.wso2.carbon.identity.remotefetch.common.ui.UIField;
+import org.wso2.carbon.identity.remotefetch.core.util.RemoteFetchConfigurationUtils;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -65,13 +67,13 @@ public class WebHookActionListenerComponent implements ActionListenerComponent {
 
     /**
      * Returns list of UIFields to configure UI.
-     * For this case null cause REST endpoint only.
+     * Web hooks are received by a REST endpoint, so only the debounce window of the pushes is configured.
      *
      * @return List of UI fields.
      */
     @Override
     public List<UIField> getUIFields() {
 
-        return null;
+        return Collections.singletonList(RemoteFetchConfigurationUtils.buildDebounceWindowField());
     }
 }
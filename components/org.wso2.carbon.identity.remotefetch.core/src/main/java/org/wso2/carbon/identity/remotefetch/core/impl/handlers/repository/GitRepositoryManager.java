@@ -22,33 +22,55 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.PullCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FS;
 import org.wso2.carbon.identity.remotefetch.common.ConfigurationFileStream;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.FileChange;
 import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Wrapper class of JGit implementations.
@@ -56,6 +78,8 @@ import java.util.List;
 public class GitRepositoryManager implements RepositoryManager {
 
     private static final Log log = LogFactory.getLog(GitRepositoryManager.class);
+    private static final Map<String, Object> repositoryLocks = new ConcurrentHashMap<>();
+    private static final Map<String, CompletedFetch> completedFetches = new ConcurrentHashMap<>();
 
     private String uri = "";
     private String branch = "";
@@ -65,16 +89,37 @@ public class GitRepositoryManager implements RepositoryManager {
     private Repository repo;
     private Git git;
     private CredentialsProvider credentialsProvider;
+    private boolean isBare;
+    private boolean isShared;
+    private Map<String, RevCommit> lastCommitIndex = new HashMap<>();
+    private ObjectId lastCommitIndexHead;
+    private Map<String, ObjectId> contentIndex = new LinkedHashMap<>();
+    private ObjectId contentIndexHead;
 
     public GitRepositoryManager(String name, String uri, String branch, File directory, File workingDir,
                                 CredentialsProvider credentialsProvider) {
 
+        this(name, uri, branch, directory, workingDir, credentialsProvider, false, false);
+    }
+
+    /**
+     * Creates a repository manager, which clones the repository without a working tree when bare is set.
+     * Files are always read from the object database, so a checked out working tree is not required.
+     * An existing local repository is used as it is, regardless of the mode.
+     * When shared is set, every repository manager with the same name uses a single Repository instance, so the
+     * repository is cloned and fetched once for all configurations pointing to it. Shared repositories are bare.
+     */
+    public GitRepositoryManager(String name, String uri, String branch, File directory, File workingDir,
+                                CredentialsProvider credentialsProvider, boolean isBare, boolean isShared) {
+
         this.name = name;
         this.branch = branch;
         this.uri = uri;
         this.repoPath = new File(workingDir, this.name);
         this.fileRoot = directory;
         this.credentialsProvider = credentialsProvider;
+        this.isBare = isBare || isShared;
+        this.isShared = isShared;
 
         // Check if repository path exists, if so load as local repository
         try {
@@ -94,18 +139,27 @@ public class GitRepositoryManager implements RepositoryManager {
                 .setDirectory(this.repoPath)
                 .setBranchesToClone(Arrays.asList(branch))
                 .setBranch(this.branch)
+                .setBare(this.isBare)
                 .setCredentialsProvider(this.credentialsProvider);
         return cloneRequest.call().getRepository();
     }
 
     private Repository getLocalRepository() throws IOException {
 
+        if (this.isShared) {
+            return RepositoryCache.open(RepositoryCache.FileKey.exact(this.repoPath, FS.DETECTED));
+        }
         FileRepositoryBuilder localBuilder = new FileRepositoryBuilder();
         return localBuilder.findGitDir(this.repoPath).build();
     }
 
     private void pullRepository() throws GitAPIException {
 
+        if (this.repo.isBare()) {
+            this.fetchBranch();
+            return;
+        }
+
         PullCommand pullRequest = this.git.pull();
         try {
             pullRequest.setCredentialsProvider(this.credentialsProvider);
@@ -115,42 +169,286 @@ public class GitRepositoryManager implements RepositoryManager {
         }
     }
 
-    private RevCommit getLastCommit(File path) throws GitAPIException {
+    /**
+     * Fetch the configured branch straight into the local branch ref of a bare repository.
+     */
+    private void fetchBranch() throws GitAPIException {
+
+        String branchRef = Constants.R_HEADS + this.branch;
+        FetchCommand fetchRequest = this.git.fetch()
+                .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                .setRefSpecs(new RefSpec("+" + branchRef + ":" + branchRef))
+                .setCredentialsProvider(this.credentialsProvider);
+        try {
+            fetchRequest.call();
+        } catch (JGitInternalException e) {
+            log.error("Unable to fetch git repository: " + sanitize(this.uri), e);
+        }
+    }
+
+    /**
+     * Checks whether the configured branch on the remote points to the commit already available locally, by
+     * listing the remote ref, which is much cheaper than negotiating a fetch.
+     * <p>
+     * This compares against the local branch, not against the revision a configuration last synchronized. The local
+     * branch may have been moved by another configuration sharing the repository, so skipping the fetch does not
+     * mean there is nothing to deploy. Callers decide that by comparing {@link #getRevision()} with their own
+     * synchronized revision, as ActionListenerImpl does before skipping a poll.
+     *
+     * @return true if the remote branch is unchanged, false if it changed or could not be checked
+     */
+    private boolean isRemoteBranchUnchanged() {
+
+        try {
+            ObjectId localRef = this.resolveHead();
+            if (localRef == null) {
+                return false;
+            }
+            Collection<Ref> remoteRefs = Git.lsRemoteRepository()
+                    .setRemote(this.uri)
+                    .setHeads(true)
+                    .setCredentialsProvider(this.credentialsProvider)
+                    .call();
+            for (Ref remoteRef : remoteRefs) {
+                if ((Constants.R_HEADS + this.branch).equals(remoteRef.getName())) {
+                    return localRef.equals(remoteRef.getObjectId());
+                }
+            }
+        } catch (GitAPIException | JGitInternalException | IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to list remote refs of repository " + sanitize(this.uri) + ", fetching", e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the commit of the configured branch, from the fetched branch ref for bare repositories and from
+     * HEAD otherwise.
+     */
+    private ObjectId resolveHead() throws IOException {
+
+        if (this.repo.isBare()) {
+            ObjectId branchRef = this.repo.resolve(Constants.R_HEADS + this.branch);
+            if (branchRef != null) {
+                return branchRef;
+            }
+        }
+        return this.repo.resolve(Constants.HEAD);
+    }
+
+    private synchronized RevCommit getLastCommit(File path) throws IOException, RemoteFetchCoreException {
+
+        ObjectId headRef = this.resolveHead();
+        if (headRef == null) {
+            throw new RemoteFetchCoreException("Unable to resolve HEAD of repository " + sanitize(this.uri));
+        }
+        if (!headRef.equals(this.lastCommitIndexHead)) {
+            this.lastCommitIndex = this.buildLastCommitIndex(headRef);
+            this.lastCommitIndexHead = headRef.copy();
+        }
 
-        List<RevCommit> revCommits = new ArrayList<>();
-        Iterable<RevCommit> logIterater = git.log().addPath(path.getPath()).call();
-        logIterater.forEach(revCommits::add);
-        return revCommits.get(0);
+        RevCommit commit = this.lastCommitIndex.get(path.getPath());
+        if (commit == null) {
+            throw new RemoteFetchCoreException("Unable to find last commit for file " + sanitize(path.getPath()));
+        }
+        return commit;
+    }
+
+    /**
+     * Builds an index of path to the last commit that modified it, for every file under the configured
+     * directory at the given HEAD. History is walked once, newest first, and the walk stops as soon as
+     * every file has been resolved.
+     *
+     * @param headRef HEAD to build the index for
+     * @return Map of file path to last commit
+     * @throws IOException IOException
+     */
+    private Map<String, RevCommit> buildLastCommitIndex(ObjectId headRef) throws IOException {
+
+        Map<String, RevCommit> index = new HashMap<>();
+        TreeFilter pathFilter = PathFilter.create(this.fileRoot.getPath());
+
+        try (ObjectReader reader = this.repo.newObjectReader(); RevWalk revWalk = new RevWalk(reader)) {
+            RevCommit headCommit = revWalk.parseCommit(headRef);
+            Set<String> unresolvedPaths = new HashSet<>();
+            try (TreeWalk treeWalk = new TreeWalk(reader)) {
+                treeWalk.addTree(headCommit.getTree());
+                treeWalk.setRecursive(true);
+                treeWalk.setFilter(pathFilter);
+                while (treeWalk.next()) {
+                    unresolvedPaths.add(treeWalk.getPathString());
+                }
+            }
+
+            revWalk.sort(RevSort.COMMIT_TIME_DESC);
+            revWalk.markStart(headCommit);
+            for (RevCommit commit : revWalk) {
+                if (unresolvedPaths.isEmpty()) {
+                    break;
+                }
+                for (String modifiedPath : this.getModifiedPaths(reader, revWalk, commit, pathFilter)) {
+                    if (unresolvedPaths.remove(modifiedPath)) {
+                        index.put(modifiedPath, commit);
+                    }
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Built last commit index of " + index.size() + " files for repository " +
+                    sanitize(this.uri));
+        }
+        return index;
+    }
+
+    /**
+     * Lists paths modified by a commit. Similar to git log, a path of a merge commit is considered modified only
+     * if it differs from every parent.
+     */
+    private List<String> getModifiedPaths(ObjectReader reader, RevWalk revWalk, RevCommit commit,
+                                          TreeFilter pathFilter) throws IOException {
+
+        List<String> modifiedPaths = new ArrayList<>();
+        RevCommit[] parents = commit.getParents();
+
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(commit.getTree());
+            for (RevCommit parent : parents) {
+                treeWalk.addTree(revWalk.parseCommit(parent).getTree());
+            }
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(parents.length == 0 ? pathFilter : AndTreeFilter.create(pathFilter,
+                    TreeFilter.ANY_DIFF));
+
+            while (treeWalk.next()) {
+                boolean modified = true;
+                for (int i = 1; i <= parents.length; i++) {
+                    if (treeWalk.idEqual(0, i)) {
+                        modified = false;
+                        break;
+                    }
+                }
+                if (modified) {
+                    modifiedPaths.add(treeWalk.getPathString());
+                }
+            }
+        }
+        return modifiedPaths;
     }
 
     /**
      * Method to Check for updates on the remote repository and fetch to local.
+     * <p>
+     * A request waiting on the repository lock is served by a fetch of the same branch that started after the
+     * request was made, as that fetch has already seen every change the request could see, so concurrent requests
+     * for a repository go to the remote once instead of once each.
      *
      * @throws RemoteFetchCoreException RemoteFetchCoreException
      */
     @Override
     public void fetchRepository() throws RemoteFetchCoreException {
 
-        if (this.git != null) {
-            try {
-                this.pullRepository();
-            } catch (GitAPIException e) {
-                log.error("Unable to pull repository " + sanitize(this.uri) + " from remote", e);
-                throw new RemoteFetchCoreException("Unable to pull repository " + sanitize(this.uri) + " from remote",
-                        e);
+        long requestedTime = System.nanoTime();
+
+        // Repositories are cloned and fetched by one repository manager at a time, as the local repository may be
+        // shared with other configurations, or with a concurrent run of the same configuration.
+        synchronized (this.getRepositoryLock()) {
+            if (this.git == null && this.repoPath.isDirectory()) {
+                try {
+                    this.repo = this.getLocalRepository();
+                    this.git = new Git(this.repo);
+                } catch (IOException e) {
+                    log.info("IOException setting local repository, will be cloned");
+                }
             }
-        } else {
-            try {
-                this.repo = this.cloneRepository();
-            } catch (GitAPIException e) {
-                log.error("Unable to clone repository " + sanitize(this.uri) + " from remote", e);
-                throw new RemoteFetchCoreException("Unable to clone repository  " + sanitize(this.uri) + " from remote",
-                        e);
+
+            long startedTime = System.nanoTime();
+            if (this.git != null) {
+                CompletedFetch completedFetch = completedFetches.get(this.getFetchKey());
+                if (completedFetch != null && completedFetch.startedTime - requestedTime >= 0) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Repository " + sanitize(this.uri) + " was fetched at revision " +
+                                completedFetch.revision + " while waiting, skipping fetch");
+                    }
+                    return;
+                }
+                if (this.isRemoteBranchUnchanged()) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Remote branch of repository " + sanitize(this.uri) + " is unchanged, " +
+                                "skipping fetch");
+                    }
+                    this.recordCompletedFetch(startedTime);
+                    return;
+                }
+                try {
+                    this.pullRepository();
+                } catch (GitAPIException e) {
+                    log.error("Unable to pull repository " + sanitize(this.uri) + " from remote", e);
+                    throw new RemoteFetchCoreException("Unable to pull repository " + sanitize(this.uri) +
+                            " from remote", e);
+                }
+            } else {
+                try {
+                    this.repo = this.cloneRepository();
+                    if (this.isShared) {
+                        this.repo.close();
+                        this.repo = this.getLocalRepository();
+                    }
+                } catch (GitAPIException | IOException e) {
+                    log.error("Unable to clone repository " + sanitize(this.uri) + " from remote", e);
+                    throw new RemoteFetchCoreException("Unable to clone repository  " + sanitize(this.uri) +
+                            " from remote", e);
+                }
+                this.git = new Git(this.repo);
             }
-            this.git = new Git(this.repo);
+            this.recordCompletedFetch(startedTime);
         }
     }
 
+    /**
+     * Records a fetch of the configured branch, so requests that waited on it don't fetch again. Must be called
+     * holding the repository lock.
+     */
+    private void recordCompletedFetch(long startedTime) {
+
+        String revision = null;
+        try {
+            ObjectId headRef = this.resolveHead();
+            revision = headRef != null ? headRef.getName() : null;
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to resolve fetched revision of repository " + sanitize(this.uri), e);
+            }
+        }
+        completedFetches.put(this.getFetchKey(), new CompletedFetch(startedTime, revision));
+    }
+
+    private String getFetchKey() {
+
+        return this.repoPath.getAbsolutePath() + "#" + this.branch;
+    }
+
+    /**
+     * Close the local repository. A shared repository is only released by this repository manager, and stays open
+     * for the other repository managers using it.
+     */
+    @Override
+    public void close() {
+
+        synchronized (this.getRepositoryLock()) {
+            if (this.repo != null) {
+                this.repo.close();
+                this.repo = null;
+                this.git = null;
+            }
+        }
+    }
+
+    private Object getRepositoryLock() {
+
+        return repositoryLocks.computeIfAbsent(this.repoPath.getAbsolutePath(), path -> new Object());
+    }
+
     /**
      * Returns an InputStream for the specified path from local repository.
      *
@@ -166,13 +464,11 @@ public class GitRepositoryManager implements RepositoryManager {
         }
 
         try (ObjectReader reader = this.repo.newObjectReader()) {
-            RevCommit commit = this.getLastCommit(location);
-            TreeWalk treewalk = TreeWalk.forPath(this.repo, location.getPath(), commit.getTree());
-            return new ConfigurationFileStream(reader.open(treewalk.getObjectId(0)).openStream(), location);
-        } catch (GitAPIException e) {
-            throw new RemoteFetchCoreException("Unable to get last revision of file", e);
-        } catch (NullPointerException e) {
-            throw new RemoteFetchCoreException("Unable to resolve tree for file give", e);
+            ObjectId blobId = this.getContentIndex().get(location.getPath());
+            if (blobId == null) {
+                throw new RemoteFetchCoreException("Unable to resolve tree for file given");
+            }
+            return new ConfigurationFileStream(reader.open(blobId).openStream(), location);
         } catch (IOException e) {
             throw new RemoteFetchCoreException("Unable to read file from local", e);
         }
@@ -214,6 +510,77 @@ public class GitRepositoryManager implements RepositoryManager {
         }
     }
 
+    /**
+     * Gets the blob id of the file at HEAD, which only changes when the content of the file changes.
+     *
+     * @param location Configuration File location
+     * @return Blob id of the file
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public String getContentHash(File location) throws RemoteFetchCoreException {
+
+        ObjectId blobId = this.getContentIndex().get(location.getPath());
+        if (blobId == null) {
+            throw new RemoteFetchCoreException("Unable to find file " + sanitize(location.getPath()) +
+                    " in repository");
+        }
+        return blobId.getName();
+    }
+
+    /**
+     * Gets the blob id the file had at the given commit.
+     *
+     * @param location Configuration File location
+     * @param revision Commit id
+     * @return Blob id of the file, or null if the revision is not a known commit or the file is not in it
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public String getContentHash(File location, String revision) throws RemoteFetchCoreException {
+
+        if (this.repo == null || !ObjectId.isId(revision)) {
+            return null;
+        }
+        try (RevWalk revWalk = new RevWalk(this.repo)) {
+            RevObject revObject = revWalk.parseAny(ObjectId.fromString(revision));
+            if (!(revObject instanceof RevCommit)) {
+                return null;
+            }
+            try (TreeWalk treeWalk = TreeWalk.forPath(this.repo, location.getPath(),
+                    ((RevCommit) revObject).getTree())) {
+                return treeWalk != null ? treeWalk.getObjectId(0).getName() : null;
+            }
+        } catch (MissingObjectException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RemoteFetchCoreException("Repository I/O exception", e);
+        }
+    }
+
+    /**
+     * Gets the id of the repository URI, branch and directory, as revisions only describe the directory of a
+     * repository and branch. The SHA-256 digest is used so the key has a fixed length regardless of the URI.
+     *
+     * @return Source key
+     */
+    @Override
+    public String getSourceKey() {
+
+        String source = this.uri + "#" + this.branch + "#" + (this.fileRoot != null ? this.fileRoot.getPath() : "");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sourceKey = new StringBuilder(digest.length * 2);
+            for (byte digestByte : digest) {
+                sourceKey.append(String.format("%02x", digestByte));
+            }
+            return sourceKey.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException("SHA-256 is not supported by the platform", e);
+        }
+    }
+
     /**
      * List files from local repository.
      *
@@ -224,34 +591,171 @@ public class GitRepositoryManager implements RepositoryManager {
     public List<File> listFiles() throws RemoteFetchCoreException {
 
         List<File> availableFiles = new ArrayList<>();
+        for (String path : this.getContentIndex().keySet()) {
+            availableFiles.add(new File(path));
+        }
+        return availableFiles;
+    }
 
-        TreeWalk treeWalk = new TreeWalk(this.repo);
-        TreeFilter pathFilter = PathFilter.create(this.fileRoot.getPath());
+    /**
+     * Gets the commit id of HEAD.
+     *
+     * @return Commit id of HEAD, or null if the repository is not available yet
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public String getRevision() throws RemoteFetchCoreException {
 
-        RevWalk revWalk = new RevWalk(this.repo);
-        ObjectId headRef;
+        if (this.repo == null) {
+            return null;
+        }
         try {
-            headRef = this.repo.resolve(Constants.HEAD);
+            ObjectId headRef = this.resolveHead();
+            return headRef != null ? headRef.getName() : null;
+        } catch (IOException e) {
+            throw new RemoteFetchCoreException("Unable to resolve HEAD of repository " + sanitize(this.uri), e);
+        }
+    }
+
+    /**
+     * List files under the configured directory changed between the given commit and HEAD, by diffing the
+     * two trees.
+     *
+     * @param fromRevision Commit id to compare HEAD against
+     * @return List of file changes, or null if the given commit is not available in the local repository
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public List<FileChange> listChangedFiles(String fromRevision) throws RemoteFetchCoreException {
+
+        if (this.repo == null || !ObjectId.isId(fromRevision)) {
+            return null;
+        }
+
+        List<FileChange> fileChanges = new ArrayList<>();
+        try (ObjectReader reader = this.repo.newObjectReader(); RevWalk revWalk = new RevWalk(reader);
+             TreeWalk treeWalk = new TreeWalk(reader)) {
+
+            ObjectId headRef = this.resolveHead();
+            if (headRef == null) {
+                return null;
+            }
+            RevCommit fromCommit;
+            try {
+                fromCommit = revWalk.parseCommit(ObjectId.fromString(fromRevision));
+            } catch (MissingObjectException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Commit " + sanitize(fromRevision) + " is not available in repository " +
+                            sanitize(this.uri));
+                }
+                return null;
+            }
+
+            treeWalk.addTree(fromCommit.getTree());
             treeWalk.addTree(revWalk.parseCommit(headRef).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(PathFilter.create(this.fileRoot.getPath()), TreeFilter.ANY_DIFF));
+
+            for (DiffEntry diffEntry : DiffEntry.scan(treeWalk)) {
+                switch (diffEntry.getChangeType()) {
+                    case ADD:
+                    case COPY:
+                        fileChanges.add(new FileChange(new File(diffEntry.getNewPath()), FileChange.ChangeType.ADD));
+                        break;
+                    case MODIFY:
+                        fileChanges.add(new FileChange(new File(diffEntry.getNewPath()),
+                                FileChange.ChangeType.MODIFY));
+                        break;
+                    case DELETE:
+                        fileChanges.add(new FileChange(new File(diffEntry.getOldPath()),
+                                FileChange.ChangeType.DELETE));
+                        break;
+                    case RENAME:
+                        fileChanges.add(new FileChange(new File(diffEntry.getOldPath()),
+                                FileChange.ChangeType.DELETE));
+                        fileChanges.add(new FileChange(new File(diffEntry.getNewPath()), FileChange.ChangeType.ADD));
+                        break;
+                    default:
+                        break;
+                }
+            }
         } catch (IOException e) {
-            throw new RemoteFetchCoreException("Exception parsing last commit", e);
+            throw new RemoteFetchCoreException("Unable to list changes since commit " + sanitize(fromRevision), e);
         }
+        return fileChanges;
+    }
 
-        treeWalk.setRecursive(false);
-        treeWalk.setFilter(pathFilter);
+    /**
+     * Resolve the changes of the given paths at HEAD from the content index. Paths under the configured directory
+     * present at HEAD are modified, the others are deleted.
+     *
+     * @param paths Paths relative to the repository
+     * @return List of file changes, or null if the repository is not available yet
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    @Override
+    public List<FileChange> resolveFileChanges(List<String> paths) throws RemoteFetchCoreException {
+
+        if (this.repo == null) {
+            return null;
+        }
+        Map<String, ObjectId> index = this.getContentIndex();
+        String rootPath = this.fileRoot.getPath();
+        List<FileChange> fileChanges = new ArrayList<>();
+        for (String path : new LinkedHashSet<>(paths)) {
+            if (index.containsKey(path)) {
+                fileChanges.add(new FileChange(new File(path), FileChange.ChangeType.MODIFY));
+            } else if (path.equals(rootPath) || path.startsWith(rootPath + "/")) {
+                fileChanges.add(new FileChange(new File(path), FileChange.ChangeType.DELETE));
+            }
+        }
+        return fileChanges;
+    }
 
+    /**
+     * Returns the blob ids of files under the configured directory at HEAD, walking the HEAD tree only when
+     * HEAD has moved since the last walk.
+     *
+     * @return Map of file path to blob id
+     * @throws RemoteFetchCoreException RemoteFetchCoreException
+     */
+    private synchronized Map<String, ObjectId> getContentIndex() throws RemoteFetchCoreException {
+
+        ObjectId headRef;
         try {
+            headRef = this.resolveHead();
+        } catch (IOException e) {
+            throw new RemoteFetchCoreException("Exception parsing last commit", e);
+        }
+        if (headRef == null) {
+            throw new RemoteFetchCoreException("Unable to resolve HEAD of repository " + sanitize(this.uri));
+        }
+        if (headRef.equals(this.contentIndexHead)) {
+            return this.contentIndex;
+        }
+
+        Map<String, ObjectId> index = new LinkedHashMap<>();
+        TreeFilter pathFilter = PathFilter.create(this.fileRoot.getPath());
+
+        try (RevWalk revWalk = new RevWalk(this.repo); TreeWalk treeWalk = new TreeWalk(this.repo)) {
+            treeWalk.addTree(revWalk.parseCommit(headRef).getTree());
+            treeWalk.setRecursive(false);
+            treeWalk.setFilter(pathFilter);
+
             while (treeWalk.next()) {
                 if (treeWalk.isSubtree()) {
                     treeWalk.enterSubtree();
                 } else {
-                    availableFiles.add(new File(treeWalk.getPathString()));
+                    index.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
                 }
             }
-            return availableFiles;
         } catch (IOException e) {
             throw new RemoteFetchCoreException("Exception on traversing for give path", e);
         }
+
+        this.contentIndex = index;
+        this.contentIndexHead = headRef.copy();
+        return index;
     }
 
     private boolean isFileInSubDirectory(File baseDir, File path) {
@@ -299,4 +803,19 @@ public class GitRepositoryManager implements RepositoryManager {
         }
         return true;
     }
+
+    /**
+     * A fetch of a branch into a local repository, with the time it started and the revision it fetched.
+     */
+    private static final class CompletedFetch {
+
+        private final long startedTime;
+        private final String revision;
+
+        private CompletedFetch(long startedTime, String revision) {
+
+            this.startedTime = startedTime;
+            this.revision = revision;
+        }
+    }
 }
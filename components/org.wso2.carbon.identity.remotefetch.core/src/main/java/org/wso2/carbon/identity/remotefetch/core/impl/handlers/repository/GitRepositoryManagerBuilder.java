@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.remotefetch.core.impl.handlers.repository;
 
+import org.apache.commons.lang.StringUtils;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
@@ -25,7 +26,9 @@ import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager
 import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilderException;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Holds builder function to build git repo manager.
@@ -48,8 +51,8 @@ public class GitRepositoryManagerBuilder extends RepositoryManagerBuilder {
         String branch;
         String uri;
         File directory;
-        String token;
-        String userName;
+        String token = null;
+        String userName = null;
         CredentialsProvider credentials = null;
 
         if (repoAttributes.containsKey("uri")) {
@@ -77,7 +80,33 @@ public class GitRepositoryManagerBuilder extends RepositoryManagerBuilder {
             credentials = new UsernamePasswordCredentialsProvider(userName, token);
         }
 
-        return new GitRepositoryManager("repo-" + this.getFetchConfig().getRemoteFetchConfigurationId()
-                , uri, branch, directory, this.getFetchCoreConfiguration().getWorkingDirectory(), credentials);
+        boolean isShared = this.getFetchCoreConfiguration().isSharedRepository();
+        String name;
+        if (isShared) {
+            name = getSharedRepositoryName(uri, branch, userName, token);
+        } else {
+            name = "repo-" + this.getFetchConfig().getRemoteFetchConfigurationId();
+        }
+
+        return new GitRepositoryManager(name, uri, branch, directory,
+                this.getFetchCoreConfiguration().getWorkingDirectory(), credentials,
+                this.getFetchCoreConfiguration().isBareRepository(), isShared);
+    }
+
+    /**
+     * Derives the local repository name shared by configurations of the same remote and branch. Credentials are
+     * part of the key, so that a configuration can only read a shared repository fetched with its own credentials.
+     *
+     * @param uri      Repository URI
+     * @param branch   Branch
+     * @param userName User name, or null
+     * @param token    Access token, or null
+     * @return Shared repository name
+     */
+    private static String getSharedRepositoryName(String uri, String branch, String userName, String token) {
+
+        String key = uri + "\n" + branch + "\n" + StringUtils.defaultString(userName) + "\n" +
+                StringUtils.defaultString(token);
+        return "shared-" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -37,8 +37,11 @@ import org.wso2.carbon.identity.remotefetch.common.RemoteFetchCoreConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 import org.wso2.carbon.identity.remotefetch.core.RemoteFetchComponentRegistryImpl;
 import org.wso2.carbon.identity.remotefetch.core.RemoteFetchConfigurationServiceImpl;
+import org.wso2.carbon.identity.remotefetch.core.dao.SQLDialect;
+import org.wso2.carbon.identity.remotefetch.core.dao.impl.DeploymentRevisionDAOImpl;
 import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchTaskExecutor;
 import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.ServiceProviderConfigDeployerComponent;
+import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.TemplateVariableProvider;
 import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.polling.PollingActionListenerComponent;
 import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.webhook.WebHookActionListenerComponent;
 import org.wso2.carbon.identity.remotefetch.core.impl.handlers.repository.GitRepositoryManagerComponent;
@@ -66,9 +69,13 @@ public class RemoteFetchServiceComponent {
         RemoteFetchComponentRegistry remoteFetchComponentRegistry = new RemoteFetchComponentRegistryImpl();
         remoteFetchTaskExecutor = new RemoteFetchTaskExecutor();
         remoteFetchTaskExecutor.createScheduler();
-        RemoteFetchConfigurationService remoteFetchConfigurationService =
+        RemoteFetchConfigurationServiceImpl remoteFetchConfigurationService =
                             new RemoteFetchConfigurationServiceImpl(remoteFetchTaskExecutor);
         RemoteFetchCoreConfiguration fetchCoreConfiguration = this.parseRemoteFetchCoreConfiguration();
+        remoteFetchTaskExecutor.createWorkerPool(fetchCoreConfiguration);
+        remoteFetchTaskExecutor.startSyncTimeFlushExecution(fetchCoreConfiguration);
+        remoteFetchTaskExecutor.createWebHookQueue(fetchCoreConfiguration,
+                remoteFetchConfigurationService::processWebHookEvent);
 
         remoteFetchComponentRegistry.registerRepositoryManager(new GitRepositoryManagerComponent());
         remoteFetchComponentRegistry.registerConfigDeployer(new ServiceProviderConfigDeployerComponent());
@@ -80,7 +87,11 @@ public class RemoteFetchServiceComponent {
                 .setRemoteFetchConfigurationService(remoteFetchConfigurationService);
 
         RemoteFetchServiceComponentHolder.getInstance().setDataSource(this.getDataSource());
+        RemoteFetchServiceComponentHolder.getInstance().setSQLDialect(this.resolveSQLDialect());
+        this.backfillDeploymentSummaries();
         RemoteFetchServiceComponentHolder.getInstance().setFetchCoreConfiguration(fetchCoreConfiguration);
+        RemoteFetchServiceComponentHolder.getInstance()
+                .setTemplateVariableProvider(new TemplateVariableProvider(fetchCoreConfiguration));
 
         BundleContext bundleContext = context.getBundleContext();
         bundleContext.registerService(RemoteFetchComponentRegistry.class.getName(),
@@ -165,6 +176,28 @@ public class RemoteFetchServiceComponent {
         return IdentityDatabaseUtil.getDataSource();
     }
 
+    /**
+     * Compute the deployment summaries of configurations created before the summary columns were added.
+     */
+    private void backfillDeploymentSummaries() {
+
+        try {
+            new DeploymentRevisionDAOImpl().backfillDeploymentSummaries();
+        } catch (RemoteFetchCoreException e) {
+            log.error("Error backfilling deployment summaries of remote fetch configurations", e);
+        }
+    }
+
+    private SQLDialect resolveSQLDialect() {
+
+        try {
+            return SQLDialect.resolve(RemoteFetchServiceComponentHolder.getInstance().getDataSource());
+        } catch (RemoteFetchCoreException e) {
+            log.error("Error resolving the SQL dialect, it will be resolved on first use", e);
+            return null;
+        }
+    }
+
     private RemoteFetchCoreConfiguration parseRemoteFetchCoreConfiguration() {
 
         try {
@@ -22,6 +22,9 @@ import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchComponentRegistry;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfigurationService;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchCoreConfiguration;
+import org.wso2.carbon.identity.remotefetch.core.dao.SQLDialect;
+import org.wso2.carbon.identity.remotefetch.core.executers.RemoteFetchSyncTimeBuffer;
+import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.TemplateVariableProvider;
 import org.wso2.carbon.user.core.service.RealmService;
 
 import javax.sql.DataSource;
@@ -38,6 +41,9 @@ public class RemoteFetchServiceComponentHolder {
     private RealmService realmService;
     private DataSource dataSource;
     private RemoteFetchCoreConfiguration fetchCoreConfiguration;
+    private RemoteFetchSyncTimeBuffer syncTimeBuffer;
+    private TemplateVariableProvider templateVariableProvider;
+    private SQLDialect sqlDialect;
 
     public static RemoteFetchServiceComponentHolder getInstance() {
 
@@ -104,4 +110,34 @@ public class RemoteFetchServiceComponentHolder {
         this.fetchCoreConfiguration = fetchCoreConfiguration;
     }
 
+    public RemoteFetchSyncTimeBuffer getSyncTimeBuffer() {
+
+        return syncTimeBuffer;
+    }
+
+    public void setSyncTimeBuffer(RemoteFetchSyncTimeBuffer syncTimeBuffer) {
+
+        this.syncTimeBuffer = syncTimeBuffer;
+    }
+
+    public TemplateVariableProvider getTemplateVariableProvider() {
+
+        return templateVariableProvider;
+    }
+
+    public void setTemplateVariableProvider(TemplateVariableProvider templateVariableProvider) {
+
+        this.templateVariableProvider = templateVariableProvider;
+    }
+
+    public SQLDialect getSQLDialect() {
+
+        return sqlDialect;
+    }
+
+    public void setSQLDialect(SQLDialect sqlDialect) {
+
+        this.sqlDialect = sqlDialect;
+    }
+
 }
@@ -29,6 +29,7 @@ import org.wso2.carbon.identity.remotefetch.common.RemoteFetchCoreConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchClientException;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchServerException;
+import org.wso2.carbon.identity.remotefetch.common.ui.UIField;
 
 import java.io.File;
 import java.util.Formatter;
@@ -61,7 +62,55 @@ public class RemoteFetchConfigurationUtils {
             workingDirectory = new File(workingDirectoryProperty);
             validateDirectory(workingDirectory);
         }
-        return new RemoteFetchCoreConfiguration(workingDirectory, isEnabled);
+        RemoteFetchCoreConfiguration coreConfiguration = new RemoteFetchCoreConfiguration(workingDirectory, isEnabled);
+        coreConfiguration.setBareRepository(Boolean.parseBoolean(IdentityUtil.getProperty(
+                "RemoteFetch.BareRepository")));
+        coreConfiguration.setSharedRepository(Boolean.parseBoolean(IdentityUtil.getProperty(
+                "RemoteFetch.SharedRepository")));
+        coreConfiguration.setWorkerPoolSize(parsePositiveIntProperty("RemoteFetch.WorkerPoolSize",
+                RemoteFetchConstants.DEFAULT_WORKER_POOL_SIZE));
+        coreConfiguration.setMaxConcurrentFetchesPerHost(parsePositiveIntProperty(
+                "RemoteFetch.MaxConcurrentFetchesPerHost",
+                RemoteFetchConstants.DEFAULT_MAX_CONCURRENT_FETCHES_PER_HOST));
+        coreConfiguration.setVirtualThreadExecution(RemoteFetchConstants.EXECUTION_MODE_VIRTUAL.equalsIgnoreCase(
+                StringUtils.trim(IdentityUtil.getProperty("RemoteFetch.ExecutionMode"))));
+        coreConfiguration.setImmediateWorkerPoolSize(parsePositiveIntProperty("RemoteFetch.ImmediateWorkerPoolSize",
+                RemoteFetchConstants.DEFAULT_IMMEDIATE_WORKER_POOL_SIZE));
+        coreConfiguration.setImmediateQueueLimit(parsePositiveIntProperty("RemoteFetch.ImmediateQueueLimit",
+                RemoteFetchConstants.DEFAULT_IMMEDIATE_QUEUE_LIMIT));
+        coreConfiguration.setSyncTimeFlushInterval(parsePositiveIntProperty("RemoteFetch.SyncTimeFlushInterval",
+                RemoteFetchConstants.DEFAULT_SYNC_TIME_FLUSH_INTERVAL));
+        coreConfiguration.setWebHookQueueLimit(parsePositiveIntProperty("RemoteFetch.WebHookQueueLimit",
+                RemoteFetchConstants.DEFAULT_WEB_HOOK_QUEUE_LIMIT));
+        coreConfiguration.setWebHookWorkerPoolSize(parsePositiveIntProperty("RemoteFetch.WebHookWorkerPoolSize",
+                RemoteFetchConstants.DEFAULT_WEB_HOOK_WORKER_POOL_SIZE));
+        coreConfiguration.setDebounceWindow(parsePositiveIntProperty("RemoteFetch.DebounceWindow",
+                RemoteFetchConstants.DEFAULT_DEBOUNCE_WINDOW));
+        String environmentFileProperty = IdentityUtil.getProperty("RemoteFetch.EnvironmentFile");
+        if (StringUtils.isNotBlank(environmentFileProperty)) {
+            coreConfiguration.setEnvironmentFile(environmentFileProperty.trim());
+        }
+        coreConfiguration.setSystemEnvironmentIncluded(Boolean.parseBoolean(IdentityUtil.getProperty(
+                "RemoteFetch.SystemEnvironmentVariables")));
+        return coreConfiguration;
+    }
+
+    private static int parsePositiveIntProperty(String property, int defaultValue) {
+
+        String propertyValue = IdentityUtil.getProperty(property);
+        if (StringUtils.isBlank(propertyValue)) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(propertyValue.trim());
+            if (value > 0) {
+                return value;
+            }
+            log.warn("Ignoring non positive value of '" + property + "' property in identity.xml.");
+        } catch (NumberFormatException e) {
+            log.warn("Error occurred while parsing the '" + property + "' property value in identity.xml.", e);
+        }
+        return defaultValue;
     }
 
     private static void validateDirectory(File workingDirectory) throws RemoteFetchCoreException {
@@ -81,6 +130,21 @@ public class RemoteFetchConfigurationUtils {
         return UUID.randomUUID().toString();
     }
 
+    /**
+     * Build the optional UI field of the debounce window shared by the action listener components, so the window is
+     * validated as a number of seconds. Left empty, the window of the node is used.
+     *
+     * @return Debounce window UI field
+     */
+    public static UIField buildDebounceWindowField() {
+
+        return new UIField(
+                RemoteFetchConstants.ATTRIBUTE_DEBOUNCE_WINDOW, UIField.FieldTypes.TEXT_BOX, "Debounce Window",
+                "Number of seconds triggers are collapsed into one run, 0 to run each trigger", "^\\d*$", "",
+                false, false, false
+        );
+    }
+
     /**
      * Parse the Default Items per Page needed to display.
      *
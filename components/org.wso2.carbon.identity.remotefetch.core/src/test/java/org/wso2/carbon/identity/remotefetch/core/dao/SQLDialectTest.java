@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.dao;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit test covering SQLDialect.
+ */
+public class SQLDialectTest {
+
+    @DataProvider(name = "databaseProductNames")
+    public Object[][] databaseProductNames() {
+
+        return new Object[][]{
+                {"H2", SQLDialect.H2},
+                {"MySQL", SQLDialect.MYSQL},
+                {"MariaDB", SQLDialect.MYSQL},
+                {"Microsoft SQL Server", SQLDialect.MSSQL},
+                {"PostgreSQL", SQLDialect.POSTGRESQL},
+                {"DB2/LINUXX8664", SQLDialect.DB2},
+                {"Oracle", SQLDialect.ORACLE}
+        };
+    }
+
+    @Test(dataProvider = "databaseProductNames")
+    public void testFromDatabaseProductName(String databaseProductName, SQLDialect expected) throws Exception {
+
+        assertEquals(SQLDialect.fromDatabaseProductName(databaseProductName), expected);
+    }
+
+    @Test(expectedExceptions = RemoteFetchCoreException.class)
+    public void testFromUnsupportedDatabaseProductName() throws Exception {
+
+        SQLDialect.fromDatabaseProductName("Unsupported");
+    }
+}
@@ -28,12 +28,18 @@ import org.testng.annotations.Test;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
 import org.wso2.carbon.identity.remotefetch.common.DeploymentRevision;
 import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.core.dao.SQLDialect;
 import org.wso2.carbon.identity.remotefetch.core.dao.TestConstants;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
 import org.wso2.carbon.identity.remotefetch.core.util.JdbcUtils;
 
 import java.io.File;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import javax.sql.DataSource;
@@ -43,6 +49,8 @@ import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 import static org.wso2.carbon.identity.remotefetch.core.dao.TestConstants.DB_NAME;
 import static org.wso2.carbon.identity.remotefetch.core.dao.TestConstants.DEPLOYMENT_REVISION_ID;
 import static org.wso2.carbon.identity.remotefetch.core.dao.TestConstants.REMOTE_FETCH_CONFIGURATION_ID;
@@ -60,6 +68,7 @@ public class DeploymentRevisionDAOImplTest extends PowerMockTestCase {
     public void setUp() throws Exception {
 
         DAOTestUtils.initiateH2Base(DB_NAME, DAOTestUtils.getFilePath("permission.sql"));
+        RemoteFetchServiceComponentHolder.getInstance().setSQLDialect(SQLDialect.H2);
         DAOTestUtils.createFetchConfig(DB_NAME, REMOTE_FETCH_CONFIGURATION_ID, TestConstants.TENANT_ID, true,
                 TestConstants.REPO_MANAGER_TYPE, TestConstants.ACTION_LISTENER_TYPE, TestConstants.CONFIG_DEPLOYER_TYPE
                 , TestConstants.getAttributesJson(), "RemoteFetchTest",
@@ -69,6 +78,7 @@ public class DeploymentRevisionDAOImplTest extends PowerMockTestCase {
     @AfterClass
     public void tearDown() throws Exception {
 
+        RemoteFetchServiceComponentHolder.getInstance().setSQLDialect(null);
         DAOTestUtils.closeH2Base(DB_NAME);
     }
 
@@ -150,6 +160,88 @@ public class DeploymentRevisionDAOImplTest extends PowerMockTestCase {
         }
     }
 
+    @Test(priority = 4)
+    public void testUpdateLastSynchronizedDate() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            Date lastSynchronizedDate = new Date(1000L);
+            deploymentRevisionDAO.updateLastSynchronizedDate(REMOTE_FETCH_CONFIGURATION_ID, lastSynchronizedDate);
+            DeploymentRevision deploymentRevisionNew =
+                    deploymentRevisionDAO.getDeploymentRevision(REMOTE_FETCH_CONFIGURATION_ID, "NewDemoApp");
+            assertEquals(deploymentRevisionNew.getLastSynchronizedDate(), lastSynchronizedDate);
+        }
+    }
+
+    @Test(priority = 4)
+    public void testUpdateLastSynchronizedDates() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            Date lastSynchronizedDate = new Date(1500L);
+            deploymentRevisionDAO.updateLastSynchronizedDates(
+                    Collections.singletonMap(REMOTE_FETCH_CONFIGURATION_ID, lastSynchronizedDate));
+            DeploymentRevision deploymentRevisionNew =
+                    deploymentRevisionDAO.getDeploymentRevision(REMOTE_FETCH_CONFIGURATION_ID, "NewDemoApp");
+            assertEquals(deploymentRevisionNew.getLastSynchronizedDate(), lastSynchronizedDate);
+        }
+    }
+
+    @Test(priority = 5)
+    public void testSaveDeploymentRevisions() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            DeploymentRevision existingRevision =
+                    deploymentRevisionDAO.getDeploymentRevision(REMOTE_FETCH_CONFIGURATION_ID, "NewDemoApp");
+            existingRevision.setFileHash("batch-hash");
+            DeploymentRevision newRevision = new DeploymentRevision(REMOTE_FETCH_CONFIGURATION_ID,
+                    new File("sp/batchFile.xml"));
+            newRevision.setDeploymentRevisionId("22222222-0000-0000-0000-d29bed62f7bd");
+            newRevision.setItemName("BatchDemoApp");
+            newRevision.setFileHash("");
+            newRevision.setDeployedDate(new Date());
+            newRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.FAIL);
+            Date lastSynchronizedDate = new Date(2000L);
+
+            deploymentRevisionDAO.saveDeploymentRevisions(REMOTE_FETCH_CONFIGURATION_ID,
+                    Collections.singletonList(newRevision), Collections.singletonList(existingRevision),
+                    lastSynchronizedDate);
+
+            List<DeploymentRevision> deploymentRevisionList =
+                    deploymentRevisionDAO.getDeploymentRevisionsByConfigurationId(REMOTE_FETCH_CONFIGURATION_ID);
+            assertEquals(deploymentRevisionList.size(), 2);
+            for (DeploymentRevision revision : deploymentRevisionList) {
+                assertEquals(revision.getLastSynchronizedDate(), lastSynchronizedDate);
+            }
+            assertEquals(deploymentRevisionDAO.getDeploymentRevision(REMOTE_FETCH_CONFIGURATION_ID, "NewDemoApp")
+                    .getFileHash(), "batch-hash");
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT DEPLOYED_COUNT," +
+                    " FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG WHERE ID = ?")) {
+                preparedStatement.setString(1, REMOTE_FETCH_CONFIGURATION_ID);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    assertTrue(resultSet.next());
+                    assertEquals(resultSet.getInt(1), 1);
+                    assertEquals(resultSet.getInt(2), 1);
+                    assertNotNull(resultSet.getTimestamp(3));
+                }
+            }
+        }
+    }
+
     @Test(priority = 5)
     public void testDeleteDeploymentRevision() throws Exception {
 
@@ -163,6 +255,87 @@ public class DeploymentRevisionDAOImplTest extends PowerMockTestCase {
         }
     }
 
+    @Test(priority = 6)
+    public void testUpdateLastSyncedRevision() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            assertNull(deploymentRevisionDAO.getLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "source-1"));
+            deploymentRevisionDAO.updateLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "revision-1", "source-1");
+            deploymentRevisionDAO.updateLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "revision-2", "source-1");
+            assertEquals(deploymentRevisionDAO.getLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "source-1"),
+                    "revision-2");
+        }
+    }
+
+    @Test(priority = 6)
+    public void testUpdateDeploymentSummary() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            assertDeploymentSummary(connection, 1, 1);
+
+            DeploymentRevision existingRevision =
+                    deploymentRevisionDAO.getDeploymentRevision(REMOTE_FETCH_CONFIGURATION_ID, "NewDemoApp");
+            existingRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.FAIL);
+            deploymentRevisionDAO.updateDeploymentRevision(existingRevision);
+            assertDeploymentSummary(connection, 0, 2);
+
+            // Summary of a configuration created before the summary columns were added.
+            try (PreparedStatement preparedStatement = connection.prepareStatement("UPDATE IDN_REMOTE_FETCH_CONFIG" +
+                    " SET DEPLOYED_COUNT = 5, FAILED_COUNT = 5, LAST_DEPLOYED_DATE = NULL WHERE ID = ?")) {
+                preparedStatement.setString(1, REMOTE_FETCH_CONFIGURATION_ID);
+                preparedStatement.executeUpdate();
+            }
+            deploymentRevisionDAO.backfillDeploymentSummaries();
+            assertDeploymentSummary(connection, 0, 2);
+        }
+    }
+
+    @Test(priority = 7)
+    public void testIgnoreLastSyncedRevisionOfChangedSource() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            deploymentRevisionDAO.updateLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "revision-3", "source-1");
+            // The directory, branch or repository of the configuration changed.
+            assertNull(deploymentRevisionDAO.getLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "source-2"));
+            assertNull(deploymentRevisionDAO.getLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, null));
+
+            deploymentRevisionDAO.updateLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "revision-4", "source-2");
+            assertEquals(deploymentRevisionDAO.getLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "source-2"),
+                    "revision-4");
+            assertNull(deploymentRevisionDAO.getLastSyncedRevision(REMOTE_FETCH_CONFIGURATION_ID, "source-1"));
+        }
+    }
+
+    private static void assertDeploymentSummary(Connection connection, int deployedCount, int failedCount)
+            throws Exception {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT DEPLOYED_COUNT," +
+                " FAILED_COUNT, LAST_DEPLOYED_DATE FROM IDN_REMOTE_FETCH_CONFIG WHERE ID = ?")) {
+            preparedStatement.setString(1, REMOTE_FETCH_CONFIGURATION_ID);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                assertTrue(resultSet.next());
+                assertEquals(resultSet.getInt(1), deployedCount);
+                assertEquals(resultSet.getInt(2), failedCount);
+                assertNotNull(resultSet.getTimestamp(3));
+            }
+        }
+    }
+
     private DeploymentRevision createRevision() {
 
         long millis = System.currentTimeMillis();
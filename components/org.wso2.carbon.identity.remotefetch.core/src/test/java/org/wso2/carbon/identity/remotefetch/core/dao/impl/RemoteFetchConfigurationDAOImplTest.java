@@ -26,11 +26,16 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.identity.remotefetch.common.BasicRemoteFetchConfiguration;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.core.dao.SQLDialect;
 import org.wso2.carbon.identity.remotefetch.core.dao.TestConstants;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
 import org.wso2.carbon.identity.remotefetch.core.util.JdbcUtils;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.sql.DataSource;
@@ -40,6 +45,7 @@ import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 import static org.wso2.carbon.identity.remotefetch.core.dao.TestConstants.DB_NAME;
 import static org.wso2.carbon.identity.remotefetch.core.dao.TestConstants.REMOTE_FETCH_CONFIGURATION_ID;
 
@@ -49,6 +55,8 @@ import static org.wso2.carbon.identity.remotefetch.core.dao.TestConstants.REMOTE
 @PrepareForTest(JdbcUtils.class)
 public class RemoteFetchConfigurationDAOImplTest extends PowerMockTestCase {
 
+    private static final int PAGED_TENANT_ID = 1;
+
     RemoteFetchConfigurationDAOImpl remoteFetchConfigurationDAO = new RemoteFetchConfigurationDAOImpl();
     RemoteFetchConfiguration remoteFetchConfiguration = new RemoteFetchConfiguration(REMOTE_FETCH_CONFIGURATION_ID,
             TestConstants.TENANT_ID, false, null, null,
@@ -58,11 +66,13 @@ public class RemoteFetchConfigurationDAOImplTest extends PowerMockTestCase {
     public void setUp() throws Exception {
 
         DAOTestUtils.initiateH2Base(DB_NAME, DAOTestUtils.getFilePath("permission.sql"));
+        RemoteFetchServiceComponentHolder.getInstance().setSQLDialect(SQLDialect.H2);
     }
 
     @AfterClass
     public void tearDown() throws Exception {
 
+        RemoteFetchServiceComponentHolder.getInstance().setSQLDialect(null);
         DAOTestUtils.closeH2Base(DB_NAME);
     }
 
@@ -118,6 +128,55 @@ public class RemoteFetchConfigurationDAOImplTest extends PowerMockTestCase {
         }
     }
 
+    @Test(priority = 2)
+    public void testGetBasicRemoteFetchConfigurationPageByTenant() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            List<BasicRemoteFetchConfiguration> firstPage = remoteFetchConfigurationDAO
+                    .getBasicRemoteFetchConfigurationPageByTenant(TestConstants.TENANT_ID, 10, null, null);
+            assertEquals(firstPage.size(), 1);
+            assertEquals(firstPage.get(0).getId(), REMOTE_FETCH_CONFIGURATION_ID);
+            List<BasicRemoteFetchConfiguration> nextPage = remoteFetchConfigurationDAO
+                    .getBasicRemoteFetchConfigurationPageByTenant(TestConstants.TENANT_ID, 10,
+                            firstPage.get(0).getRemoteFetchName(), firstPage.get(0).getId());
+            assertEquals(nextPage.size(), 0);
+        }
+    }
+
+    @Test(priority = 2)
+    public void testWalkBasicRemoteFetchConfigurationPagesByTenant() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            // Unnamed configurations come first in id order, then named ones in (name, id) order.
+            remoteFetchConfigurationDAO.createRemoteFetchConfiguration(createPagedRemoteFetch("page-3", "Beta", "A"));
+            remoteFetchConfigurationDAO.createRemoteFetchConfiguration(createPagedRemoteFetch("page-5", "Alpha", "B"));
+            remoteFetchConfigurationDAO.createRemoteFetchConfiguration(createPagedRemoteFetch("page-2", null, "C"));
+            remoteFetchConfigurationDAO.createRemoteFetchConfiguration(createPagedRemoteFetch("page-4", "Alpha", "D"));
+            remoteFetchConfigurationDAO.createRemoteFetchConfiguration(createPagedRemoteFetch("page-1", null, "E"));
+            List<String> expectedIds = Arrays.asList("page-1", "page-2", "page-4", "page-5", "page-3");
+            try {
+                for (int pageSize = 1; pageSize <= expectedIds.size() + 1; pageSize++) {
+                    assertEquals(walkBasicRemoteFetchConfigurationPages(pageSize), expectedIds,
+                            "Unexpected order for page size " + pageSize);
+                }
+            } finally {
+                for (String id : expectedIds) {
+                    remoteFetchConfigurationDAO.deleteRemoteFetchConfiguration(id, PAGED_TENANT_ID);
+                }
+            }
+        }
+    }
+
     @Test(priority = 3)
     public void testUpdateRemoteFetchConfiguration() throws Exception {
 
@@ -131,6 +190,32 @@ public class RemoteFetchConfigurationDAOImplTest extends PowerMockTestCase {
         }
     }
 
+    @Test(priority = 3)
+    public void testConfigVersionIncreasesOnWrite() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        mockStatic(JdbcUtils.class);
+        when(JdbcUtils.getNewTemplate()).thenReturn(new JdbcTemplate(dataSource));
+        try (Connection connection = DAOTestUtils.getConnection(DB_NAME)) {
+            Connection spy = DAOTestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spy);
+            long loadedVersion = remoteFetchConfigurationDAO.getRemoteFetchConfiguration(
+                    REMOTE_FETCH_CONFIGURATION_ID, TestConstants.TENANT_ID).getVersion();
+            assertTrue(loadedVersion > 0);
+            assertTrue(remoteFetchConfigurationDAO.getRemoteFetchConfigurationsChangedSince(loadedVersion).isEmpty());
+
+            RemoteFetchConfiguration configuration = remoteFetchConfigurationDAO.getRemoteFetchConfiguration(
+                    REMOTE_FETCH_CONFIGURATION_ID, TestConstants.TENANT_ID);
+            remoteFetchConfigurationDAO.updateRemoteFetchConfiguration(configuration);
+            assertTrue(configuration.getVersion() > loadedVersion);
+            assertEquals(remoteFetchConfigurationDAO.getLastConfigVersion(), configuration.getVersion());
+            List<RemoteFetchConfiguration> changedConfigurations =
+                    remoteFetchConfigurationDAO.getRemoteFetchConfigurationsChangedSince(loadedVersion);
+            assertEquals(changedConfigurations.size(), 1);
+            assertEquals(changedConfigurations.get(0).getVersion(), configuration.getVersion());
+        }
+    }
+
     @Test(priority = 4)
     public void testGetAllEnabledRemoteFetchConfigurations() throws Exception {
 
@@ -176,6 +261,37 @@ public class RemoteFetchConfigurationDAOImplTest extends PowerMockTestCase {
         return remoteFetchConfiguration;
     }
 
+    private List<String> walkBasicRemoteFetchConfigurationPages(int pageSize) throws Exception {
+
+        List<String> ids = new ArrayList<>();
+        String afterName = null;
+        String afterId = null;
+        while (true) {
+            List<BasicRemoteFetchConfiguration> page = remoteFetchConfigurationDAO
+                    .getBasicRemoteFetchConfigurationPageByTenant(PAGED_TENANT_ID, pageSize, afterName, afterId);
+            assertTrue(page.size() <= pageSize);
+            for (BasicRemoteFetchConfiguration configuration : page) {
+                ids.add(configuration.getId());
+            }
+            if (page.size() < pageSize) {
+                return ids;
+            }
+            afterName = page.get(pageSize - 1).getRemoteFetchName();
+            afterId = page.get(pageSize - 1).getId();
+        }
+    }
+
+    private RemoteFetchConfiguration createPagedRemoteFetch(String id, String name, String deployerType) {
+
+        RemoteFetchConfiguration configuration = new RemoteFetchConfiguration(id, PAGED_TENANT_ID, false,
+                TestConstants.REPO_MANAGER_TYPE, TestConstants.ACTION_LISTENER_TYPE, deployerType, name,
+                "https://github.com/IS/Test2.git");
+        configuration.setActionListenerAttributes(TestConstants.actionListenerAttributes);
+        configuration.setConfigurationDeployerAttributes(TestConstants.configurationDeployerAttributes);
+        configuration.setRepositoryManagerAttributes(TestConstants.repositoryManagerAttributes);
+        return configuration;
+    }
+
     private RemoteFetchConfiguration updateConfiguration() {
 
         remoteFetchConfiguration.setRemoteFetchName("UpdatedRemoteFetchDemoApp");
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchComponentRegistry;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListener;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilder;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerBuilderException;
+import org.wso2.carbon.identity.remotefetch.common.actionlistener.ActionListenerComponent;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerBuilder;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployerComponent;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilder;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerComponent;
+import org.wso2.carbon.identity.remotefetch.core.internal.RemoteFetchServiceComponentHolder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit test covering RemoteFetchActionListenerCache.
+ */
+public class RemoteFetchActionListenerCacheTest {
+
+    private static final String CONFIGURATION_ID = "00000000-0000-0000-0000-000000000000";
+
+    private RemoteFetchActionListenerCache listenerCache;
+    private AtomicInteger buildCount;
+    private volatile boolean isBuildFailing;
+    private volatile CountDownLatch buildGate;
+
+    @BeforeMethod
+    public void setUp() {
+
+        listenerCache = new RemoteFetchActionListenerCache();
+        buildCount = new AtomicInteger();
+        isBuildFailing = false;
+        buildGate = new CountDownLatch(0);
+
+        RemoteFetchComponentRegistry componentRegistry = mock(RemoteFetchComponentRegistry.class);
+        RepositoryManagerComponent repositoryManagerComponent = mock(RepositoryManagerComponent.class);
+        ConfigDeployerComponent configDeployerComponent = mock(ConfigDeployerComponent.class);
+        ActionListenerComponent actionListenerComponent = mock(ActionListenerComponent.class);
+        when(componentRegistry.getRepositoryManagerComponent("GIT")).thenReturn(repositoryManagerComponent);
+        when(componentRegistry.getConfigDeployerComponent("SP")).thenReturn(configDeployerComponent);
+        when(componentRegistry.getActionListenerComponent("POLLING")).thenReturn(actionListenerComponent);
+        when(repositoryManagerComponent.getRepositoryManagerBuilder()).thenAnswer(invocation ->
+                new RepositoryManagerBuilder() {
+
+                    @Override
+                    public RepositoryManager build() {
+
+                        return mock(RepositoryManager.class);
+                    }
+                });
+        when(configDeployerComponent.getConfigDeployerBuilder()).thenAnswer(invocation ->
+                new ConfigDeployerBuilder() {
+
+                    @Override
+                    public ConfigDeployer build() {
+
+                        return mock(ConfigDeployer.class);
+                    }
+                });
+        when(actionListenerComponent.getActionListenerBuilder()).thenAnswer(invocation ->
+                new ActionListenerBuilder() {
+
+                    @Override
+                    public ActionListener build() throws ActionListenerBuilderException {
+
+                        buildCount.incrementAndGet();
+                        try {
+                            buildGate.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        if (isBuildFailing) {
+                            throw new ActionListenerBuilderException("Build failed");
+                        }
+                        return mock(ActionListener.class);
+                    }
+                });
+        RemoteFetchServiceComponentHolder.getInstance().setRemoteFetchComponentRegistry(componentRegistry);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        RemoteFetchServiceComponentHolder.getInstance().setRemoteFetchComponentRegistry(null);
+    }
+
+    @Test
+    public void testReuseListenerOfUnchangedConfiguration() throws Exception {
+
+        ActionListener actionListener = listenerCache.getActionListener(buildConfiguration("first"));
+
+        assertSame(listenerCache.getActionListener(buildConfiguration("first")), actionListener);
+        assertSame(listenerCache.getCachedActionListener(CONFIGURATION_ID), actionListener);
+        assertEquals(buildCount.get(), 1);
+    }
+
+    @Test
+    public void testCloseReplacedListener() throws Exception {
+
+        ActionListener actionListener = listenerCache.getActionListener(buildConfiguration("first"));
+        ActionListener rebuiltListener = listenerCache.getActionListener(buildConfiguration("second"));
+
+        assertNotSame(rebuiltListener, actionListener);
+        assertSame(listenerCache.getCachedActionListener(CONFIGURATION_ID), rebuiltListener);
+        verify(actionListener).close();
+        verify(rebuiltListener, never()).close();
+    }
+
+    @Test
+    public void testCloseRemovedListener() throws Exception {
+
+        ActionListener actionListener = listenerCache.getActionListener(buildConfiguration("first"));
+        listenerCache.remove(CONFIGURATION_ID);
+
+        assertNull(listenerCache.getCachedActionListener(CONFIGURATION_ID));
+        verify(actionListener).close();
+    }
+
+    @Test
+    public void testKeepListenerWhenRebuildFails() throws Exception {
+
+        ActionListener actionListener = listenerCache.getActionListener(buildConfiguration("first"));
+        isBuildFailing = true;
+        try {
+            listenerCache.getActionListener(buildConfiguration("second"));
+            fail("Build failure is not thrown");
+        } catch (RemoteFetchCoreException e) {
+            // Expected, the listener built earlier stays cached.
+        }
+
+        assertSame(listenerCache.getCachedActionListener(CONFIGURATION_ID), actionListener);
+        verify(actionListener, never()).close();
+    }
+
+    @Test
+    public void testShareConcurrentBuild() throws Exception {
+
+        buildGate = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<ActionListener> first = executorService.submit(() ->
+                    listenerCache.getActionListener(buildConfiguration("first")));
+            Future<ActionListener> second = executorService.submit(() ->
+                    listenerCache.getActionListener(buildConfiguration("first")));
+            // The listener being built is not served as cached.
+            assertNull(listenerCache.getCachedActionListener(CONFIGURATION_ID));
+            buildGate.countDown();
+
+            assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+            assertEquals(buildCount.get(), 1);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static RemoteFetchConfiguration buildConfiguration(String name) {
+
+        return new RemoteFetchConfiguration(CONFIGURATION_ID, -1234, true, "GIT", "POLLING", "SP", name,
+                "https://github.com/wso2/identity-test.git");
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test covering RemoteFetchExecutorLane.
+ */
+public class RemoteFetchExecutorLaneTest {
+
+    @Test
+    public void testRejectWhenWorkerPoolIsShutDown() {
+
+        ExecutorService workerPool = Executors.newSingleThreadExecutor();
+        workerPool.shutdown();
+        RemoteFetchExecutorLane lane = new RemoteFetchExecutorLane("test", workerPool,
+                new RemoteFetchHostDispatcher(1), false, 1);
+
+        // The queue slot of the first execution is released, so the second is not rejected as the queue is full.
+        assertFalse(lane.submit(buildConfiguration(), () -> { }));
+        assertFalse(lane.submit(buildConfiguration(), () -> { }));
+
+        assertEquals(lane.getSubmittedCount(), 0);
+        assertEquals(lane.getRejectedCount(), 2);
+        assertEquals(lane.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testReleaseWaitingExecutionsDroppedAtShutdown() throws Exception {
+
+        ExecutorService workerPool = Executors.newSingleThreadExecutor();
+        RemoteFetchExecutorLane lane = new RemoteFetchExecutorLane("test", workerPool,
+                new RemoteFetchHostDispatcher(1), false, 2);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(lane.submit(buildConfiguration(), () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        // Waits behind the running execution against the same host, and is dropped when the pool is shut down.
+        assertTrue(lane.submit(buildConfiguration(), () -> { }));
+        lane.shutdown();
+        release.countDown();
+        assertTrue(workerPool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(lane.getCompletedCount(), 1);
+        assertEquals(lane.getRejectedCount(), 1);
+        assertEquals(lane.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testCapFetchesPerHostAcrossLanes() throws Exception {
+
+        ExecutorService batchWorkerPool = Executors.newFixedThreadPool(2);
+        ExecutorService immediateWorkerPool = Executors.newFixedThreadPool(2);
+        RemoteFetchHostDispatcher hostDispatcher = new RemoteFetchHostDispatcher(1);
+        RemoteFetchExecutorLane batchLane = new RemoteFetchExecutorLane("batch", batchWorkerPool, hostDispatcher,
+                false, 2);
+        RemoteFetchExecutorLane immediateLane = new RemoteFetchExecutorLane("immediate", immediateWorkerPool,
+                hostDispatcher, true, 2);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(3);
+        List<String> startedExecutions = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            assertTrue(batchLane.submit(buildConfiguration(), () -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.countDown();
+            }));
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            // Both wait for the host, although the immediate lane has idle workers.
+            assertTrue(batchLane.submit(buildConfiguration(), () -> {
+                startedExecutions.add("batch");
+                completed.countDown();
+            }));
+            assertTrue(immediateLane.submit(buildConfiguration(), () -> {
+                startedExecutions.add("immediate");
+                completed.countDown();
+            }));
+            assertEquals(immediateLane.getCompletedCount(), 0);
+
+            release.countDown();
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            // The waiting immediate execution goes before the waiting batch execution.
+            assertEquals(startedExecutions, Arrays.asList("immediate", "batch"));
+        } finally {
+            batchLane.shutdown();
+            immediateLane.shutdown();
+        }
+    }
+
+    private static RemoteFetchConfiguration buildConfiguration() {
+
+        RemoteFetchConfiguration config = new RemoteFetchConfiguration();
+        config.setRemoteFetchConfigurationId("00000000-0000-0000-0000-000000000000");
+        config.setRepositoryManagerAttributes(Collections.singletonMap(RemoteFetchConstants.ID_UI_FIELD_URI,
+                "https://github.com/IS/Test2.git"));
+        return config;
+    }
+}
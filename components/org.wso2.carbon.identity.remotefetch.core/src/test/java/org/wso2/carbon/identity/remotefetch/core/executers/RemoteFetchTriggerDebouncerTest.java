@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test covering RemoteFetchTriggerDebouncer.
+ */
+public class RemoteFetchTriggerDebouncerTest {
+
+    private ScheduledExecutorService scheduler;
+    private BlockingQueue<SubmittedRun> submittedRuns;
+    private RemoteFetchTriggerDebouncer triggerDebouncer;
+
+    @BeforeMethod
+    public void setUp() {
+
+        scheduler = Executors.newScheduledThreadPool(1);
+        submittedRuns = new LinkedBlockingQueue<>();
+        triggerDebouncer = new RemoteFetchTriggerDebouncer(scheduler, 0,
+                (config, baseRevision, headRevision, modifiedFileNames) -> submittedRuns.add(
+                        new SubmittedRun(baseRevision, headRevision, modifiedFileNames)));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testSubmitDirectlyWithoutWindow() {
+
+        RemoteFetchConfiguration config = buildConfiguration(null);
+        assertTrue(triggerDebouncer.trigger(config, "r0", "r1", Collections.singletonList("sp/first.xml")));
+        assertTrue(triggerDebouncer.trigger(config, "r1", "r2", Collections.singletonList("sp/second.xml")));
+
+        assertEquals(submittedRuns.size(), 2);
+    }
+
+    @Test
+    public void testCollapseContiguousPushes() throws Exception {
+
+        RemoteFetchConfiguration config = buildConfiguration("1");
+        assertTrue(triggerDebouncer.trigger(config, "r0", "r1", Collections.singletonList("sp/first.xml")));
+        assertTrue(triggerDebouncer.trigger(config, "r1", "r2", Arrays.asList("sp/first.xml", "sp/second.xml")));
+        assertTrue(triggerDebouncer.trigger(config, "r2", "r3", Collections.singletonList("sp/third.xml")));
+
+        SubmittedRun submittedRun = submittedRuns.poll(10, TimeUnit.SECONDS);
+        assertNotNull(submittedRun);
+        assertEquals(submittedRun.baseRevision, "r0");
+        assertEquals(submittedRun.headRevision, "r3");
+        assertEquals(submittedRun.modifiedFileNames, Arrays.asList("sp/first.xml", "sp/second.xml", "sp/third.xml"));
+        assertNull(submittedRuns.poll(1500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCollapseNonContiguousPushesIntoFullRun() throws Exception {
+
+        RemoteFetchConfiguration config = buildConfiguration("1");
+        assertTrue(triggerDebouncer.trigger(config, "r0", "r1", Collections.singletonList("sp/first.xml")));
+        assertTrue(triggerDebouncer.trigger(config, "r5", "r6", Collections.singletonList("sp/second.xml")));
+
+        SubmittedRun submittedRun = submittedRuns.poll(10, TimeUnit.SECONDS);
+        assertNotNull(submittedRun);
+        assertNull(submittedRun.modifiedFileNames);
+        assertNull(submittedRuns.poll(1500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCollapseManualTriggerIntoFullRun() throws Exception {
+
+        RemoteFetchConfiguration config = buildConfiguration("1");
+        assertTrue(triggerDebouncer.trigger(config, "r0", "r1", Collections.singletonList("sp/first.xml")));
+        assertTrue(triggerDebouncer.trigger(config, null, null, null));
+
+        SubmittedRun submittedRun = submittedRuns.poll(10, TimeUnit.SECONDS);
+        assertNotNull(submittedRun);
+        assertNull(submittedRun.modifiedFileNames);
+    }
+
+    @Test
+    public void testDropPendingTriggersOfRemovedConfiguration() throws Exception {
+
+        RemoteFetchConfiguration config = buildConfiguration("1");
+        assertTrue(triggerDebouncer.trigger(config, null, null, null));
+        triggerDebouncer.remove(config.getRemoteFetchConfigurationId());
+
+        assertNull(submittedRuns.poll(2, TimeUnit.SECONDS));
+    }
+
+    private static RemoteFetchConfiguration buildConfiguration(String debounceWindow) {
+
+        RemoteFetchConfiguration config = new RemoteFetchConfiguration();
+        config.setRemoteFetchConfigurationId("00000000-0000-0000-0000-000000000000");
+        Map<String, String> actionListenerAttributes = new HashMap<>();
+        if (debounceWindow != null) {
+            actionListenerAttributes.put(RemoteFetchConstants.ATTRIBUTE_DEBOUNCE_WINDOW, debounceWindow);
+        }
+        config.setActionListenerAttributes(actionListenerAttributes);
+        return config;
+    }
+
+    private static class SubmittedRun {
+
+        private final String baseRevision;
+        private final String headRevision;
+        private final List<String> modifiedFileNames;
+
+        SubmittedRun(String baseRevision, String headRevision, List<String> modifiedFileNames) {
+
+            this.baseRevision = baseRevision;
+            this.headRevision = headRevision;
+            this.modifiedFileNames = modifiedFileNames;
+        }
+    }
+}
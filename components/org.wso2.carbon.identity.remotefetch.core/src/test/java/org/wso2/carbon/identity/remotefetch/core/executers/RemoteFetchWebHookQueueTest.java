@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.executers;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.WebHookEventStatus;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchServerException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test covering RemoteFetchWebHookQueue.
+ */
+public class RemoteFetchWebHookQueueTest {
+
+    private static final int TENANT_ID = -1234;
+    private static final String REPOSITORY_URI = "https://github.com/IS/Test.git";
+
+    private CountDownLatch processingAllowed;
+    private BlockingQueue<RemoteFetchWebHookEvent> processedEvents;
+    private RemoteFetchWebHookQueue webHookQueue;
+
+    @BeforeMethod
+    public void setUp() {
+
+        processingAllowed = new CountDownLatch(1);
+        processedEvents = new LinkedBlockingQueue<>();
+        webHookQueue = new RemoteFetchWebHookQueue(1, 1, webHookEvent -> {
+            processedEvents.add(webHookEvent);
+            try {
+                processingAllowed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        processingAllowed.countDown();
+        webHookQueue.shutdown();
+    }
+
+    @Test
+    public void testMergeWaitingWebHooks() throws Exception {
+
+        // The first web hook is taken by the worker, which then waits, so later web hooks wait in the queue.
+        String firstEventId = webHookQueue.submit(buildEvent("master", "r0", "r1", "sp/first.xml"));
+        assertNotNull(processedEvents.poll(10, TimeUnit.SECONDS));
+        assertEquals(webHookQueue.getStatus(firstEventId, TENANT_ID), WebHookEventStatus.PROCESSING);
+
+        String secondEventId = webHookQueue.submit(buildEvent("master", "r1", "r2", "sp/second.xml"));
+        String thirdEventId = webHookQueue.submit(buildEvent("MASTER", "r2", "r3", "sp/second.xml"));
+        assertEquals(webHookQueue.getStatus(secondEventId, TENANT_ID), WebHookEventStatus.QUEUED);
+        assertEquals(webHookQueue.getStatus(thirdEventId, TENANT_ID), WebHookEventStatus.QUEUED);
+        assertNull(webHookQueue.getStatus(secondEventId, 1));
+        assertNull(webHookQueue.getStatus("unknown", TENANT_ID));
+
+        processingAllowed.countDown();
+        RemoteFetchWebHookEvent mergedEvent = processedEvents.poll(10, TimeUnit.SECONDS);
+        assertNotNull(mergedEvent);
+        assertEquals(mergedEvent.getBeforeRevision(), "r1");
+        assertEquals(mergedEvent.getAfterRevision(), "r3");
+        assertEquals(mergedEvent.getModifiedFileNames(), Collections.singletonList("sp/second.xml"));
+        assertFalse(mergedEvent.isTruncated());
+        assertNull(processedEvents.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expectedExceptions = RemoteFetchServerException.class)
+    public void testSubmitToFullQueue() throws Exception {
+
+        webHookQueue.submit(buildEvent("master", "r0", "r1", "sp/first.xml"));
+        assertNotNull(processedEvents.poll(10, TimeUnit.SECONDS));
+        webHookQueue.submit(buildEvent("dev", "r0", "r1", "sp/first.xml"));
+        webHookQueue.submit(buildEvent("release", "r0", "r1", "sp/first.xml"));
+    }
+
+    @Test
+    public void testMergeNonContiguousPushes() {
+
+        RemoteFetchWebHookEvent mergedEvent = buildEvent("master", "r0", "r1", "sp/first.xml")
+                .merge(buildEvent("master", "r5", "r6", "sp/second.xml"));
+        assertEquals(mergedEvent.getBeforeRevision(), "r0");
+        assertEquals(mergedEvent.getAfterRevision(), "r6");
+        assertEquals(mergedEvent.getModifiedFileNames(), Arrays.asList("sp/first.xml", "sp/second.xml"));
+        assertTrue(mergedEvent.isTruncated());
+    }
+
+    private static RemoteFetchWebHookEvent buildEvent(String branch, String beforeRevision, String afterRevision,
+                                                      String... modifiedFileNames) {
+
+        List<String> fileNames = Arrays.asList(modifiedFileNames);
+        return new RemoteFetchWebHookEvent(TENANT_ID, REPOSITORY_URI, branch, fileNames, beforeRevision,
+                afterRevision, false);
+    }
+}
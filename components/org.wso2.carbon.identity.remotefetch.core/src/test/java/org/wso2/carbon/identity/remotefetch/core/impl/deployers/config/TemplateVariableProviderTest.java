@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.deployers.config;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test covering TemplateVariableProvider.
+ */
+public class TemplateVariableProviderTest {
+
+    private File environmentFile;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        environmentFile = File.createTempFile("environment", ".env");
+        FileUtils.writeStringToFile(environmentFile, "CLIENT_ID=first\nCALLBACK=https://localhost/a=b\n",
+                StandardCharsets.UTF_8);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        FileUtils.deleteQuietly(environmentFile);
+    }
+
+    @Test
+    public void testLoadEnvironmentFile() throws Exception {
+
+        TemplateVariableProvider templateVariableProvider = new TemplateVariableProvider(environmentFile);
+        Map<String, String> environmentVariables = templateVariableProvider.getEnvironmentVariables();
+
+        assertEquals(environmentVariables.get("client_id"), "first");
+        assertEquals(environmentVariables.get("callback"), "https://localhost/a=b");
+        assertSame(templateVariableProvider.getEnvironmentVariables(), environmentVariables);
+        assertEquals(templateVariableProvider.resolveVariables(Arrays.asList("client_id", "callback")).size(), 2);
+    }
+
+    @Test
+    public void testReloadChangedEnvironmentFile() throws Exception {
+
+        TemplateVariableProvider templateVariableProvider = new TemplateVariableProvider(environmentFile);
+        assertEquals(templateVariableProvider.getEnvironmentVariables().get("client_id"), "first");
+
+        FileUtils.writeStringToFile(environmentFile, "CLIENT_ID=second\n", StandardCharsets.UTF_8);
+        assertTrue(environmentFile.setLastModified(environmentFile.lastModified() + 2000));
+
+        Map<String, String> environmentVariables = templateVariableProvider.getEnvironmentVariables();
+        assertEquals(environmentVariables.get("client_id"), "second");
+        assertFalse(environmentVariables.containsKey("callback"));
+    }
+
+    @Test
+    public void testMissingEnvironmentFile() throws Exception {
+
+        TemplateVariableProvider templateVariableProvider =
+                new TemplateVariableProvider(new File(environmentFile.getPath() + ".missing"));
+
+        assertTrue(templateVariableProvider.getEnvironmentVariables().isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.deployers.config;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.ConfigurationFileStream;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.wso2.carbon.identity.remotefetch.core.dao.TestConstants.REMOTE_FETCH_CONFIGURATION_ID;
+
+/**
+ * Unit test covering the template cache of VelocityTemplatedSPDeployer.
+ */
+public class VelocityTemplatedSPDeployerTest {
+
+    private static final int TENANT_ID = -1234;
+    private static final File TEMPLATE = new File("sp/app.xml");
+    private static final String TEMPLATE_CONTENT = "<app>$CLIENT_ID</app>";
+
+    private RepositoryManager repositoryManager;
+    private VelocityTemplatedSPDeployer velocityTemplatedSPDeployer;
+
+    @BeforeMethod
+    public void setUp() {
+
+        repositoryManager = mock(RepositoryManager.class);
+        velocityTemplatedSPDeployer = new VelocityTemplatedSPDeployer(TENANT_ID, REMOTE_FETCH_CONFIGURATION_ID,
+                repositoryManager);
+    }
+
+    @Test
+    public void testReuseParsedTemplateOfSameBlob() throws Exception {
+
+        Template template = getTemplate(TEMPLATE, TEMPLATE_CONTENT, "b1");
+        assertSame(getTemplate(TEMPLATE, TEMPLATE_CONTENT, "b1"), template);
+
+        // Changed content and templates without a blob id are parsed again.
+        assertNotSame(getTemplate(TEMPLATE, "<app>$CLIENT_SECRET</app>", "b2"), template);
+        Template uncachedTemplate = getTemplate(TEMPLATE, TEMPLATE_CONTENT, null);
+        assertNotSame(getTemplate(TEMPLATE, TEMPLATE_CONTENT, null), uncachedTemplate);
+        assertEquals(merge(template, "client"), "<app>client</app>");
+    }
+
+    @Test
+    public void testShareVelocityRuntimePerDirectory() throws Exception {
+
+        when(repositoryManager.getFile(new File("sp", "common.vm"))).thenAnswer(invocation ->
+                new ConfigurationFileStream(new ByteArrayInputStream("<common/>".getBytes(StandardCharsets.UTF_8)),
+                        new File("sp", "common.vm")));
+
+        Template template = getTemplate(TEMPLATE, "#parse(\"common.vm\")" + TEMPLATE_CONTENT, "b1");
+        getTemplate(new File("sp/other.xml"), TEMPLATE_CONTENT, "b2");
+        getTemplate(new File("idp/app.xml"), TEMPLATE_CONTENT, "b3");
+
+        Map<String, ?> velocityRuntimes = Whitebox.getInternalState(velocityTemplatedSPDeployer, "velocityRuntimes");
+        assertEquals(velocityRuntimes.size(), 2);
+        // Included templates are read from the directory of the template in the repository.
+        assertEquals(merge(template, "client"), "<common/><app>client</app>");
+    }
+
+    private Template getTemplate(File path, String content, String blobId) throws Exception {
+
+        return Whitebox.invokeMethod(velocityTemplatedSPDeployer, "getTemplate",
+                new Class<?>[]{File.class, String.class, String.class}, path, content, blobId);
+    }
+
+    private static String merge(Template template, String clientId) {
+
+        VelocityContext context = new VelocityContext();
+        context.put("CLIENT_ID", clientId);
+        StringWriter writer = new StringWriter();
+        template.merge(context, writer);
+        return writer.toString();
+    }
+}
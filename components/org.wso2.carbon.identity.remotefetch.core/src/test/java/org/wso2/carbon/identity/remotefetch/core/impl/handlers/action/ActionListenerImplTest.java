@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.handlers.action;
+
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.ConfigurationFileStream;
+import org.wso2.carbon.identity.remotefetch.common.DeploymentRevision;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
+import org.wso2.carbon.identity.remotefetch.common.exceptions.RemoteFetchCoreException;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.FileChange;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+import org.wso2.carbon.identity.remotefetch.core.dao.DeploymentRevisionDAO;
+import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.VelocityTemplatedSPDeployer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit test covering ActionListenerImpl.
+ */
+public class ActionListenerImplTest {
+
+    private static final String CONFIGURATION_ID = "00000000-0000-0000-0000-000000000000";
+    private static final File FILE_A = new File("sp/a.xml");
+    private static final File FILE_B = new File("sp/b.xml");
+
+    private RepositoryManager repositoryManager;
+    private ConfigDeployer configDeployer;
+    private VelocityTemplatedSPDeployer templatedDeployer;
+    private DeploymentRevisionDAO deploymentRevisionDAO;
+    // Content hash of each file at the current revision of the repository.
+    private Map<File, String> repositoryFiles;
+    private List<DeploymentRevision> savedRevisions;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        repositoryManager = mock(RepositoryManager.class);
+        configDeployer = mock(ConfigDeployer.class);
+        templatedDeployer = mock(VelocityTemplatedSPDeployer.class);
+        deploymentRevisionDAO = mock(DeploymentRevisionDAO.class);
+        repositoryFiles = new LinkedHashMap<>();
+        savedRevisions = new ArrayList<>();
+
+        when(repositoryManager.listFiles()).thenAnswer(invocation -> new ArrayList<>(repositoryFiles.keySet()));
+        when(repositoryManager.getContentHash(any(File.class))).thenAnswer(invocation ->
+                repositoryFiles.getOrDefault((File) invocation.getArguments()[0], ""));
+        when(repositoryManager.getFile(any(File.class))).thenAnswer(invocation -> {
+            File file = (File) invocation.getArguments()[0];
+            if (!repositoryFiles.containsKey(file)) {
+                throw new RemoteFetchCoreException("File not found: " + file);
+            }
+            return new ConfigurationFileStream(new ByteArrayInputStream(new byte[0]), file);
+        });
+        when(configDeployer.resolveConfigName(any(ConfigurationFileStream.class))).thenAnswer(invocation ->
+                resolveName(((ConfigurationFileStream) invocation.getArguments()[0]).getPath()));
+    }
+
+    @Test
+    public void testPollOnlyFilesChangedSinceLastSyncedRevision() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("a1"));
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("b1"));
+        verify(deploymentRevisionDAO).updateLastSyncedRevision(CONFIGURATION_ID, "r1", null);
+
+        setRevision("r2");
+        repositoryFiles.put(FILE_A, "a2");
+        repositoryFiles.put(FILE_B, "b2");
+        // Only the change of a.xml is listed, so b.xml is not read again.
+        when(repositoryManager.listChangedFiles("r1")).thenReturn(Collections.singletonList(
+                new FileChange(FILE_A, FileChange.ChangeType.MODIFY)));
+        actionListener.execute();
+
+        verify(repositoryManager, times(1)).listFiles();
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("a2"));
+        verify(templatedDeployer, never()).deploy(any(ConfigurationFileStream.class), eq("b2"));
+        verify(deploymentRevisionDAO).updateLastSyncedRevision(CONFIGURATION_ID, "r2", null);
+    }
+
+    @Test
+    public void testSkipPollWhenRepositoryUnchanged() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        actionListener.execute();
+        actionListener.execute();
+
+        verify(repositoryManager, times(2)).fetchRepository();
+        verify(repositoryManager, never()).listChangedFiles(anyString());
+        verify(templatedDeployer, times(1)).deploy(any(ConfigurationFileStream.class), anyString());
+    }
+
+    @Test
+    public void testMarkDeletedFileMissing() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+
+        setRevision("r2");
+        repositoryFiles.remove(FILE_B);
+        when(repositoryManager.listChangedFiles("r1")).thenReturn(Collections.singletonList(
+                new FileChange(FILE_B, FileChange.ChangeType.DELETE)));
+        actionListener.execute();
+
+        DeploymentRevision revisionA = getSavedRevision("A");
+        DeploymentRevision revisionB = getSavedRevision("B");
+        assertEquals(revisionA.getDeploymentStatus(), DeploymentRevision.DeploymentStatus.SUCCESS);
+        assertEquals(revisionB.getDeploymentStatus(), DeploymentRevision.DeploymentStatus.FILE_MISSING);
+        assertEquals(revisionB.getFileHash(), "");
+    }
+
+    @Test
+    public void testMarkDeletedFileMissingInFullPoll() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+
+        setRevision("r2");
+        repositoryFiles.remove(FILE_B);
+        // Changes can not be listed, so all files are reconciled.
+        when(repositoryManager.listChangedFiles("r1")).thenReturn(null);
+        actionListener.execute();
+
+        verify(repositoryManager, times(2)).listFiles();
+        assertEquals(getSavedRevision("B").getDeploymentStatus(), DeploymentRevision.DeploymentStatus.FILE_MISSING);
+    }
+
+    @Test
+    public void testRetryUnresolvedFileWithoutChanges() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "unresolvable");
+        actionListener.execute();
+        verify(templatedDeployer, never()).deploy(any(ConfigurationFileStream.class), eq("unresolvable"));
+        assertEquals(getSavedRevision("b").getDeploymentStatus(), DeploymentRevision.DeploymentStatus.FAIL);
+
+        // The name resolves on the next poll, although the repository did not move.
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("b1"));
+        verify(templatedDeployer, times(1)).deploy(any(ConfigurationFileStream.class), eq("a1"));
+        assertEquals(getSavedRevision("b").getDeploymentStatus(), DeploymentRevision.DeploymentStatus.SUCCESS);
+    }
+
+    @Test
+    public void testRetryFailedDeploymentWithoutChanges() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        doThrow(new RemoteFetchCoreException("Deployment failed")).doNothing().when(templatedDeployer)
+                .deploy(any(ConfigurationFileStream.class), eq("a1"));
+        actionListener.execute();
+        assertEquals(getSavedRevision("A").getDeploymentStatus(), DeploymentRevision.DeploymentStatus.FAIL);
+
+        actionListener.execute();
+
+        verify(templatedDeployer, times(2)).deploy(any(ConfigurationFileStream.class), eq("a1"));
+        assertEquals(getSavedRevision("A").getDeploymentStatus(), DeploymentRevision.DeploymentStatus.SUCCESS);
+
+        // Nothing is left to retry, so the next poll is skipped.
+        actionListener.execute();
+        verify(templatedDeployer, times(2)).deploy(any(ConfigurationFileStream.class), eq("a1"));
+    }
+
+    @Test
+    public void testKeepContentOfLegacyRevisionHash() throws Exception {
+
+        // Hashes stored as the last commit of each file, before content hashes were stored.
+        when(deploymentRevisionDAO.getDeploymentRevisionsByConfigurationId(CONFIGURATION_ID)).thenReturn(
+                Arrays.asList(buildDeployedRevision("A", FILE_A, "c1"), buildDeployedRevision("B", FILE_B, "c2")));
+        when(repositoryManager.getContentHash(FILE_A, "c1")).thenReturn("a1");
+        when(repositoryManager.getContentHash(FILE_B, "c2")).thenReturn("b1");
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b2");
+        actionListener.execute();
+
+        // a.xml is unchanged since commit c1, only its stored hash is replaced.
+        verify(templatedDeployer, never()).deploy(any(ConfigurationFileStream.class), eq("a1"));
+        assertEquals(getSavedRevision("A").getFileHash(), "a1");
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("b2"));
+        assertEquals(getSavedRevision("B").getFileHash(), "b2");
+    }
+
+    @Test
+    public void testResolveNameOnlyForChangedContent() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+        verify(configDeployer, times(2)).resolveConfigName(any(ConfigurationFileStream.class));
+
+        // All files are reconciled, but only b.xml has new content to resolve the name from.
+        setRevision("r2");
+        repositoryFiles.put(FILE_B, "b2");
+        when(repositoryManager.listChangedFiles("r1")).thenReturn(null);
+        actionListener.execute();
+
+        verify(configDeployer, times(3)).resolveConfigName(any(ConfigurationFileStream.class));
+        verify(templatedDeployer, times(1)).deploy(any(ConfigurationFileStream.class), eq("a1"));
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("b2"));
+    }
+
+    @Test
+    public void testResolveNameFromSeededContentHash() throws Exception {
+
+        when(deploymentRevisionDAO.getDeploymentRevisionsByConfigurationId(CONFIGURATION_ID)).thenReturn(
+                Collections.singletonList(buildDeployedRevision("A", FILE_A, "a1")));
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        actionListener.execute();
+
+        // The content stored by an earlier listener is neither resolved nor deployed again.
+        verify(configDeployer, never()).resolveConfigName(any(ConfigurationFileStream.class));
+        verify(templatedDeployer, never()).deploy(any(ConfigurationFileStream.class), anyString());
+    }
+
+    @Test
+    public void testSaveRevisionsIndividuallyWhenBatchFails() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        doThrow(new RemoteFetchCoreException("Batch failed")).when(deploymentRevisionDAO).saveDeploymentRevisions(
+                eq(CONFIGURATION_ID), anyListOf(DeploymentRevision.class), anyListOf(DeploymentRevision.class), any());
+        List<String> createdItemNames = new ArrayList<>();
+        doAnswer(invocation -> {
+            DeploymentRevision deploymentRevision = (DeploymentRevision) invocation.getArguments()[0];
+            createdItemNames.add(deploymentRevision.getItemName());
+            if ("B".equals(deploymentRevision.getItemName())) {
+                throw new RemoteFetchCoreException("Unable to create " + deploymentRevision.getItemName());
+            }
+            return null;
+        }).when(deploymentRevisionDAO).createDeploymentRevision(any(DeploymentRevision.class));
+        List<String> updatedItemNames = new ArrayList<>();
+        doAnswer(invocation -> {
+            updatedItemNames.add(((DeploymentRevision) invocation.getArguments()[0]).getItemName());
+            return null;
+        }).when(deploymentRevisionDAO).updateDeploymentRevision(any(DeploymentRevision.class));
+
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+
+        // Each revision is written on its own, and the revision is not synced as b.xml could not be stored.
+        assertEquals(createdItemNames, Arrays.asList("A", "B"));
+        verify(deploymentRevisionDAO).updateLastSynchronizedDate(eq(CONFIGURATION_ID), any(Date.class));
+        verify(deploymentRevisionDAO, never()).updateLastSyncedRevision(anyString(), anyString(), any());
+
+        repositoryFiles.put(FILE_A, "a2");
+        actionListener.execute();
+
+        // The revision of b.xml that was not stored is created again.
+        assertEquals(createdItemNames, Arrays.asList("A", "B", "B"));
+        assertEquals(updatedItemNames, Collections.singletonList("A"));
+    }
+
+    @Test
+    public void testDeployOnlyPushedFiles() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+
+        setRevision("r2");
+        repositoryFiles.put(FILE_A, "a2");
+        repositoryFiles.put(FILE_B, "b2");
+        List<String> pushedFileNames = Collections.singletonList("sp/a.xml");
+        when(repositoryManager.resolveFileChanges(pushedFileNames)).thenReturn(Collections.singletonList(
+                new FileChange(FILE_A, FileChange.ChangeType.MODIFY)));
+        actionListener.executeForFiles("r1", "r2", pushedFileNames);
+
+        verify(repositoryManager, never()).listChangedFiles(anyString());
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("a2"));
+        verify(templatedDeployer, never()).deploy(any(ConfigurationFileStream.class), eq("b2"));
+        verify(deploymentRevisionDAO).updateLastSyncedRevision(CONFIGURATION_ID, "r2", null);
+    }
+
+    @Test
+    public void testPollDirectoryWhenPushIsNotOnSyncedRevision() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        repositoryFiles.put(FILE_B, "b1");
+        actionListener.execute();
+
+        // The push was made on a revision this configuration never synced, so changes before it are unknown.
+        setRevision("r3");
+        repositoryFiles.put(FILE_A, "a3");
+        repositoryFiles.put(FILE_B, "b3");
+        when(repositoryManager.listChangedFiles("r1")).thenReturn(Arrays.asList(
+                new FileChange(FILE_A, FileChange.ChangeType.MODIFY),
+                new FileChange(FILE_B, FileChange.ChangeType.MODIFY)));
+        actionListener.executeForFiles("r2", "r3", Collections.singletonList("sp/a.xml"));
+
+        verify(repositoryManager, never()).resolveFileChanges(anyListOf(String.class));
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("a3"));
+        verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("b3"));
+        verify(deploymentRevisionDAO).updateLastSyncedRevision(CONFIGURATION_ID, "r3", null);
+    }
+
+    @Test
+    public void testCloseRepositoryAfterRunningExecution() throws Exception {
+
+        ActionListenerImpl actionListener = buildActionListener();
+        setRevision("r1");
+        repositoryFiles.put(FILE_A, "a1");
+        // The listener is replaced while it fetches.
+        doAnswer(invocation -> {
+            actionListener.close();
+            return null;
+        }).when(repositoryManager).fetchRepository();
+        actionListener.execute();
+
+        // The repository is closed once the execution completes.
+        InOrder inOrder = inOrder(templatedDeployer, repositoryManager);
+        inOrder.verify(templatedDeployer).deploy(any(ConfigurationFileStream.class), eq("a1"));
+        inOrder.verify(repositoryManager).close();
+
+        // Executions after the listener is closed are skipped.
+        actionListener.execute();
+        verify(repositoryManager, times(1)).fetchRepository();
+    }
+
+    private ActionListenerImpl buildActionListener() throws Exception {
+
+        doRecordSavedRevisions();
+        return new ActionListenerImpl(repositoryManager, configDeployer, CONFIGURATION_ID, -1234,
+                templatedDeployer, deploymentRevisionDAO);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void doRecordSavedRevisions() throws Exception {
+
+        doAnswer(invocation -> {
+            savedRevisions.addAll((List<DeploymentRevision>) invocation.getArguments()[1]);
+            savedRevisions.addAll((List<DeploymentRevision>) invocation.getArguments()[2]);
+            return null;
+        }).when(deploymentRevisionDAO).saveDeploymentRevisions(eq(CONFIGURATION_ID),
+                anyListOf(DeploymentRevision.class), anyListOf(DeploymentRevision.class), any());
+    }
+
+    private static DeploymentRevision buildDeployedRevision(String itemName, File file, String fileHash) {
+
+        DeploymentRevision deploymentRevision = new DeploymentRevision(CONFIGURATION_ID, file);
+        deploymentRevision.setItemName(itemName);
+        deploymentRevision.setFileHash(fileHash);
+        deploymentRevision.setDeploymentStatus(DeploymentRevision.DeploymentStatus.SUCCESS);
+        return deploymentRevision;
+    }
+
+    private void setRevision(String revision) throws Exception {
+
+        when(repositoryManager.getRevision()).thenReturn(revision);
+    }
+
+    private DeploymentRevision getSavedRevision(String itemName) {
+
+        for (DeploymentRevision deploymentRevision : savedRevisions) {
+            if (itemName.equals(deploymentRevision.getItemName())) {
+                return deploymentRevision;
+            }
+        }
+        fail("No DeploymentRevision saved for " + itemName);
+        return null;
+    }
+
+    /**
+     * Resolve the configuration name as the upper cased file name, failing for unresolvable content.
+     */
+    private String resolveName(File file) throws RemoteFetchCoreException {
+
+        if ("unresolvable".equals(repositoryFiles.get(file))) {
+            throw new RemoteFetchCoreException("Unable to resolve " + file);
+        }
+        return file.getName().substring(0, 1).toUpperCase();
+    }
+}
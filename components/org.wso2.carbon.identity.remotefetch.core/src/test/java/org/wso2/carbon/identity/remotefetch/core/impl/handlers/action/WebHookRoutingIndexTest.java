@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.handlers.action;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.core.dao.RemoteFetchConfigurationDAO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_BRANCH;
+import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_DIRECTORY;
+import static org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants.ID_UI_FIELD_URI;
+
+/**
+ * Unit test covering WebHookRoutingIndex.
+ */
+public class WebHookRoutingIndexTest {
+
+    private static final int TENANT_ID = -1234;
+    private static final String REPOSITORY_URI = "https://github.com/IS/Test.git";
+
+    private RemoteFetchConfigurationDAO remoteFetchConfigurationDAO;
+    private WebHookRoutingIndex webHookRoutingIndex;
+    private RemoteFetchConfiguration spConfiguration = buildConfiguration("sp-config", "master", "sp");
+    private RemoteFetchConfiguration nestedConfiguration = buildConfiguration("nested-config", "master", "sp/prod/");
+    private RemoteFetchConfiguration rootConfiguration = buildConfiguration("root-config", "master", "");
+    private RemoteFetchConfiguration branchConfiguration = buildConfiguration("branch-config", "dev", "sp");
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        remoteFetchConfigurationDAO = mock(RemoteFetchConfigurationDAO.class);
+        when(remoteFetchConfigurationDAO.getWebHookRemoteFetchConfigurationsByTenant(TENANT_ID)).thenReturn(
+                Arrays.asList(spConfiguration, nestedConfiguration, rootConfiguration, branchConfiguration));
+        webHookRoutingIndex = new WebHookRoutingIndex();
+        Whitebox.setInternalState(webHookRoutingIndex, "remoteFetchConfigurationDAO", remoteFetchConfigurationDAO);
+    }
+
+    @Test
+    public void testGetMatchingConfigurations() throws Exception {
+
+        Set<RemoteFetchConfiguration> matchingConfigurations = webHookRoutingIndex.getMatchingConfigurations(
+                TENANT_ID, "https://GitHub.com/IS/Test/", "MASTER", Arrays.asList("sp/prod/app.xml", "sp/app.xml"));
+        assertEquals(matchingConfigurations.size(), 3);
+        assertTrue(matchingConfigurations.contains(spConfiguration));
+        assertTrue(matchingConfigurations.contains(nestedConfiguration));
+        assertTrue(matchingConfigurations.contains(rootConfiguration));
+
+        matchingConfigurations = webHookRoutingIndex.getMatchingConfigurations(TENANT_ID, REPOSITORY_URI, "master",
+                Collections.singletonList("spx/app.xml"));
+        assertEquals(new ArrayList<>(matchingConfigurations), Collections.singletonList(rootConfiguration));
+
+        matchingConfigurations = webHookRoutingIndex.getMatchingConfigurations(TENANT_ID, REPOSITORY_URI, "dev",
+                Collections.singletonList("sp/app.xml"));
+        assertEquals(new ArrayList<>(matchingConfigurations), Collections.singletonList(branchConfiguration));
+
+        matchingConfigurations = webHookRoutingIndex.getMatchingConfigurations(TENANT_ID,
+                "https://github.com/IS/Other.git", "master", Collections.singletonList("sp/app.xml"));
+        assertTrue(matchingConfigurations.isEmpty());
+
+        // Routes are built once and reused until invalidated.
+        verify(remoteFetchConfigurationDAO, times(1)).getWebHookRemoteFetchConfigurationsByTenant(TENANT_ID);
+    }
+
+    @Test
+    public void testGetMatchingConfigurationsForUnknownFiles() throws Exception {
+
+        Set<RemoteFetchConfiguration> matchingConfigurations = webHookRoutingIndex.getMatchingConfigurations(
+                TENANT_ID, REPOSITORY_URI, "master", null);
+        assertEquals(matchingConfigurations.size(), 3);
+        assertTrue(matchingConfigurations.contains(spConfiguration));
+        assertTrue(matchingConfigurations.contains(nestedConfiguration));
+        assertTrue(matchingConfigurations.contains(rootConfiguration));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+
+        webHookRoutingIndex.getMatchingConfigurations(TENANT_ID, REPOSITORY_URI, "master",
+                Collections.singletonList("sp/app.xml"));
+        webHookRoutingIndex.invalidate(TENANT_ID);
+        when(remoteFetchConfigurationDAO.getWebHookRemoteFetchConfigurationsByTenant(TENANT_ID))
+                .thenReturn(Collections.singletonList(nestedConfiguration));
+
+        Set<RemoteFetchConfiguration> matchingConfigurations = webHookRoutingIndex.getMatchingConfigurations(
+                TENANT_ID, REPOSITORY_URI, "master", Collections.singletonList("sp/prod/app.xml"));
+        assertEquals(new ArrayList<>(matchingConfigurations), Collections.singletonList(nestedConfiguration));
+        verify(remoteFetchConfigurationDAO, times(2)).getWebHookRemoteFetchConfigurationsByTenant(TENANT_ID);
+    }
+
+    @Test
+    public void testRebuildRoutesOnConfigVersionChange() throws Exception {
+
+        webHookRoutingIndex.getMatchingConfigurations(TENANT_ID, REPOSITORY_URI, "master",
+                Collections.singletonList("sp/app.xml"));
+        // Another node deletes configurations, which only changes the last configuration version seen here.
+        when(remoteFetchConfigurationDAO.getLastConfigVersion()).thenReturn(1L);
+        when(remoteFetchConfigurationDAO.getWebHookRemoteFetchConfigurationsByTenant(TENANT_ID))
+                .thenReturn(Collections.singletonList(nestedConfiguration));
+
+        Set<RemoteFetchConfiguration> matchingConfigurations = webHookRoutingIndex.getMatchingConfigurations(
+                TENANT_ID, REPOSITORY_URI, "master", Collections.singletonList("sp/prod/app.xml"));
+        assertEquals(new ArrayList<>(matchingConfigurations), Collections.singletonList(nestedConfiguration));
+        webHookRoutingIndex.getMatchingConfigurations(TENANT_ID, REPOSITORY_URI, "master",
+                Collections.singletonList("sp/prod/app.xml"));
+        verify(remoteFetchConfigurationDAO, times(2)).getWebHookRemoteFetchConfigurationsByTenant(TENANT_ID);
+    }
+
+    private static RemoteFetchConfiguration buildConfiguration(String id, String branch, String directory) {
+
+        RemoteFetchConfiguration remoteFetchConfiguration = new RemoteFetchConfiguration(id, TENANT_ID, true,
+                "GIT", "WEB_HOOK", "SP", id, null);
+        Map<String, String> repositoryManagerAttributes = new HashMap<>();
+        repositoryManagerAttributes.put(ID_UI_FIELD_URI, REPOSITORY_URI);
+        repositoryManagerAttributes.put(ID_UI_FIELD_BRANCH, branch);
+        repositoryManagerAttributes.put(ID_UI_FIELD_DIRECTORY, directory);
+        remoteFetchConfiguration.setRepositoryManagerAttributes(repositoryManagerAttributes);
+        return remoteFetchConfiguration;
+    }
+}
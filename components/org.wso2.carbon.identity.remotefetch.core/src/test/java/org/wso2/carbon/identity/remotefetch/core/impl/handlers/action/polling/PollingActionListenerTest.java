@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.polling;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.ConfigurationFileStream;
+import org.wso2.carbon.identity.remotefetch.common.configdeployer.ConfigDeployer;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.FileChange;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+import org.wso2.carbon.identity.remotefetch.core.dao.DeploymentRevisionDAO;
+import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.VelocityTemplatedSPDeployer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test covering PollingActionListener.
+ */
+public class PollingActionListenerTest {
+
+    private static final String CONFIGURATION_ID = "00000000-0000-0000-0000-000000000000";
+    private static final File CONFIG_FILE = new File("sp/app.xml");
+
+    private RepositoryManager repositoryManager;
+    private ConfigDeployer configDeployer;
+    private VelocityTemplatedSPDeployer templatedDeployer;
+    private PollingActionListener pollingActionListener;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        repositoryManager = mock(RepositoryManager.class);
+        configDeployer = mock(ConfigDeployer.class);
+        templatedDeployer = mock(VelocityTemplatedSPDeployer.class);
+        when(repositoryManager.getFile(CONFIG_FILE)).thenAnswer(invocation -> new ConfigurationFileStream(
+                new ByteArrayInputStream(new byte[0]), CONFIG_FILE));
+        when(repositoryManager.listFiles()).thenReturn(Collections.singletonList(CONFIG_FILE));
+        when(configDeployer.resolveConfigName(any(ConfigurationFileStream.class))).thenReturn("App");
+        pollingActionListener = new PollingActionListener(repositoryManager, configDeployer, 60, CONFIGURATION_ID,
+                -1234, templatedDeployer, mock(DeploymentRevisionDAO.class));
+    }
+
+    @Test
+    public void testExecuteWithinFrequency() throws Exception {
+
+        when(repositoryManager.getRevision()).thenReturn("r1");
+        when(repositoryManager.getContentHash(CONFIG_FILE)).thenReturn("h1");
+        pollingActionListener.execute();
+        pollingActionListener.execute();
+
+        verify(repositoryManager, times(1)).fetchRepository();
+        verify(templatedDeployer, times(1)).deploy(any(ConfigurationFileStream.class), eq("h1"));
+    }
+
+    @Test
+    public void testTriggerRightAfterPollDeploys() throws Exception {
+
+        when(repositoryManager.getRevision()).thenReturn("r1");
+        when(repositoryManager.getContentHash(CONFIG_FILE)).thenReturn("h1");
+        pollingActionListener.execute();
+
+        when(repositoryManager.getRevision()).thenReturn("r2");
+        when(repositoryManager.getContentHash(CONFIG_FILE)).thenReturn("h2");
+        when(repositoryManager.listChangedFiles("r1")).thenReturn(Collections.singletonList(
+                new FileChange(CONFIG_FILE, FileChange.ChangeType.MODIFY)));
+        pollingActionListener.executeNow();
+
+        verify(repositoryManager, times(2)).fetchRepository();
+        verify(templatedDeployer, times(1)).deploy(any(ConfigurationFileStream.class), eq("h2"));
+    }
+}
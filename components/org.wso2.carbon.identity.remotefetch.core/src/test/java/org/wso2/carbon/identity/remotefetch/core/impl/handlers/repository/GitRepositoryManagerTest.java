@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.remotefetch.core.impl.handlers.repository;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchCoreConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.FileChange;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManager;
+import org.wso2.carbon.identity.remotefetch.common.repomanager.RepositoryManagerBuilderException;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test covering GitRepositoryManager and GitRepositoryManagerBuilder against local repositories.
+ */
+public class GitRepositoryManagerTest {
+
+    private File testDir;
+    private File originDir;
+    private File workingDir;
+    private Git origin;
+    private String uri;
+    private String branch;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        testDir = Files.createTempDirectory("remote-fetch-git").toFile();
+        originDir = new File(testDir, "origin");
+        workingDir = new File(testDir, "work");
+        origin = Git.init().setDirectory(originDir).call();
+        uri = originDir.toURI().toString();
+
+        writeFile("sp/a.xml", "a1");
+        writeFile("sp/b.xml", "b1");
+        writeFile("sp/c.xml", "c1");
+        writeFile("other/x.xml", "x1");
+        commit("Initial commit");
+        branch = origin.getRepository().getBranch();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        origin.close();
+        RepositoryCache.clear();
+        FileUtils.deleteQuietly(testDir);
+    }
+
+    @Test
+    public void testListChangedFiles() throws Exception {
+
+        GitRepositoryManager repositoryManager = new GitRepositoryManager("repo-changes", uri, branch,
+                new File("sp"), workingDir, null);
+        repositoryManager.fetchRepository();
+        String fromRevision = repositoryManager.getRevision();
+        assertNotNull(fromRevision);
+
+        writeFile("sp/d.xml", "d1");
+        writeFile("sp/a.xml", "a2");
+        origin.rm().addFilepattern("sp/b.xml").call();
+        origin.rm().addFilepattern("sp/c.xml").call();
+        writeFile("sp/e.xml", "c1");
+        writeFile("other/x.xml", "x2");
+        commit("Add, modify, delete and rename files");
+        repositoryManager.fetchRepository();
+
+        Set<String> changes = toChangeSet(repositoryManager.listChangedFiles(fromRevision));
+        assertEquals(changes, new HashSet<>(Arrays.asList("ADD sp/d.xml", "MODIFY sp/a.xml", "DELETE sp/b.xml",
+                "DELETE sp/c.xml", "ADD sp/e.xml")));
+        assertTrue(repositoryManager.listChangedFiles(repositoryManager.getRevision()).isEmpty());
+        assertNull(repositoryManager.listChangedFiles("0000000000000000000000000000000000000000"));
+        assertNull(repositoryManager.listChangedFiles("not-a-revision"));
+    }
+
+    @Test
+    public void testBareRepository() throws Exception {
+
+        GitRepositoryManager repositoryManager = new GitRepositoryManager("repo-bare", uri, branch,
+                new File("sp"), workingDir, null, true, false);
+        repositoryManager.fetchRepository();
+
+        try (Git localGit = Git.open(new File(workingDir, "repo-bare"))) {
+            assertTrue(localGit.getRepository().isBare());
+        }
+        assertEquals(repositoryManager.listFiles(), Arrays.asList(new File("sp/a.xml"), new File("sp/b.xml"),
+                new File("sp/c.xml")));
+        assertEquals(readFile(repositoryManager, "sp/a.xml"), "a1");
+        String revision = repositoryManager.getRevision();
+        String contentHash = repositoryManager.getContentHash(new File("sp/a.xml"));
+
+        writeFile("sp/a.xml", "a2");
+        commit("Modify file");
+        repositoryManager.fetchRepository();
+
+        assertNotEquals(repositoryManager.getRevision(), revision);
+        assertNotEquals(repositoryManager.getContentHash(new File("sp/a.xml")), contentHash);
+        assertEquals(readFile(repositoryManager, "sp/a.xml"), "a2");
+        assertEquals(repositoryManager.getRevisionHash(new File("sp/a.xml")), repositoryManager.getRevision());
+    }
+
+    @Test
+    public void testSharedRepositoryWithDifferentDirectories() throws Exception {
+
+        GitRepositoryManager spRepositoryManager = new GitRepositoryManager("shared-test", uri, branch,
+                new File("sp"), workingDir, null, false, true);
+        GitRepositoryManager otherRepositoryManager = new GitRepositoryManager("shared-test", uri, branch,
+                new File("other"), workingDir, null, false, true);
+        spRepositoryManager.fetchRepository();
+        otherRepositoryManager.fetchRepository();
+
+        assertEquals(spRepositoryManager.listFiles(), Arrays.asList(new File("sp/a.xml"), new File("sp/b.xml"),
+                new File("sp/c.xml")));
+        assertEquals(otherRepositoryManager.listFiles(), Arrays.asList(new File("other/x.xml")));
+        assertEquals(readFile(otherRepositoryManager, "other/x.xml"), "x1");
+        assertNotEquals(spRepositoryManager.getSourceKey(), otherRepositoryManager.getSourceKey());
+
+        String fromRevision = spRepositoryManager.getRevision();
+        writeFile("other/x.xml", "x2");
+        commit("Modify file of the other directory");
+        spRepositoryManager.fetchRepository();
+
+        // Fetched once for both configurations, each only sees the changes of its own directory.
+        assertEquals(otherRepositoryManager.getRevision(), spRepositoryManager.getRevision());
+        assertTrue(spRepositoryManager.listChangedFiles(fromRevision).isEmpty());
+        assertEquals(toChangeSet(otherRepositoryManager.listChangedFiles(fromRevision)),
+                new HashSet<>(Arrays.asList("MODIFY other/x.xml")));
+        assertEquals(readFile(otherRepositoryManager, "other/x.xml"), "x2");
+    }
+
+    @Test
+    public void testBuildSharedRepositoryManagers() throws Exception {
+
+        RemoteFetchCoreConfiguration fetchCoreConfiguration = new RemoteFetchCoreConfiguration(workingDir, true);
+        fetchCoreConfiguration.setSharedRepository(true);
+        RepositoryManager spRepositoryManager = new GitRepositoryManagerBuilder()
+                .addRemoteFetchConfig(buildConfiguration("00000000-0000-0000-0000-000000000001", "sp"))
+                .addRemoteFetchCoreConfig(fetchCoreConfiguration).build();
+        RepositoryManager otherRepositoryManager = new GitRepositoryManagerBuilder()
+                .addRemoteFetchConfig(buildConfiguration("00000000-0000-0000-0000-000000000002", "other"))
+                .addRemoteFetchCoreConfig(fetchCoreConfiguration).build();
+        spRepositoryManager.fetchRepository();
+        otherRepositoryManager.fetchRepository();
+
+        // Both configurations read a single local repository.
+        String[] localRepositories = workingDir.list();
+        assertNotNull(localRepositories);
+        assertEquals(localRepositories.length, 1);
+        assertTrue(localRepositories[0].startsWith("shared-"));
+        assertEquals(spRepositoryManager.listFiles(), Arrays.asList(new File("sp/a.xml"), new File("sp/b.xml"),
+                new File("sp/c.xml")));
+        assertEquals(otherRepositoryManager.listFiles(), Arrays.asList(new File("other/x.xml")));
+    }
+
+    @Test(expectedExceptions = RepositoryManagerBuilderException.class)
+    public void testBuildWithoutDirectory() throws Exception {
+
+        RemoteFetchConfiguration config = buildConfiguration("00000000-0000-0000-0000-000000000001", "sp");
+        config.getRepositoryManagerAttributes().remove("directory");
+        new GitRepositoryManagerBuilder().addRemoteFetchConfig(config)
+                .addRemoteFetchCoreConfig(new RemoteFetchCoreConfiguration(workingDir, true)).build();
+    }
+
+    private RemoteFetchConfiguration buildConfiguration(String id, String directory) {
+
+        RemoteFetchConfiguration config = new RemoteFetchConfiguration();
+        config.setRemoteFetchConfigurationId(id);
+        Map<String, String> repositoryManagerAttributes = new HashMap<>();
+        repositoryManagerAttributes.put("uri", uri);
+        repositoryManagerAttributes.put("branch", branch);
+        repositoryManagerAttributes.put("directory", directory);
+        config.setRepositoryManagerAttributes(repositoryManagerAttributes);
+        return config;
+    }
+
+    private void writeFile(String path, String content) throws Exception {
+
+        FileUtils.writeStringToFile(new File(originDir, path), content, StandardCharsets.UTF_8);
+        origin.add().addFilepattern(path).call();
+    }
+
+    private void commit(String message) throws Exception {
+
+        origin.commit().setMessage(message).setAuthor("test", "test@wso2.com")
+                .setCommitter("test", "test@wso2.com").call();
+    }
+
+    private static String readFile(GitRepositoryManager repositoryManager, String path) throws Exception {
+
+        try (InputStream contentStream = repositoryManager.getFile(new File(path)).getContentStream()) {
+            return IOUtils.toString(contentStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Set<String> toChangeSet(List<FileChange> fileChanges) {
+
+        assertNotNull(fileChanges);
+        Set<String> changes = new HashSet<>();
+        for (FileChange fileChange : fileChanges) {
+            changes.add(fileChange.getChangeType() + " " + fileChange.getPath().getPath());
+        }
+        return changes;
+    }
+}
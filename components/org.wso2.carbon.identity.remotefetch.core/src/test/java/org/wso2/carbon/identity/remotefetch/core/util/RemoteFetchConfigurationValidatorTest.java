@@ -26,6 +26,7 @@ import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchComponentRegistry;
 import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConfiguration;
+import org.wso2.carbon.identity.remotefetch.common.RemoteFetchConstants;
 import org.wso2.carbon.identity.remotefetch.core.RemoteFetchComponentRegistryImpl;
 import org.wso2.carbon.identity.remotefetch.core.impl.deployers.config.ServiceProviderConfigDeployerComponent;
 import org.wso2.carbon.identity.remotefetch.core.impl.handlers.action.polling.PollingActionListenerComponent;
@@ -98,4 +99,19 @@ public class RemoteFetchConfigurationValidatorTest extends PowerMockTestCase {
         assertNotNull(remoteFetchConfigurationValidator.validate().getMessages());
         assertEquals(remoteFetchConfigurationValidator.validate().getValidationStatus().toString(), "PASSED");
     }
+
+    @Test
+    public void testValidateDebounceWindow() {
+
+        try {
+            actionListenerAttributes.put(RemoteFetchConstants.ATTRIBUTE_DEBOUNCE_WINDOW, "30");
+            assertEquals(new RemoteFetchConfigurationValidator(remoteFetchComponentRegistry, remoteFetchConfiguration)
+                    .validate().getValidationStatus().toString(), "PASSED");
+            actionListenerAttributes.put(RemoteFetchConstants.ATTRIBUTE_DEBOUNCE_WINDOW, "soon");
+            assertEquals(new RemoteFetchConfigurationValidator(remoteFetchComponentRegistry, remoteFetchConfiguration)
+                    .validate().getValidationStatus().toString(), "FAILED");
+        } finally {
+            actionListenerAttributes.remove(RemoteFetchConstants.ATTRIBUTE_DEBOUNCE_WINDOW);
+        }
+    }
 }
@@ -8,6 +8,10 @@ CREATE TABLE IF NOT EXISTS IDN_REMOTE_FETCH_CONFIG (
 	REMOTE_FETCH_NAME VARCHAR(255),
 	REMOTE_RESOURCE_URI VARCHAR(255) NOT NULL,
 	ATTRIBUTES_JSON MEDIUMTEXT NOT NULL,
+	DEPLOYED_COUNT INTEGER DEFAULT 0 NOT NULL,
+	FAILED_COUNT INTEGER DEFAULT 0 NOT NULL,
+	LAST_DEPLOYED_DATE TIMESTAMP,
+	CONFIG_VERSION BIGINT DEFAULT 0 NOT NULL,
 	PRIMARY KEY (ID),
 	CONSTRAINT UC_REMOTE_RESOURCE_TYPE UNIQUE (TENANT_ID, CONFIG_DEPLOYER_TYPE)
 );
@@ -26,3 +30,17 @@ CREATE TABLE IF NOT EXISTS IDN_REMOTE_FETCH_REVISIONS (
 	FOREIGN KEY (CONFIG_ID) REFERENCES IDN_REMOTE_FETCH_CONFIG(ID) ON DELETE CASCADE,
 	CONSTRAINT UC_REVISIONS UNIQUE (CONFIG_ID, ITEM_NAME)
 );
+
+CREATE TABLE IF NOT EXISTS IDN_REMOTE_FETCH_SYNC_STATE (
+	CONFIG_ID VARCHAR(255) NOT NULL,
+	LAST_SYNCED_REVISION VARCHAR(255),
+	SOURCE_KEY VARCHAR(255),
+	PRIMARY KEY (CONFIG_ID),
+	FOREIGN KEY (CONFIG_ID) REFERENCES IDN_REMOTE_FETCH_CONFIG(ID) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS IDN_REMOTE_FETCH_VERSION (
+	ID INTEGER NOT NULL,
+	LAST_VERSION BIGINT DEFAULT 0 NOT NULL,
+	PRIMARY KEY (ID)
+);
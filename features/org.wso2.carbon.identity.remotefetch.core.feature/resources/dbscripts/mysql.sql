@@ -8,6 +8,10 @@ CREATE TABLE IDN_REMOTE_FETCH_CONFIG (
 	REMOTE_FETCH_NAME VARCHAR(255),
 	REMOTE_RESOURCE_URI VARCHAR(255) NOT NULL,
 	ATTRIBUTES_JSON MEDIUMTEXT NOT NULL,
+	DEPLOYED_COUNT INT DEFAULT 0 NOT NULL,
+	FAILED_COUNT INT DEFAULT 0 NOT NULL,
+	LAST_DEPLOYED_DATE TIMESTAMP NULL,
+	CONFIG_VERSION BIGINT DEFAULT 0 NOT NULL,
 	PRIMARY KEY (ID),
 	CONSTRAINT UC_REMOTE_RESOURCE_TYPE UNIQUE (TENANT_ID, CONFIG_DEPLOYER_TYPE)
 )ENGINE INNODB;
@@ -27,5 +31,23 @@ CREATE TABLE IDN_REMOTE_FETCH_REVISIONS (
 	CONSTRAINT UC_REVISIONS UNIQUE (CONFIG_ID, ITEM_NAME)
 )ENGINE INNODB;
 
+CREATE TABLE IDN_REMOTE_FETCH_SYNC_STATE (
+	CONFIG_ID VARCHAR(255) NOT NULL,
+	LAST_SYNCED_REVISION VARCHAR(255),
+	SOURCE_KEY VARCHAR(255),
+	PRIMARY KEY (CONFIG_ID),
+	FOREIGN KEY (CONFIG_ID) REFERENCES IDN_REMOTE_FETCH_CONFIG(ID) ON DELETE CASCADE
+)ENGINE INNODB;
+
+CREATE TABLE IDN_REMOTE_FETCH_VERSION (
+	ID INTEGER NOT NULL,
+	LAST_VERSION BIGINT DEFAULT 0 NOT NULL,
+	PRIMARY KEY (ID)
+)ENGINE INNODB;
+
 -- IDN_REMOTE_FETCH_REVISIONS --
 CREATE INDEX IDX_REMOTE_FETCH_REVISION_CONFIG_ID ON IDN_REMOTE_FETCH_REVISIONS (CONFIG_ID);
+
+-- IDN_REMOTE_FETCH_CONFIG --
+CREATE INDEX IDX_REMOTE_FETCH_CONFIG_VERSION ON IDN_REMOTE_FETCH_CONFIG (CONFIG_VERSION);
+CREATE INDEX IDX_REMOTE_FETCH_TENANT_NAME ON IDN_REMOTE_FETCH_CONFIG (TENANT_ID, REMOTE_FETCH_NAME, ID);
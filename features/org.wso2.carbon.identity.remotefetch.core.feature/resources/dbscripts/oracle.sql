@@ -8,6 +8,10 @@ CREATE TABLE IDN_REMOTE_FETCH_CONFIG (
 	REMOTE_FETCH_NAME VARCHAR(255),
 	REMOTE_RESOURCE_URI VARCHAR(255) NOT NULL,
 	ATTRIBUTES_JSON CLOB NOT NULL,
+	DEPLOYED_COUNT INTEGER DEFAULT 0 NOT NULL,
+	FAILED_COUNT INTEGER DEFAULT 0 NOT NULL,
+	LAST_DEPLOYED_DATE DATE,
+	CONFIG_VERSION NUMBER(19) DEFAULT 0 NOT NULL,
 	CONSTRAINT PK_IDN_REMOTE_FETCH_CONFIG PRIMARY KEY (ID),
 	CONSTRAINT UC_REMOTE_RESOURCE_TYPE UNIQUE (TENANT_ID, CONFIG_DEPLOYER_TYPE)
 )/
@@ -27,6 +31,26 @@ CREATE TABLE IDN_REMOTE_FETCH_REVISIONS (
 	CONSTRAINT UC_REVISIONS UNIQUE (CONFIG_ID, ITEM_NAME)
 )/
 
+CREATE TABLE IDN_REMOTE_FETCH_SYNC_STATE (
+	CONFIG_ID VARCHAR(255) NOT NULL,
+	LAST_SYNCED_REVISION VARCHAR2(255),
+	SOURCE_KEY VARCHAR2(255),
+	CONSTRAINT PK_IDN_REMOTE_FETCH_SYNC_STATE PRIMARY KEY (CONFIG_ID),
+	FOREIGN KEY (CONFIG_ID) REFERENCES IDN_REMOTE_FETCH_CONFIG (ID) ON DELETE CASCADE
+)/
+
+CREATE TABLE IDN_REMOTE_FETCH_VERSION (
+	ID INTEGER NOT NULL,
+	LAST_VERSION NUMBER(19) DEFAULT 0 NOT NULL,
+	CONSTRAINT PK_IDN_REMOTE_FETCH_VERSION PRIMARY KEY (ID)
+)/
+
 -- IDN_REMOTE_FETCH_REVISIONS --
 CREATE INDEX IDX_REMOTE_FETCH_REVISION_CONFIG_ID ON IDN_REMOTE_FETCH_REVISIONS (CONFIG_ID)
 /
+
+-- IDN_REMOTE_FETCH_CONFIG --
+CREATE INDEX IDX_REMOTE_FETCH_CONFIG_VERSION ON IDN_REMOTE_FETCH_CONFIG (CONFIG_VERSION)
+/
+CREATE INDEX IDX_REMOTE_FETCH_TENANT_NAME ON IDN_REMOTE_FETCH_CONFIG (TENANT_ID, REMOTE_FETCH_NAME, ID)
+/